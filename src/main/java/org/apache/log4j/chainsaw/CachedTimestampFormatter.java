@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formats event timestamps with an immutable DateTimeFormatter, reusing the text of the
+ * last second formatted.
+ * <p>
+ * Consecutive events mostly fall in the same second, and the table formats the same
+ * timestamps again on every repaint.  For a pattern without sub-second fields the text of
+ * a second is returned as it is; for a pattern showing milliseconds ("SSS") the position
+ * of the milliseconds in the text of a second is found from two of its timestamps, after
+ * which only those three digits are replaced.  Patterns showing finer fractions are only
+ * cached for the exact timestamp last formatted.
+ * <p>
+ * Safe to use from any thread: the cache is an immutable entry behind a volatile field.
+ */
+public final class CachedTimestampFormatter {
+    private static final int UNKNOWN = -1;
+    //probes to find which fraction of the second a pattern shows
+    private static final Instant PROBE = Instant.ofEpochSecond(1_000_000_000L);
+    private static final int PROBE_MILLIS = 123;
+
+    private final DateTimeFormatter formatter;
+    //true if the text of a second doesn't depend on its fraction
+    private final boolean wholeSeconds;
+    //true if the text depends on the milliseconds only, so they can be replaced
+    private final boolean millisOnly;
+    private volatile Second cached;
+
+    /**
+     * @param pattern DateTimeFormatter pattern
+     * @param zone    zone to show the timestamps in
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public CachedTimestampFormatter(String pattern, ZoneId zone) {
+        this(DateTimeFormatter.ofPattern(pattern).withZone(zone));
+    }
+
+    /**
+     * @param formatter formatter, shown in the system default zone if it has none
+     */
+    public CachedTimestampFormatter(DateTimeFormatter formatter) {
+        this.formatter = formatter.getZone() == null ? formatter.withZone(ZoneId.systemDefault()) : formatter;
+        String zeroMillis = this.formatter.format(PROBE);
+        String someMillis = this.formatter.format(PROBE.plusMillis(PROBE_MILLIS));
+        String someNanos = this.formatter.format(PROBE.plusMillis(PROBE_MILLIS).plusNanos(456_789));
+        wholeSeconds = zeroMillis.equals(someMillis) && zeroMillis.equals(someNanos);
+        millisOnly = !wholeSeconds && someMillis.equals(someNanos);
+    }
+
+    public DateTimeFormatter getFormatter() {
+        return formatter;
+    }
+
+    public String format(Instant timestamp) {
+        long epochSecond = timestamp.getEpochSecond();
+        int nanos = timestamp.getNano();
+        Second second = cached;
+        if (second != null && second.epochSecond == epochSecond) {
+            if (second.nanos == nanos || wholeSeconds) {
+                return second.text;
+            }
+            if (millisOnly) {
+                if (second.millisOffset != UNKNOWN) {
+                    return second.withMillis(nanos / 1_000_000);
+                }
+                String text = formatter.format(timestamp);
+                cached = new Second(epochSecond, nanos, text, findMillisOffset(second, text, nanos / 1_000_000));
+                return text;
+            }
+        }
+        String text = formatter.format(timestamp);
+        cached = new Second(epochSecond, nanos, text, UNKNOWN);
+        return text;
+    }
+
+    /**
+     * @return where the three digits of the milliseconds are in both texts of the same second,
+     * or UNKNOWN if that can't be told
+     */
+    private static int findMillisOffset(Second second, String text, int millis) {
+        String previous = second.text;
+        int previousMillis = second.nanos / 1_000_000;
+        if (previous.length() != text.length() || previousMillis == millis || previous.equals(text)) {
+            return UNKNOWN;
+        }
+        int firstDifference = 0;
+        while (previous.charAt(firstDifference) == text.charAt(firstDifference)) {
+            firstDifference++;
+        }
+        int lastDifference = text.length() - 1;
+        while (previous.charAt(lastDifference) == text.charAt(lastDifference)) {
+            lastDifference--;
+        }
+        int offset = UNKNOWN;
+        for (int start = Math.max(0, lastDifference - 2); start <= firstDifference && start + 3 <= text.length(); start++) {
+            if (isMillisAt(previous, start, previousMillis) && isMillisAt(text, start, millis)) {
+                if (offset != UNKNOWN) {
+                    return UNKNOWN;
+                }
+                offset = start;
+            }
+        }
+        return offset;
+    }
+
+    private static boolean isMillisAt(String text, int start, int millis) {
+        return text.charAt(start) == (char) ('0' + millis / 100)
+            && text.charAt(start + 1) == (char) ('0' + millis / 10 % 10)
+            && text.charAt(start + 2) == (char) ('0' + millis % 10);
+    }
+
+    private static final class Second {
+        private final long epochSecond;
+        private final int nanos;
+        private final String text;
+        private final int millisOffset;
+
+        private Second(long epochSecond, int nanos, String text, int millisOffset) {
+            this.epochSecond = epochSecond;
+            this.nanos = nanos;
+            this.text = text;
+            this.millisOffset = millisOffset;
+        }
+
+        private String withMillis(int millis) {
+            char[] chars = text.toCharArray();
+            chars[millisOffset] = (char) ('0' + millis / 100);
+            chars[millisOffset + 1] = (char) ('0' + millis / 10 % 10);
+            chars[millisOffset + 2] = (char) ('0' + millis % 10);
+            return new String(chars);
+        }
+    }
+}
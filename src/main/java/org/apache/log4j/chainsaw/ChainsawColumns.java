@@ -68,7 +68,9 @@ public class ChainsawColumns {
     public static final Cursor CURSOR_FOCUS_ON;
 
     static {
-        CURSOR_FOCUS_ON = Toolkit.getDefaultToolkit().createCustomCursor(new ImageIcon(ChainsawIcons.WINDOW_ICON).getImage(), new Point(3, 3), "FocusOn");
+        //no custom cursor without a display, the table models still use the column names
+        CURSOR_FOCUS_ON = GraphicsEnvironment.isHeadless() ? Cursor.getDefaultCursor() :
+            Toolkit.getDefaultToolkit().createCustomCursor(new ImageIcon(ChainsawIcons.WINDOW_ICON).getImage(), new Point(3, 3), "FocusOn");
     }
 
     private ChainsawColumns() {
@@ -19,6 +19,7 @@
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.log4j.chainsaw.color.ColorRuleChangeEvent;
 import org.apache.log4j.chainsaw.color.RuleColorizer;
 import org.apache.log4j.chainsaw.helper.SwingHelper;
 import org.apache.log4j.helpers.Constants;
@@ -28,11 +29,18 @@
 import javax.swing.*;
 import javax.swing.event.EventListenerList;
 import javax.swing.table.AbstractTableModel;
+import java.io.File;
+import java.io.IOException;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 
 
@@ -55,21 +63,64 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
     //cyclic field used internally in this class, but not exposed via the eventcontainer
     private boolean cyclic = true;
     private final int cyclicBufferSize;
-    //original list of LoggingEventWrapper instances
-    private List unfilteredList;
-    //filtered list of LoggingEventWrapper instances
-    private List filteredList;
+    //original list of LoggingEventWrapper instances, which may also be held by other containers.
+    //Changed under the mutex, read by sequence number or cursor without it
+    private final CyclicBufferList<LoggingEventWrapper> unfilteredList;
+    //sequence numbers of the displayed events, in display order.  Changed under the mutex,
+    //the TableModel methods read the copy in publishedRows instead
+    private final SequenceList filteredList;
+    //incremented under the mutex by each change to filteredList
+    private long filteredVersion;
+    //the filteredVersion of the last change to filteredList which did more than append rows, guarded by the mutex
+    private long rewrittenVersion;
+    //the latest copy of filteredList, guarded by the mutex
+    private RowSnapshot latestRows = RowSnapshot.EMPTY;
+    //the copy of filteredList the table shows, only replaced on the EDT
+    private volatile RowSnapshot publishedRows = RowSnapshot.EMPTY;
+    //display state of the events in unfilteredList and spillStore, by sequence number
+    private final ViewStates viewStates;
+    //when set and not cyclic, events pushed out of unfilteredList are kept here rather than dropped
+    private volatile EventSpillStore spillStore;
+    //events read back from spillStore for display, by sequence number
+    private final Map<Long, LoggingEventWrapper> spilledWrappers = new LinkedHashMap<Long, LoggingEventWrapper>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, LoggingEventWrapper> eldest) {
+            return size() > SPILLED_WRAPPER_CACHE_SIZE;
+        }
+    };
+    private static final int SPILLED_WRAPPER_CACHE_SIZE = 1024;
     private boolean currentSortAscending;
     private int currentSortColumn;
     private final EventListenerList eventListenerList = new EventListenerList();
-    private final List<String> columnNames = new ArrayList<>(ChainsawColumns.getColumnsNames());
+    //new property columns are discovered on the ingest thread while the EDT reads the column names
+    private final List<String> columnNames = new CopyOnWriteArrayList<>(ChainsawColumns.getColumnsNames());
     private boolean sortEnabled = false;
-    private boolean reachedCapacity = false;
     private final Logger logger = LogManager.getLogger();
 
     //  protected final Object syncLock = new Object();
     private final LoggerNameModel loggerNameModelDelegate = new LoggerNameModelSupport();
     private final Object mutex = new Object();
+    //incremented by each refilter, so a running refilter can tell it has been superseded
+    private final AtomicLong refilterGeneration = new AtomicLong();
+    //the last refilter generation applied to filteredList, guarded by the mutex.  An incremental
+    //refilter is only correct on top of the one before it
+    private long completedGeneration;
+    //incremented by each recolor, so a running recolor can tell it has been superseded
+    private final AtomicLong recolorGeneration = new AtomicLong();
+    //the change with the lowest first changed rule among the recolors not completed yet, or null.
+    //Guarded by recolorGeneration
+    private ColorRuleChangeEvent pendingRecolor;
+    //sequence numbers of the events of each logger, guarded by the mutex.  Entries of events which
+    //have left the model are dropped when the logger's list is next added to or read
+    private final Map<String, SequenceList> loggerSequences = new HashMap<>();
+    //when set, the words of the events, so find rules are only evaluated against events which can match.
+    //Guarded by the mutex
+    private EventTokenIndex findIndex;
+    //the timestamps of the events in time order, guarded by the mutex
+    private final TimestampIndex timestampIndex = new TimestampIndex();
+    //number of events a single refilter task evaluates without splitting further
+    private static final int REFILTER_CHUNK_SIZE = 4096;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
 
     //because we may be using a cyclic buffer, if an ID is not provided in the property,
     //use and increment this row counter as the ID for each received row
@@ -86,8 +137,340 @@ public ChainsawCyclicBufferTableModel(int cyclicBufferSize, RuleColorizer colori
         this.colorizer = colorizer;
         this.tableModelName = tableModelName;
 
-        unfilteredList = new CyclicBufferList(cyclicBufferSize);
-        filteredList = new CyclicBufferList(cyclicBufferSize);
+        unfilteredList = new CyclicBufferList<>(cyclicBufferSize);
+        filteredList = new SequenceList(cyclicBufferSize);
+        viewStates = new ViewStates(Math.min(cyclicBufferSize, 1024));
+    }
+
+    /**
+     * Keeps the events which would otherwise be dropped in non-cyclic mode in segment files
+     * in a new directory below the directory, only the newest cyclicBufferSize events stay
+     * on the heap.  Must be called before events are added.
+     *
+     * @param directory parent of the directory holding the segment files
+     */
+    public void setSpillDirectory(File directory) {
+        File spillDirectory = new File(directory, tableModelName + "-" + Long.toHexString(System.nanoTime()));
+        synchronized (mutex) {
+            spillStore = new EventSpillStore(spillDirectory);
+            unfilteredList.setCyclic(true);
+        }
+        //spilled events are colored when read back, don't keep ones colored by the old rules
+        colorizer.addPropertyChangeListener("colorrule", evt -> clearSpilledWrappers());
+    }
+
+    /**
+     * Indexes the words of the events' message, logger and thread fields as they
+     * are added, so finding an event needs to evaluate the find rule only against the events
+     * holding its words.  Must be called before events are added.
+     */
+    public void enableFindIndex() {
+        synchronized (mutex) {
+            findIndex = new EventTokenIndex();
+        }
+    }
+
+    /**
+     * @return the sequence numbers of the events which can match the rule, ascending, or null
+     * if every event has to be evaluated
+     */
+    private long[] getFindCandidates(Rule rule) {
+        if (rule == null) {
+            return null;
+        }
+        synchronized (mutex) {
+            long[] wordCandidates = findIndex == null ? null : findIndex.getCandidates(rule, firstSequence());
+            long[] timeCandidates = getTimeCandidates(rule);
+            if (wordCandidates == null || timeCandidates == null) {
+                return wordCandidates == null ? timeCandidates : wordCandidates;
+            }
+            return EventTokenIndex.intersect(wordCandidates, timeCandidates);
+        }
+    }
+
+    /**
+     * Must hold the mutex.
+     *
+     * @return the sequence numbers of the events in the time range the rule is limited to,
+     * ascending, or null if every event has to be evaluated
+     */
+    private long[] getTimeCandidates(Rule rule) {
+        long[] range = TimestampIndex.getTimeRange(rule);
+        return range == null ? null : timestampIndex.getSequences(range[0], range[1], firstSequence());
+    }
+
+    private boolean isSpilling() {
+        return spillStore != null && !cyclic;
+    }
+
+    private void clearSpilledWrappers() {
+        synchronized (spilledWrappers) {
+            spilledWrappers.clear();
+        }
+    }
+
+    /**
+     * @return the sequence number of the oldest event held, on the heap or spilled
+     */
+    private long firstSequence() {
+        EventSpillStore store = spillStore;
+        if (store != null && store.size() > 0) {
+            return store.getFirstSequence();
+        }
+        return unfilteredList.getFirstSequence();
+    }
+
+    /**
+     * Safe to call without the mutex.  A spilled event is read back and kept for the rows
+     * displayed next, use {@link #readEvent(long)} when scanning many events.
+     *
+     * @return the event with the sequence number, or null if it is no longer held
+     */
+    private LoggingEventWrapper getEvent(long sequence) {
+        LoggingEventWrapper loggingEventWrapper = unfilteredList.getBySequence(sequence);
+        if (loggingEventWrapper != null || spillStore == null) {
+            return loggingEventWrapper;
+        }
+        synchronized (spilledWrappers) {
+            loggingEventWrapper = spilledWrappers.get(sequence);
+        }
+        if (loggingEventWrapper == null) {
+            loggingEventWrapper = readSpilledEvent(sequence);
+            if (loggingEventWrapper != null) {
+                synchronized (spilledWrappers) {
+                    spilledWrappers.put(sequence, loggingEventWrapper);
+                }
+            }
+        }
+        return loggingEventWrapper;
+    }
+
+    /**
+     * Like {@link #getEvent(long)}, but does not keep spilled events read back.
+     */
+    private LoggingEventWrapper readEvent(long sequence) {
+        LoggingEventWrapper loggingEventWrapper = unfilteredList.getBySequence(sequence);
+        if (loggingEventWrapper != null || spillStore == null) {
+            return loggingEventWrapper;
+        }
+        synchronized (spilledWrappers) {
+            loggingEventWrapper = spilledWrappers.get(sequence);
+        }
+        return loggingEventWrapper != null ? loggingEventWrapper : readSpilledEvent(sequence);
+    }
+
+    private LoggingEventWrapper readSpilledEvent(long sequence) {
+        EventSpillStore store = spillStore;
+        ChainsawLoggingEvent event = store == null ? null : store.get(sequence);
+        if (event == null) {
+            return null;
+        }
+        LoggingEventWrapper loggingEventWrapper = new SpilledEventWrapper(event, sequence, store);
+        //spilled events are read back repeatedly, keep their colors until the rules change
+        RuleColorizer.Colors colors = viewStates.getColors(sequence);
+        if (colors == null || !colorizer.isCurrent(colors)) {
+            colors = colorizer.getColors(event);
+            viewStates.setColors(sequence, colors);
+        }
+        loggingEventWrapper.updateColorRuleColors(colors);
+        Rule findRule = colorizer.getFindRule();
+        if (findRule != null) {
+            loggingEventWrapper.evaluateSearchRule(findRule);
+        }
+        return loggingEventWrapper;
+    }
+
+    /**
+     * A spilled event read back.  Property changes, such as markers, are also made in the spill
+     * store, so they are kept once this wrapper has been dropped from spilledWrappers.
+     */
+    private static final class SpilledEventWrapper extends LoggingEventWrapper {
+        private final long sequence;
+        private final EventSpillStore store;
+
+        private SpilledEventWrapper(ChainsawLoggingEvent event, long sequence, EventSpillStore store) {
+            super(event);
+            this.sequence = sequence;
+            this.store = store;
+        }
+
+        @Override
+        public void setProperty(String propName, String propValue) {
+            super.setProperty(propName, propValue);
+            store.setProperty(sequence, propName, propValue);
+        }
+
+        @Override
+        public Object removeProperty(String propName) {
+            Object value = super.removeProperty(propName);
+            store.setProperty(sequence, propName, null);
+            return value;
+        }
+
+        //read back more than once, so the same event has more than one wrapper
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SpilledEventWrapper && ((SpilledEventWrapper) o).sequence == sequence
+                && ((SpilledEventWrapper) o).store == store;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(sequence);
+        }
+    }
+
+    /**
+     * Pushes the oldest event out of unfilteredList into the spill store, if it is full.
+     * Must hold the mutex.
+     */
+    private void spillOldestEvent() {
+        if (unfilteredList.size() < unfilteredList.getMaxSize()) {
+            return;
+        }
+        long sequence = unfilteredList.getFirstSequence();
+        try {
+            spillStore.add(unfilteredList.getBySequence(sequence).getLoggingEvent(), sequence);
+        } catch (IOException e) {
+            stopSpilling(e);
+        }
+    }
+
+    /**
+     * Drops the spilled events and keeps only the newest events on the heap from now on, as
+     * in cyclic mode, since the next segment file would most likely fail as well.  Fires
+     * "spillToDisk" so the panel can tell the user.  Must hold the mutex.
+     */
+    private void stopSpilling(IOException e) {
+        EventSpillStore store = spillStore;
+        logger.error("Unable to spill events to " + store.getDirectory() + ", dropping the spilled events and no longer spilling", e);
+        spillStore = null;
+        store.clear();
+        clearSpilledWrappers();
+        //the rows of the spilled events are dropped as the next event is added
+        SwingHelper.invokeOnEDT(() -> propertySupport.firePropertyChange("spillToDisk", Boolean.TRUE, Boolean.FALSE));
+    }
+
+    /**
+     * An immutable copy of filteredList, which the EDT reads without the mutex.  Writers make
+     * a new one for each batch of changes, which is installed on the EDT together with the table
+     * events taking the table to it, so the rows the table reads always agree with the events
+     * it has been sent.
+     */
+    private static final class RowSnapshot {
+        private static final RowSnapshot EMPTY = new RowSnapshot(0, 0, new long[0]);
+
+        private final long version;
+        //the version of the last change which did more than append rows
+        private final long rewrittenVersion;
+        private final long[] sequences;
+        //true unless the rows have been sorted on a column, so rows can be found by binary search
+        private final boolean ascending;
+
+        private RowSnapshot(long version, long rewrittenVersion, long[] sequences) {
+            this.version = version;
+            this.rewrittenVersion = rewrittenVersion;
+            this.sequences = sequences;
+            boolean inOrder = true;
+            for (int i = 1; i < sequences.length && inOrder; i++) {
+                inOrder = sequences[i - 1] < sequences[i];
+            }
+            this.ascending = inOrder;
+        }
+
+        private long get(int row) {
+            return row < sequences.length && row > -1 ? sequences[row] : -1;
+        }
+    }
+
+    /**
+     * Copies filteredList, unless it is unchanged since the last copy.  Must hold the mutex.
+     *
+     * @return the copy, to be installed on the EDT with {@link #installRows(RowSnapshot)}
+     */
+    private RowSnapshot snapshotRows() {
+        if (latestRows.version != filteredVersion) {
+            latestRows = new RowSnapshot(filteredVersion, rewrittenVersion, filteredList.toArray());
+        }
+        return latestRows;
+    }
+
+    /**
+     * Records a change to filteredList other than appending rows.  Must hold the mutex.
+     */
+    private void filteredListRewritten() {
+        filteredVersion++;
+        rewrittenVersion = filteredVersion;
+    }
+
+    /**
+     * Makes the snapshot the rows the table shows, unless a newer one is already installed, and
+     * fires the table events taking the table from the rows it showed to the snapshot's.  Rows
+     * which were only appended are inserted, any other change updates the rows the table
+     * showed and inserts or removes the difference.  Must be called on the EDT.
+     */
+    private void installRows(RowSnapshot snapshot) {
+        RowSnapshot previous = publishedRows;
+        if (snapshot.version <= previous.version) {
+            //the events for it were fired when a newer snapshot was installed
+            return;
+        }
+        publishedRows = snapshot;
+        int previousSize = previous.sequences.length;
+        int newSize = snapshot.sequences.length;
+        if (snapshot.rewrittenVersion <= previous.version) {
+            if (newSize > previousSize) {
+                fireTableRowsInserted(previousSize, newSize - 1);
+            }
+        } else if (newSize == 0) {
+            //no rows to show
+            fireTableDataChanged();
+        } else if (previousSize == newSize) {
+            //same - update all
+            fireTableRowsUpdated(0, newSize - 1);
+        } else if (previousSize > newSize) {
+            //less now..update and delete difference
+            fireTableRowsUpdated(0, newSize - 1);
+//swing bug exposed by variable height rows when calling fireTableRowsDeleted..use tabledatacchanged
+            fireTableDataChanged();
+        } else {
+            //more now..update and insert difference
+            if (previousSize > 0) {
+                fireTableRowsUpdated(0, previousSize - 1);
+            }
+            fireTableRowsInserted(previousSize, newSize - 1);
+        }
+    }
+
+    @Override
+    public void publishRows() {
+        RowSnapshot snapshot;
+        synchronized (mutex) {
+            snapshot = snapshotRows();
+        }
+        installRows(snapshot);
+    }
+
+    /**
+     * @return the sequence numbers of the displayed events, in display order.  Not to be changed
+     */
+    private long[] getFilteredSequences() {
+        return publishedRows.sequences;
+    }
+
+    /**
+     * @return the displayed events, in display order
+     */
+    private List<LoggingEventWrapper> getFilteredCopy() {
+        long[] sequences = getFilteredSequences();
+        List<LoggingEventWrapper> copy = new ArrayList<>(sequences.length);
+        for (long sequence : sequences) {
+            LoggingEventWrapper loggingEventWrapper = readEvent(sequence);
+            if (loggingEventWrapper != null) {
+                copy.add(loggingEventWrapper);
+            }
+        }
+        return copy;
     }
 
     /* (non-Javadoc)
@@ -101,6 +484,8 @@ public void propertyChange(PropertyChangeEvent evt) {
                     //only refilter if find rule is required
                     reFilter();
                 }
+            } else if (evt instanceof LoggerVisibilityChangeEvent) {
+                reFilter((LoggerVisibilityChangeEvent) evt);
             } else {
                 reFilter();
             }
@@ -110,15 +495,11 @@ public void propertyChange(PropertyChangeEvent evt) {
     @Override
     public List<LoggingEventWrapper> getMatchingEvents(Rule rule) {
         List<LoggingEventWrapper> list = new ArrayList<>();
-        List unfilteredCopy;
-        synchronized (mutex) {
-            unfilteredCopy = new ArrayList(unfilteredList);
-        }
-
-        for (Object anUnfilteredCopy : unfilteredCopy) {
-            LoggingEventWrapper loggingEventWrapper = (LoggingEventWrapper) anUnfilteredCopy;
-
-            if (rule.evaluate(loggingEventWrapper.getLoggingEvent(), null)) {
+        //the events are read without the mutex
+        long end = unfilteredList.getNextSequence();
+        for (long sequence = firstSequence(); sequence < end; sequence++) {
+            LoggingEventWrapper loggingEventWrapper = readEvent(sequence);
+            if (loggingEventWrapper != null && rule.evaluate(loggingEventWrapper.getLoggingEvent(), null)) {
                 list.add(loggingEventWrapper);
             }
         }
@@ -126,96 +507,329 @@ public List<LoggingEventWrapper> getMatchingEvents(Rule rule) {
         return list;
     }
 
+    /**
+     * Refilters the model against the current rule without blocking the caller.
+     * <p>
+     * The rule is evaluated against a snapshot of the events in parallel, with no
+     * lock held, so events keep being added while it runs.  The filtered list is
+     * then rebuilt under the lock in one sequential pass.  A call made while an
+     * earlier refilter is still running cancels the earlier one.
+     */
     @Override
     public void reFilter() {
-        final int previousSize;
-        final int newSize;
+        final long generation = refilterGeneration.incrementAndGet();
+        //post refilter with newValue of TRUE (filtering is about to begin)
+        propertySupport.firePropertyChange("refilter", Boolean.FALSE, Boolean.TRUE);
+        ForkJoinPool.commonPool().execute(() -> reFilter(generation));
+    }
+
+    private boolean isRefilterCancelled(long generation) {
+        return refilterGeneration.get() != generation;
+    }
+
+    private void reFilter(final long generation) {
+        final long snapshotSequence;
+        final int snapshotSize;
+        final Rule rule;
+        final long[] candidates;
         synchronized (mutex) {
-            //post refilter with newValue of TRUE (filtering is about to begin)
-            propertySupport.firePropertyChange("refilter", Boolean.FALSE, Boolean.TRUE);
-            previousSize = filteredList.size();
+            if (isRefilterCancelled(generation)) {
+                return;
+            }
+            snapshotSequence = firstSequence();
+            snapshotSize = (int) (unfilteredList.getNextSequence() - snapshotSequence);
+            rule = ruleMediator;
+            //a rule limited to a time range can only display the events in it
+            candidates = rule == null ? null : getTimeCandidates(rule);
+        }
+
+        //the events are read by sequence number, without copying them.  The timestamps are
+        //kept so spilled events need not be read back again for the millis delta
+        boolean[] displayed = new boolean[snapshotSize];
+        long[] timestamps = new long[snapshotSize];
+        int evaluatedCount = candidates == null ? snapshotSize : candidates.length;
+        ForkJoinPool.commonPool().invoke(new RefilterTask(generation, rule, snapshotSequence, candidates, displayed, timestamps, 0, evaluatedCount));
+
+        final RowSnapshot snapshot;
+        synchronized (mutex) {
+            if (isRefilterCancelled(generation)) {
+                return;
+            }
+            completedGeneration = generation;
             filteredList.clear();
-            if (ruleMediator == null) {
-                LoggingEventWrapper lastEvent = null;
-                for (Object anUnfilteredList : unfilteredList) {
-                    LoggingEventWrapper loggingEventWrapper = (LoggingEventWrapper) anUnfilteredList;
-                    loggingEventWrapper.setDisplayed(true);
-                    updateEventMillisDelta(loggingEventWrapper, lastEvent);
-                    filteredList.add(loggingEventWrapper);
-                    lastEvent = loggingEventWrapper;
+            filteredListRewritten();
+            pruneLoggerSequences();
+            //events may have been dropped from the start of the buffer and added to the end since the snapshot
+            long end = unfilteredList.getNextSequence();
+            long lastTimestamp = NO_TIMESTAMP;
+            for (long sequence = firstSequence(); sequence < end; sequence++) {
+                boolean display;
+                long timestamp;
+                long index = sequence - snapshotSequence;
+                if (index < snapshotSize) {
+                    display = displayed[(int) index];
+                    timestamp = timestamps[(int) index];
+                    viewStates.setDisplayed(sequence, display);
+                } else {
+                    //added after the snapshot was taken, so on the heap and already evaluated against the current rule
+                    display = viewStates.isDisplayed(sequence);
+                    timestamp = display ? getTimestamp(getEvent(sequence)) : NO_TIMESTAMP;
                 }
-            } else {
-                Iterator iter = unfilteredList.iterator();
-                LoggingEventWrapper lastEvent = null;
-                while (iter.hasNext()) {
-                    LoggingEventWrapper loggingEventWrapper = (LoggingEventWrapper) iter.next();
-
-                    if (ruleMediator.evaluate(loggingEventWrapper.getLoggingEvent(), null)) {
-                        loggingEventWrapper.setDisplayed(true);
-                        filteredList.add(loggingEventWrapper);
-                        updateEventMillisDelta(loggingEventWrapper, lastEvent);
-                        lastEvent = loggingEventWrapper;
-                    } else {
-                        loggingEventWrapper.setDisplayed(false);
-                    }
+                if (display) {
+                    updateEventMillisDelta(sequence, timestamp, lastTimestamp);
+                    filteredList.add(sequence);
+                    lastTimestamp = timestamp;
                 }
             }
-            newSize = filteredList.size();
+            snapshot = snapshotRows();
         }
+        fireRefiltered(snapshot);
+    }
+
+    /**
+     * Installs the rows of a completed refilter and fires the table events for them on the EDT.
+     */
+    private void fireRefiltered(RowSnapshot snapshot) {
         SwingHelper.invokeOnEDT(() -> {
-            if (newSize > 0) {
-                if (previousSize == newSize) {
-                    //same - update all
-                    fireTableRowsUpdated(0, newSize - 1);
-                } else if (previousSize > newSize) {
-                    //less now..update and delete difference
-                    fireTableRowsUpdated(0, newSize - 1);
-//swing bug exposed by variable height rows when calling fireTableRowsDeleted..use tabledatacchanged
-                    fireTableDataChanged();
-                } else if (previousSize < newSize) {
-                    //more now..update and insert difference
-                    if (previousSize > 0) {
-                        fireTableRowsUpdated(0, previousSize - 1);
-                    }
-                    fireTableRowsInserted(Math.max(0, previousSize), newSize - 1);
-                }
-            } else {
-                //no rows to show
-                fireTableDataChanged();
-            }
+            installRows(snapshot);
             notifyCountListeners();
 //post refilter with newValue of FALSE (filtering is complete)
             SwingHelper.invokeOnEDT(() -> propertySupport.firePropertyChange("refilter", Boolean.TRUE, Boolean.FALSE));
         });
     }
 
+    /**
+     * Refilters only the events of the loggers affected by hiding or showing a logger, found
+     * through their sequence lists, and splices the rows which change in or out of filteredList.
+     * Falls back to a full refilter while the rows are sorted, or if an earlier refilter has
+     * not been applied, as the change is relative to the rows it produced.
+     */
+    private void reFilter(final LoggerVisibilityChangeEvent change) {
+        final long generation = refilterGeneration.incrementAndGet();
+        boolean incremental;
+        synchronized (mutex) {
+            incremental = !sortEnabled && completedGeneration == generation - 1;
+        }
+        if (!incremental) {
+            //the generation taken above is superseded straight away
+            reFilter();
+            return;
+        }
+        propertySupport.firePropertyChange("refilter", Boolean.FALSE, Boolean.TRUE);
+        ForkJoinPool.commonPool().execute(() -> reFilter(generation, change));
+    }
+
+    private void reFilter(final long generation, final LoggerVisibilityChangeEvent change) {
+        final long[] candidates;
+        final Rule rule;
+        synchronized (mutex) {
+            if (isRefilterCancelled(generation)) {
+                return;
+            }
+            candidates = getLoggerSequences(change);
+            rule = ruleMediator;
+        }
+
+        //evaluated without the mutex, events added meanwhile are evaluated against the changed rule on ingest
+        boolean[] displayed = new boolean[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            if ((i & (REFILTER_CHUNK_SIZE - 1)) == 0 && isRefilterCancelled(generation)) {
+                return;
+            }
+            LoggingEventWrapper loggingEventWrapper = readEvent(candidates[i]);
+            displayed[i] = loggingEventWrapper != null &&
+                (rule == null || rule.evaluate(loggingEventWrapper.getLoggingEvent(), null));
+        }
+
+        final RowSnapshot snapshot;
+        synchronized (mutex) {
+            if (isRefilterCancelled(generation)) {
+                return;
+            }
+            completedGeneration = generation;
+            long first = firstSequence();
+            long[] shown = new long[candidates.length];
+            int shownCount = 0;
+            boolean hidden = false;
+            for (int i = 0; i < candidates.length; i++) {
+                long sequence = candidates[i];
+                if (sequence < first || viewStates.isDisplayed(sequence) == displayed[i]) {
+                    continue;
+                }
+                viewStates.setDisplayed(sequence, displayed[i]);
+                if (displayed[i]) {
+                    shown[shownCount++] = sequence;
+                } else {
+                    hidden = true;
+                }
+            }
+            if (shownCount > 0 || hidden) {
+                spliceFilteredList(shown, shownCount);
+            }
+            snapshot = snapshotRows();
+        }
+        fireRefiltered(snapshot);
+    }
+
+    /**
+     * Must hold the mutex.
+     *
+     * @return the sequence numbers of the events held whose logger is affected by the change, ascending
+     */
+    private long[] getLoggerSequences(LoggerVisibilityChangeEvent change) {
+        long first = firstSequence();
+        List<long[]> lists = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, SequenceList> entry : loggerSequences.entrySet()) {
+            if (change.affects(entry.getKey())) {
+                entry.getValue().removeBefore(first);
+                long[] sequences = entry.getValue().toArray();
+                lists.add(sequences);
+                total += sequences.length;
+            }
+        }
+        long[] merged = new long[total];
+        int count = 0;
+        for (long[] sequences : lists) {
+            System.arraycopy(sequences, 0, merged, count, sequences.length);
+            count += sequences.length;
+        }
+        //each list is ascending, but a change can affect several loggers
+        if (lists.size() > 1) {
+            Arrays.sort(merged);
+        }
+        return merged;
+    }
+
+    /**
+     * Rebuilds filteredList, in sequence order, without the rows no longer displayed and with
+     * the newly displayed ones, then updates the millis delta of the rows whose previous row changed.
+     * Must hold the mutex.
+     *
+     * @param shown newly displayed sequence numbers, ascending, in the first shownCount entries
+     */
+    private void spliceFilteredList(long[] shown, int shownCount) {
+        long[] rows = filteredList.toArray();
+        filteredList.clear();
+        filteredListRewritten();
+        long previous = -1;
+        boolean previousChanged = false;
+        int row = 0;
+        int shownIndex = 0;
+        while (row < rows.length || shownIndex < shownCount) {
+            boolean isShown = row == rows.length || (shownIndex < shownCount && shown[shownIndex] < rows[row]);
+            long sequence = isShown ? shown[shownIndex++] : rows[row++];
+            if (!isShown && !viewStates.isDisplayed(sequence)) {
+                previousChanged = true;
+                continue;
+            }
+            if (isShown || previousChanged) {
+                updateEventMillisDelta(sequence, readEvent(sequence), previous < 0 ? null : readEvent(previous));
+            }
+            filteredList.add(sequence);
+            previous = sequence;
+            previousChanged = isShown;
+        }
+    }
+
+    /**
+     * Drops the entries of events which have left the model from the logger sequence lists, and
+     * the lists left empty.  Must hold the mutex.
+     */
+    private void pruneLoggerSequences() {
+        long first = firstSequence();
+        loggerSequences.values().removeIf(sequences -> {
+            sequences.removeBefore(first);
+            return sequences.size() == 0;
+        });
+    }
+
+    /**
+     * Evaluates the rule, if there is one, against a range of events and reads their
+     * timestamps, splitting the range across the pool until it is small enough.  Stops
+     * early once the refilter it belongs to has been superseded.  The range is of the
+     * candidates if there are any, of the events from firstSequence on if not.
+     */
+    private class RefilterTask extends RecursiveAction {
+        private final long generation;
+        private final Rule rule;
+        private final long firstSequence;
+        private final long[] candidates;
+        private final boolean[] displayed;
+        private final long[] timestamps;
+        private final int start;
+        private final int end;
+
+        RefilterTask(long generation, Rule rule, long firstSequence, long[] candidates, boolean[] displayed, long[] timestamps, int start, int end) {
+            this.generation = generation;
+            this.rule = rule;
+            this.firstSequence = firstSequence;
+            this.candidates = candidates;
+            this.displayed = displayed;
+            this.timestamps = timestamps;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > REFILTER_CHUNK_SIZE) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RefilterTask(generation, rule, firstSequence, candidates, displayed, timestamps, start, middle),
+                    new RefilterTask(generation, rule, firstSequence, candidates, displayed, timestamps, middle, end));
+                return;
+            }
+            if (isRefilterCancelled(generation)) {
+                return;
+            }
+            for (int i = start; i < end; i++) {
+                long sequence = candidates == null ? firstSequence + i : candidates[i];
+                int index = (int) (sequence - firstSequence);
+                //events which have left the buffer since the snapshot are not displayed
+                LoggingEventWrapper loggingEventWrapper = readEvent(sequence);
+                displayed[index] = loggingEventWrapper != null &&
+                    (rule == null || rule.evaluate(loggingEventWrapper.getLoggingEvent(), null));
+                timestamps[index] = getTimestamp(loggingEventWrapper);
+            }
+        }
+    }
+
+    private boolean matches(Rule rule, long sequence) {
+        LoggingEventWrapper loggingEventWrapper = readEvent(sequence);
+        return loggingEventWrapper != null && rule.evaluate(loggingEventWrapper.getLoggingEvent(), null);
+    }
+
     @Override
     public int locate(Rule rule, int startLocation, boolean searchForward) {
-        List filteredListCopy;
-        synchronized (mutex) {
-            filteredListCopy = new ArrayList(filteredList);
+        RowSnapshot snapshot = publishedRows;
+        long[] rows = snapshot.sequences;
+        long[] candidates = getFindCandidates(rule);
+        if (candidates != null && snapshot.ascending) {
+            return locateCandidate(rule, rows, candidates, startLocation, searchForward);
         }
+        LongPredicate matches = candidates == null ? sequence -> matches(rule, sequence) :
+            sequence -> Arrays.binarySearch(candidates, sequence) >= 0 && matches(rule, sequence);
         if (searchForward) {
-            for (int i = startLocation; i < filteredListCopy.size(); i++) {
-                if (rule.evaluate(((LoggingEventWrapper) filteredListCopy.get(i)).getLoggingEvent(), null)) {
+            for (int i = startLocation; i < rows.length; i++) {
+                if (matches.test(rows[i])) {
                     return i;
                 }
             }
             //if there was no match, start at row zero and go to startLocation
-            for (int i = 0; i < startLocation; i++) {
-                if (rule.evaluate(((LoggingEventWrapper) filteredListCopy.get(i)).getLoggingEvent(), null)) {
+            for (int i = 0; i < Math.min(startLocation, rows.length); i++) {
+                if (matches.test(rows[i])) {
                     return i;
                 }
             }
         } else {
-            for (int i = startLocation; i > -1; i--) {
-                if (rule.evaluate(((LoggingEventWrapper) filteredListCopy.get(i)).getLoggingEvent(), null)) {
+            for (int i = Math.min(startLocation, rows.length - 1); i > -1; i--) {
+                if (matches.test(rows[i])) {
                     return i;
                 }
             }
             //if there was no match, start at row list.size() - 1 and go to startLocation
-            for (int i = filteredListCopy.size() - 1; i > startLocation; i--) {
-                if (rule.evaluate(((LoggingEventWrapper) filteredListCopy.get(i)).getLoggingEvent(), null)) {
+            for (int i = rows.length - 1; i > startLocation; i--) {
+                if (matches.test(rows[i])) {
                     return i;
                 }
             }
@@ -224,6 +838,47 @@ public int locate(Rule rule, int startLocation, boolean searchForward) {
         return -1;
     }
 
+    /**
+     * Walks the candidates instead of the rows, in the same order locate walks the rows,
+     * finding the row of each by binary search.
+     *
+     * @param rows       the displayed sequence numbers, ascending
+     * @param candidates the events which can match the rule, ascending
+     */
+    private int locateCandidate(Rule rule, long[] rows, long[] candidates, int startLocation, boolean searchForward) {
+        if (rows.length == 0 || candidates.length == 0) {
+            return -1;
+        }
+        int start;
+        int first;
+        if (searchForward) {
+            start = startLocation < rows.length ? Math.max(startLocation, 0) : 0;
+            //the first candidate at or after the start row
+            first = insertionPoint(candidates, rows[start]);
+        } else {
+            start = startLocation > -1 ? Math.min(startLocation, rows.length - 1) : rows.length - 1;
+            //the last candidate at or before the start row
+            first = insertionPoint(candidates, rows[start] + 1) - 1;
+        }
+        int count = candidates.length;
+        for (int i = 0; i < count; i++) {
+            int index = searchForward ? (first + i) % count : Math.floorMod(first - i, count);
+            int row = Arrays.binarySearch(rows, candidates[index]);
+            if (row > -1 && matches(rule, candidates[index])) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the first entry of the ascending array which is not lower than the value
+     */
+    private static int insertionPoint(long[] sequences, long value) {
+        int index = Arrays.binarySearch(sequences, value);
+        return index < 0 ? -index - 1 : index;
+    }
+
     /**
      * @param l
      */
@@ -283,12 +938,8 @@ public boolean isSortable(int col) {
     public void notifyCountListeners() {
         EventCountListener[] listeners = eventListenerList.getListeners(EventCountListener.class);
 
-        int filteredListSize;
-        int unfilteredListSize;
-        synchronized (mutex) {
-            filteredListSize = filteredList.size();
-            unfilteredListSize = unfilteredList.size();
-        }
+        int filteredListSize = publishedRows.sequences.length;
+        int unfilteredListSize = unfilteredList.size();
         for (EventCountListener listener : listeners) {
             listener.eventCountChanged(
                 filteredListSize, unfilteredListSize);
@@ -322,26 +973,39 @@ public void setRuleMediator(RuleMediator ruleMediator) {
     @Override
     public void sort() {
         boolean sort;
-        final int filteredListSize;
+        final RowSnapshot snapshot;
         synchronized (mutex) {
-            filteredListSize = filteredList.size();
-            sort = (sortEnabled && filteredListSize > 0);
+            sort = (sortEnabled && filteredList.size() > 0);
             if (sort) {
                 //reset display (used to ensure row height is updated)
+                final long[] sequences = filteredList.toArray();
+                final LoggingEventWrapper[] events = new LoggingEventWrapper[sequences.length];
                 LoggingEventWrapper lastEvent = null;
-                for (Object aFilteredList : filteredList) {
-                    LoggingEventWrapper e = (LoggingEventWrapper) aFilteredList;
-                    e.setDisplayed(true);
-                    updateEventMillisDelta(e, lastEvent);
+                for (int i = 0; i < sequences.length; i++) {
+                    LoggingEventWrapper e = readEvent(sequences[i]);
+                    events[i] = e;
+                    viewStates.setDisplayed(sequences[i], true);
+                    updateEventMillisDelta(sequences[i], e, lastEvent);
                     lastEvent = e;
                 }
-                filteredList.sort(new ColumnComparator(
+                Integer[] order = new Integer[sequences.length];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = i;
+                }
+                ColumnComparator comparator = new ColumnComparator(
                     getColumnName(currentSortColumn), currentSortColumn,
-                    currentSortAscending));
+                    currentSortAscending);
+                Arrays.sort(order, (o1, o2) -> comparator.compare(events[o1], events[o2]));
+                filteredList.clear();
+                for (Integer index : order) {
+                    filteredList.add(sequences[index]);
+                }
+                filteredListRewritten();
             }
+            snapshot = sort ? snapshotRows() : null;
         }
         if (sort) {
-            SwingHelper.invokeOnEDT(() -> fireTableRowsUpdated(0, Math.max(filteredListSize - 1, 0)));
+            SwingHelper.invokeOnEDT(() -> installRows(snapshot));
         }
     }
 
@@ -364,118 +1028,182 @@ public void sortColumn(int col, boolean ascending) {
      */
     @Override
     public void clearModel() {
-        reachedCapacity = false;
-
+        final RowSnapshot snapshot;
         synchronized (mutex) {
+            //nothing left for a running refilter to do
+            refilterGeneration.incrementAndGet();
+            completedGeneration = refilterGeneration.get();
             unfilteredList.clear();
             filteredList.clear();
+            filteredListRewritten();
+            loggerSequences.clear();
+            if (findIndex != null) {
+                findIndex.clear();
+            }
+            timestampIndex.clear();
+            if (spillStore != null) {
+                spillStore.clear();
+            }
             uniqueRow = 0;
+            snapshot = snapshotRows();
         }
+        clearSpilledWrappers();
 
-        SwingHelper.invokeOnEDT(this::fireTableDataChanged);
+        SwingHelper.invokeOnEDT(() -> {
+            installRows(snapshot);
+            notifyCountListeners();
+        });
 
-        notifyCountListeners();
         loggerNameModelDelegate.reset();
     }
 
     @Override
     public List getAllEvents() {
-        synchronized (mutex) {
-            return new ArrayList(unfilteredList);
+        if (spillStore == null) {
+            //copied through the list's cursor, without the mutex
+            return new ArrayList<>(unfilteredList);
         }
+        List<LoggingEventWrapper> events = new ArrayList<>(size());
+        long end = unfilteredList.getNextSequence();
+        for (long sequence = firstSequence(); sequence < end; sequence++) {
+            LoggingEventWrapper loggingEventWrapper = readEvent(sequence);
+            if (loggingEventWrapper != null) {
+                events.add(loggingEventWrapper);
+            }
+        }
+        return events;
     }
 
     @Override
     public List getFilteredEvents() {
+        return getFilteredCopy();
+    }
 
-        synchronized (mutex) {
-            return new ArrayList(filteredList);
+    @Override
+    public int getRowIndex(LoggingEventWrapper loggingEventWrapper) {
+        long[] rows = getFilteredSequences();
+        for (int i = 0; i < rows.length; i++) {
+            if (loggingEventWrapper.equals(readEvent(rows[i]))) {
+                return i;
+            }
         }
+        return -1;
     }
 
+    /**
+     * Looks the time up in the timestamp index rather than scanning the rows.
+     */
     @Override
-    public int getRowIndex(LoggingEventWrapper loggingEventWrapper) {
+    public int getRowAtTime(long timestamp) {
+        RowSnapshot snapshot = publishedRows;
+        long[] rows = snapshot.sequences;
+        long sequence;
         synchronized (mutex) {
-            return filteredList.indexOf(loggingEventWrapper);
+            sequence = timestampIndex.find(timestamp, firstSequence(), snapshot.ascending ?
+                candidate -> Arrays.binarySearch(rows, candidate) > -1 : viewStates::isDisplayed);
+        }
+        if (sequence < 0) {
+            return -1;
         }
+        if (snapshot.ascending) {
+            return Arrays.binarySearch(rows, sequence);
+        }
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == sequence) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     @Override
     public void removePropertyFromEvents(String propName) {
         //first remove the event from any displayed events, so we can fire row updated event
-        List filteredListCopy;
-        List unfilteredListCopy;
-        synchronized (mutex) {
-            filteredListCopy = new ArrayList(filteredList);
-            unfilteredListCopy = new ArrayList(unfilteredList);
-        }
-        for (int i = 0; i < filteredListCopy.size(); i++) {
-            LoggingEventWrapper loggingEventWrapper = (LoggingEventWrapper) filteredListCopy.get(i);
-            Object result = loggingEventWrapper.removeProperty(propName);
-            if (result != null) {
+        long[] rows = getFilteredSequences();
+        for (int i = 0; i < rows.length; i++) {
+            LoggingEventWrapper loggingEventWrapper = unfilteredList.getBySequence(rows[i]);
+            if (loggingEventWrapper != null && loggingEventWrapper.removeProperty(propName) != null) {
                 fireRowUpdated(i, false);
             }
         }
         //now remove the event from all events
-        for (Object anUnfilteredListCopy : unfilteredListCopy) {
-            LoggingEventWrapper loggingEventWrapper = (LoggingEventWrapper) anUnfilteredListCopy;
+        for (LoggingEventWrapper loggingEventWrapper : unfilteredList) {
             loggingEventWrapper.removeProperty(propName);
         }
+        //spilled events are not read back for this, the store removes the property as they are,
+        //and they are recolored then.  Done after the heap, so an event spilled meanwhile is
+        //covered by one or the other
+        EventSpillStore store = spillStore;
+        if (store != null && store.removeProperty(propName)) {
+            for (long sequence = store.getFirstSequence(); sequence < store.getNextSequence(); sequence++) {
+                viewStates.setColors(sequence, null);
+            }
+            clearSpilledWrappers();
+            int rowCount = getRowCount();
+            if (rowCount > 0) {
+                fireTableRowsUpdated(0, rowCount - 1);
+            }
+        }
     }
 
     @Override
     public int updateEventsWithFindRule(Rule findRule) {
-        int count = 0;
-        List unfilteredListCopy;
-        synchronized (mutex) {
-            unfilteredListCopy = new ArrayList(unfilteredList);
-        }
-        for (Object anUnfilteredListCopy : unfilteredListCopy) {
-            LoggingEventWrapper loggingEventWrapper = (LoggingEventWrapper) anUnfilteredListCopy;
-            loggingEventWrapper.evaluateSearchRule(findRule);
-            //return the count of visible search matches
-            if (loggingEventWrapper.isSearchMatch() && loggingEventWrapper.isDisplayed()) {
-                count++;
+        long[] candidates = getFindCandidates(findRule);
+        if (candidates == null) {
+            for (LoggingEventWrapper loggingEventWrapper : unfilteredList) {
+                loggingEventWrapper.evaluateSearchRule(findRule);
+            }
+        } else {
+            //only the candidates can match, the others are reset without evaluating the rule
+            CyclicBufferList<LoggingEventWrapper>.Cursor cursor = unfilteredList.cursor();
+            int candidate = 0;
+            while (cursor.hasNext()) {
+                LoggingEventWrapper loggingEventWrapper = cursor.next();
+                long sequence = cursor.getSequence();
+                while (candidate < candidates.length && candidates[candidate] < sequence) {
+                    candidate++;
+                }
+                boolean isCandidate = candidate < candidates.length && candidates[candidate] == sequence;
+                loggingEventWrapper.evaluateSearchRule(isCandidate ? findRule : null);
             }
         }
-        return count;
+        //spilled events are evaluated against the find rule when read back
+        clearSpilledWrappers();
+        //return the count of visible search matches
+        return getSearchMatchCount(candidates);
+    }
+
+    private boolean isColored(long sequence) {
+        LoggingEventWrapper event = readEvent(sequence);
+        return event != null &&
+            (!event.getColorRuleBackground().equals(ChainsawConstants.COLOR_DEFAULT_BACKGROUND) ||
+            !event.getColorRuleForeground().equals(ChainsawConstants.COLOR_DEFAULT_FOREGROUND));
     }
 
     @Override
     public int findColoredRow(int startLocation, boolean searchForward) {
-        List filteredListCopy;
-        synchronized (mutex) {
-            filteredListCopy = new ArrayList(filteredList);
-        }
+        long[] rows = getFilteredSequences();
         if (searchForward) {
-            for (int i = startLocation; i < filteredListCopy.size(); i++) {
-                LoggingEventWrapper event = (LoggingEventWrapper) filteredListCopy.get(i);
-                if (!event.getColorRuleBackground().equals(ChainsawConstants.COLOR_DEFAULT_BACKGROUND) ||
-                    !event.getColorRuleForeground().equals(ChainsawConstants.COLOR_DEFAULT_FOREGROUND)) {
+            for (int i = startLocation; i < rows.length; i++) {
+                if (isColored(rows[i])) {
                     return i;
                 }
             }
             //searching forward, no colorized event was found - now start at row zero and go to startLocation
-            for (int i = 0; i < startLocation; i++) {
-                LoggingEventWrapper event = (LoggingEventWrapper) filteredListCopy.get(i);
-                if (!event.getColorRuleBackground().equals(ChainsawConstants.COLOR_DEFAULT_BACKGROUND) ||
-                    !event.getColorRuleForeground().equals(ChainsawConstants.COLOR_DEFAULT_FOREGROUND)) {
+            for (int i = 0; i < Math.min(startLocation, rows.length); i++) {
+                if (isColored(rows[i])) {
                     return i;
                 }
             }
         } else {
-            for (int i = startLocation; i > -1; i--) {
-                LoggingEventWrapper event = (LoggingEventWrapper) filteredListCopy.get(i);
-                if (!event.getColorRuleBackground().equals(ChainsawConstants.COLOR_DEFAULT_BACKGROUND) ||
-                    !event.getColorRuleForeground().equals(ChainsawConstants.COLOR_DEFAULT_FOREGROUND)) {
+            for (int i = Math.min(startLocation, rows.length - 1); i > -1; i--) {
+                if (isColored(rows[i])) {
                     return i;
                 }
             }
             //searching backward, no colorized event was found - now start at list.size() - 1 and go to startLocation
-            for (int i = filteredListCopy.size() - 1; i > startLocation; i--) {
-                LoggingEventWrapper event = (LoggingEventWrapper) filteredListCopy.get(i);
-                if (!event.getColorRuleBackground().equals(ChainsawConstants.COLOR_DEFAULT_BACKGROUND) ||
-                    !event.getColorRuleForeground().equals(ChainsawConstants.COLOR_DEFAULT_FOREGROUND)) {
+            for (int i = rows.length - 1; i > startLocation; i--) {
+                if (isColored(rows[i])) {
                     return i;
                 }
             }
@@ -486,14 +1214,32 @@ public int findColoredRow(int startLocation, boolean searchForward) {
 
     @Override
     public int getSearchMatchCount() {
-        int searchMatchCount = 0;
-        synchronized (mutex) {
-            for (Object aFilteredList : filteredList) {
-                LoggingEventWrapper wrapper = (LoggingEventWrapper) aFilteredList;
-                if (wrapper.isSearchMatch() && wrapper.isDisplayed()) {
-                    searchMatchCount++;
+        return getSearchMatchCount(null);
+    }
+
+    /**
+     * @param candidates the only events which can be search matches, ascending, or null
+     */
+    private int getSearchMatchCount(long[] candidates) {
+        RowSnapshot snapshot = publishedRows;
+        if (candidates != null && snapshot.ascending) {
+            int searchMatchCount = 0;
+            for (long candidate : candidates) {
+                if (Arrays.binarySearch(snapshot.sequences, candidate) > -1) {
+                    LoggingEventWrapper wrapper = readEvent(candidate);
+                    if (wrapper != null && wrapper.isSearchMatch()) {
+                        searchMatchCount++;
+                    }
                 }
             }
+            return searchMatchCount;
+        }
+        int searchMatchCount = 0;
+        for (long sequence : snapshot.sequences) {
+            LoggingEventWrapper wrapper = readEvent(sequence);
+            if (wrapper != null && wrapper.isSearchMatch()) {
+                searchMatchCount++;
+            }
         }
         return searchMatchCount;
     }
@@ -510,35 +1256,58 @@ public String getColumnName(int column) {
 
     @Override
     public LoggingEventWrapper getRow(int row) {
-        synchronized (mutex) {
-            if (row < filteredList.size() && row > -1) {
-                return (LoggingEventWrapper) filteredList.get(row);
-            }
-        }
+        long sequence = publishedRows.get(row);
+        return sequence < 0 ? null : getEvent(sequence);
+    }
 
-        return null;
+    @Override
+    public long getMillisDelta(int row) {
+        long sequence = publishedRows.get(row);
+        return sequence < 0 ? 0 : viewStates.getMillisDelta(sequence);
     }
 
     @Override
-    public int getRowCount() {
-        synchronized (mutex) {
-            return filteredList.size();
+    public int getMarkerHeight(int row) {
+        long sequence = publishedRows.get(row);
+        return sequence < 0 ? -1 : viewStates.getMarkerHeight(sequence);
+    }
+
+    @Override
+    public void setMarkerHeight(int row, int markerHeight) {
+        long sequence = publishedRows.get(row);
+        if (sequence >= 0) {
+            viewStates.setMarkerHeight(sequence, markerHeight);
         }
     }
 
     @Override
-    public Object getValueAt(int rowIndex, int columnIndex) {
-        ChainsawLoggingEvent event = null;
+    public int getMsgHeight(int row) {
+        long sequence = publishedRows.get(row);
+        return sequence < 0 ? -1 : viewStates.getMsgHeight(sequence);
+    }
 
-        synchronized (mutex) {
-            if (rowIndex < filteredList.size() && rowIndex > -1) {
-                event = ((LoggingEventWrapper) filteredList.get(rowIndex)).getLoggingEvent();
-            }
+    @Override
+    public void setMsgHeight(int row, int msgHeight) {
+        long sequence = publishedRows.get(row);
+        if (sequence >= 0) {
+            viewStates.setMsgHeight(sequence, msgHeight);
         }
+    }
 
-        if (event == null) {
+    @Override
+    public int getRowCount() {
+        return publishedRows.sequences.length;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        long sequence = publishedRows.get(rowIndex);
+        LoggingEventWrapper loggingEventWrapper = sequence < 0 ? null : getEvent(sequence);
+        if (loggingEventWrapper == null) {
             return null;
         }
+        ChainsawLoggingEvent event = loggingEventWrapper.getLoggingEvent();
+        long millisDelta = viewStates.getMillisDelta(sequence);
 
         LocationInfo info = event.m_locationInfo;
 
@@ -560,7 +1329,7 @@ public Object getValueAt(int rowIndex, int columnIndex) {
                 return event.getProperty(ChainsawConstants.LOG4J_MARKER_COL_NAME_LOWERCASE);
 
             case ChainsawColumns.INDEX_MILLIS_DELTA_COL_NAME:
-                return event.getProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE);
+                return String.valueOf(millisDelta);
 
             case ChainsawColumns.INDEX_LOGGER_COL_NAME:
                 return event.m_logger;
@@ -624,10 +1393,15 @@ public boolean isAddRow(LoggingEventWrapper loggingEventWrapper) {
             loggingEventWrapper.setProperty(Constants.LOG4J_ID_KEY, id.toString());
         }
 
-        loggingEventWrapper.updateColorRuleColors(colorizer.getBackgroundColor(loggingEventWrapper.getLoggingEvent()), colorizer.getForegroundColor(loggingEventWrapper.getLoggingEvent()));
-        Rule findRule = colorizer.getFindRule();
-        if (findRule != null) {
-            loggingEventWrapper.evaluateSearchRule(colorizer.getFindRule());
+        //a wrapper added to another container of the tab first has already been evaluated against the same colorizer
+        RuleColorizer.Colors colors = null;
+        if (!loggingEventWrapper.isColorized()) {
+            colors = colorizer.getColors(loggingEventWrapper.getLoggingEvent());
+            loggingEventWrapper.updateColorRuleColors(colors);
+            Rule findRule = colorizer.getFindRule();
+            if (findRule != null) {
+                loggingEventWrapper.evaluateSearchRule(colorizer.getFindRule());
+            }
         }
 
         boolean rowAdded = false;
@@ -639,25 +1413,37 @@ public boolean isAddRow(LoggingEventWrapper loggingEventWrapper) {
          * memory...)
          */
         synchronized (mutex) {
-            if (cyclic) {
-                CyclicBufferList bufferList = (CyclicBufferList) unfilteredList;
-                if (bufferList.size() == bufferList.getMaxSize()) {
-                    reachedCapacity = true;
-                }
-            }
-            int unfilteredSize = unfilteredList.size();
-            LoggingEventWrapper lastLoggingEventWrapper = null;
-            if (unfilteredSize > 0) {
-                lastLoggingEventWrapper = (LoggingEventWrapper) unfilteredList.get(unfilteredSize - 1);
+            long sequence = unfilteredList.getNextSequence();
+            LoggingEventWrapper lastLoggingEventWrapper = getEvent(sequence - 1);
+            if (isSpilling()) {
+                spillOldestEvent();
             }
             unfilteredList.add(loggingEventWrapper);
+            viewStates.add(sequence, firstSequence());
+            viewStates.setColors(sequence, colors);
+            addLoggerSequence(loggingEventWrapper.getLoggingEvent().m_logger, sequence);
+            if (findIndex != null) {
+                findIndex.add(loggingEventWrapper.getLoggingEvent(), sequence, firstSequence());
+            }
+            long timestamp = getTimestamp(loggingEventWrapper);
+            if (timestamp != NO_TIMESTAMP) {
+                timestampIndex.add(timestamp, sequence, firstSequence());
+            }
+            //the rows of events which have just left the buffer
+            int filteredSize = filteredList.size();
+            filteredList.removeBefore(firstSequence());
+            boolean rowsRemoved = filteredList.size() != filteredSize;
             if ((ruleMediator == null) || (ruleMediator.evaluate(loggingEventWrapper.getLoggingEvent(), null))) {
-                loggingEventWrapper.setDisplayed(true);
-                updateEventMillisDelta(loggingEventWrapper, lastLoggingEventWrapper);
-                filteredList.add(loggingEventWrapper);
+                viewStates.setDisplayed(sequence, true);
+                updateEventMillisDelta(sequence, loggingEventWrapper, lastLoggingEventWrapper);
+                filteredList.add(sequence);
                 rowAdded = true;
-            } else {
-                loggingEventWrapper.setDisplayed(false);
+            }
+            //shown once the batch is published
+            if (rowsRemoved) {
+                filteredListRewritten();
+            } else if (rowAdded) {
+                filteredVersion++;
             }
         }
 
@@ -666,15 +1452,50 @@ public boolean isAddRow(LoggingEventWrapper loggingEventWrapper) {
         return rowAdded;
     }
 
-    private void updateEventMillisDelta(LoggingEventWrapper loggingEventWrapper, LoggingEventWrapper lastLoggingEventWrapper) {
-        if (lastLoggingEventWrapper != null) {
-            loggingEventWrapper.setPreviousDisplayedEventTimestamp(lastLoggingEventWrapper.getLoggingEvent().m_timestamp);
+    /**
+     * Must hold the mutex.
+     */
+    private void addLoggerSequence(String loggerName, long sequence) {
+        if (loggerName == null) {
+            //not affected by hiding or showing loggers
+            return;
+        }
+        SequenceList sequences = loggerSequences.get(loggerName);
+        if (sequences == null) {
+            sequences = new SequenceList(Integer.MAX_VALUE);
+            loggerSequences.put(loggerName, sequences);
+        } else {
+            sequences.removeBefore(firstSequence());
+        }
+        sequences.add(sequence);
+    }
+
+    /**
+     * Must hold the mutex.
+     */
+    private void updateEventMillisDelta(long sequence, LoggingEventWrapper loggingEventWrapper, LoggingEventWrapper lastLoggingEventWrapper) {
+        updateEventMillisDelta(sequence, getTimestamp(loggingEventWrapper), getTimestamp(lastLoggingEventWrapper));
+    }
+
+    /**
+     * Must hold the mutex.
+     */
+    private void updateEventMillisDelta(long sequence, long timestamp, long lastTimestamp) {
+        if (timestamp != NO_TIMESTAMP && lastTimestamp != NO_TIMESTAMP) {
+            viewStates.setMillisDelta(sequence, timestamp - lastTimestamp);
         } else {
             //delta to same event = 0
-            loggingEventWrapper.setPreviousDisplayedEventTimestamp(loggingEventWrapper.getLoggingEvent().m_timestamp);
+            viewStates.setMillisDelta(sequence, 0);
         }
     }
 
+    private static long getTimestamp(LoggingEventWrapper loggingEventWrapper) {
+        if (loggingEventWrapper == null || loggingEventWrapper.getLoggingEvent().m_timestamp == null) {
+            return NO_TIMESTAMP;
+        }
+        return loggingEventWrapper.getLoggingEvent().m_timestamp.toEpochMilli();
+    }
+
     private void checkForNewColumn(LoggingEventWrapper loggingEventWrapper) {
         /**
          * Is this a new Property key we haven't seen before?  Remember that now MDC has been merged
@@ -701,35 +1522,14 @@ private void checkForNewColumn(LoggingEventWrapper loggingEventWrapper) {
         }
     }
 
-    @Override
-    public void fireTableEvent(final int begin, final int end, final int count) {
-        SwingHelper.invokeOnEDT(() -> {
-            if (cyclic) {
-                if (!reachedCapacity) {
-//if we didn't loop and it's the 1st time, insert
-                    if ((begin + count) < cyclicBufferSize) {
-                        fireTableRowsInserted(begin, end);
-                    } else {
-//we did loop - insert and then update rows
-//rows are zero-indexed, subtract 1 from cyclicbuffersize for the event notification
-                        fireTableRowsInserted(begin, cyclicBufferSize - 1);
-                        fireTableRowsUpdated(0, cyclicBufferSize - 1);
-                        reachedCapacity = true;
-                    }
-                } else {
-                    fireTableRowsUpdated(0, cyclicBufferSize - 1);
-                }
-            } else {
-                fireTableRowsInserted(begin, end);
-            }
-        });
-    }
-
     @Override
     public void fireRowUpdated(int row, boolean checkForNewColumns) {
-        LoggingEventWrapper loggingEventWrapper = getRow(row);
+        long sequence = publishedRows.get(row);
+        LoggingEventWrapper loggingEventWrapper = sequence < 0 ? null : getEvent(sequence);
         if (loggingEventWrapper != null) {
-            loggingEventWrapper.updateColorRuleColors(colorizer.getBackgroundColor(loggingEventWrapper.getLoggingEvent()), colorizer.getForegroundColor(loggingEventWrapper.getLoggingEvent()));
+            RuleColorizer.Colors colors = colorizer.getColors(loggingEventWrapper.getLoggingEvent());
+            viewStates.setColors(sequence, colors);
+            loggingEventWrapper.updateColorRuleColors(colors);
             Rule findRule = colorizer.getFindRule();
             if (findRule != null) {
                 loggingEventWrapper.evaluateSearchRule(colorizer.getFindRule());
@@ -743,6 +1543,97 @@ public void fireRowUpdated(int row, boolean checkForNewColumns) {
         }
     }
 
+    /**
+     * Recolors the rows on screen at once, then the rest of the events held in memory in
+     * parallel, without the lock.  Only the events colored by a changed rule, by a rule after
+     * it or by none are evaluated again.  Spilled events are recolored when they are read
+     * back, as their cached colors are from an older version of the rules.
+     * <p>
+     * A call made while an earlier recolor is still running cancels the earlier one, and
+     * recolors the events either change affects.
+     */
+    @Override
+    public void recolor(ColorRuleChangeEvent change, int firstRow, int lastRow) {
+        if (!change.isRuleChange()) {
+            return;
+        }
+        final ColorRuleChangeEvent pending;
+        final long generation;
+        synchronized (recolorGeneration) {
+            if (pendingRecolor == null || change.getFirstChangedRule() < pendingRecolor.getFirstChangedRule()) {
+                pendingRecolor = change;
+            }
+            pending = pendingRecolor;
+            generation = recolorGeneration.incrementAndGet();
+        }
+        RowSnapshot snapshot = publishedRows;
+        for (int row = Math.max(0, firstRow); row <= lastRow; row++) {
+            long sequence = snapshot.get(row);
+            if (sequence >= 0) {
+                recolor(pending, sequence);
+            }
+        }
+        ForkJoinPool.commonPool().execute(() -> {
+            ForkJoinPool.commonPool().invoke(new RecolorTask(generation, pending, unfilteredList.getFirstSequence(), unfilteredList.getNextSequence()));
+            synchronized (recolorGeneration) {
+                if (isRecolorCancelled(generation)) {
+                    return;
+                }
+                pendingRecolor = null;
+            }
+            SwingHelper.invokeOnEDT(() -> {
+                int rowCount = getRowCount();
+                if (rowCount > 0) {
+                    fireTableRowsUpdated(0, rowCount - 1);
+                }
+                propertySupport.firePropertyChange("recolor", Boolean.TRUE, Boolean.FALSE);
+            });
+        });
+    }
+
+    private boolean isRecolorCancelled(long generation) {
+        return recolorGeneration.get() != generation;
+    }
+
+    private void recolor(ColorRuleChangeEvent change, long sequence) {
+        LoggingEventWrapper loggingEventWrapper = unfilteredList.getBySequence(sequence);
+        if (loggingEventWrapper != null && change.affects(loggingEventWrapper.getRuleColors())) {
+            RuleColorizer.Colors colors = colorizer.getColors(loggingEventWrapper.getLoggingEvent());
+            loggingEventWrapper.updateColorRuleColors(colors);
+            viewStates.setColors(sequence, colors);
+        }
+    }
+
+    private class RecolorTask extends RecursiveAction {
+        private final long generation;
+        private final ColorRuleChangeEvent change;
+        private final long start;
+        private final long end;
+
+        RecolorTask(long generation, ColorRuleChangeEvent change, long start, long end) {
+            this.generation = generation;
+            this.change = change;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > REFILTER_CHUNK_SIZE) {
+                long middle = (start + end) >>> 1;
+                invokeAll(new RecolorTask(generation, change, start, middle), new RecolorTask(generation, change, middle, end));
+                return;
+            }
+            if (isRecolorCancelled(generation)) {
+                return;
+            }
+            //events which have left the buffer since are skipped
+            for (long sequence = start; sequence < end; sequence++) {
+                recolor(change, sequence);
+            }
+        }
+    }
+
     /**
      * @param e
      */
@@ -829,7 +1720,7 @@ public void addPropertyChangeListener(
     @Override
     public int size() {
         synchronized (mutex) {
-            return unfilteredList.size();
+            return (int) (unfilteredList.getNextSequence() - firstSequence());
         }
     }
 
@@ -852,33 +1743,23 @@ public void propertyChange(PropertyChangeEvent arg0) {
                                     new ProgressMonitor(
                                         null, "Switching models...",
                                         "Transferring between data structures, please wait...", 0,
-                                        unfilteredList.size() + 1);
+                                        2);
                                 monitor.setMillisToDecideToPopup(250);
                                 monitor.setMillisToPopup(100);
                                 logger.debug(
                                     "Changing Model, isCyclic is now " + cyclic);
 
-                                List newUnfilteredList;
-                                List newFilteredList;
-
-                                if (cyclic) {
-                                    newUnfilteredList = new CyclicBufferList(cyclicBufferSize);
-                                    newFilteredList = new CyclicBufferList(cyclicBufferSize);
-                                } else {
-                                    newUnfilteredList = new ArrayList(cyclicBufferSize);
-                                    newFilteredList = new ArrayList(cyclicBufferSize);
-                                }
-
-                                int increment = 0;
-
-                                for (Object anUnfilteredList : unfilteredList) {
-                                    LoggingEventWrapper loggingEventWrapper = (LoggingEventWrapper) anUnfilteredList;
-                                    newUnfilteredList.add(loggingEventWrapper);
-                                    monitor.setProgress(index++);
+                                //the list keeps the newest events when it becomes cyclic, so their sequence numbers are unchanged.
+                                //When spilling it stays cyclic and pushes its oldest events out to the spill store instead
+                                if (spillStore != null && cyclic) {
+                                    spillStore.clear();
                                 }
-
-                                unfilteredList = newUnfilteredList;
-                                filteredList = newFilteredList;
+                                unfilteredList.setCyclic(cyclic || spillStore != null);
+                                filteredList.setCyclic(cyclic);
+                                filteredList.removeBefore(firstSequence());
+                                //shown by the refilter below
+                                filteredListRewritten();
+                                monitor.setProgress(index++);
                             }
 
                             monitor.setNote("Refiltering...");
@@ -44,6 +44,16 @@ public interface ChainsawReceiver {
     public void setPaused(boolean paused);
     
     public boolean getPaused();
+
+    /**
+     * @return the number of events received but not yet handed to the listeners
+     */
+    public int getQueueDepth();
+
+    /**
+     * @return the number of events discarded because the receiver's queue was full
+     */
+    public long getDroppedEventCount();
     
     /**
      * Start this receiver by(for example) opening a network socket.
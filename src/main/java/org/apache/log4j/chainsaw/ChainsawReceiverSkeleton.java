@@ -19,7 +19,14 @@
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.chainsaw.logevents.Level;
 
@@ -46,15 +53,21 @@ public abstract class ChainsawReceiverSkeleton implements ChainsawReceiver {
      */
     protected Level thresholdLevel = Level.TRACE;
     
+    /**
+     * Default number of events buffered between the receiver and its listeners.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 100000;
+
     private List<ChainsawEventBatchListener> m_eventListeners;
     private WorkQueue m_worker;
     private final Object mutex = new Object();
     private int m_sleepInterval = 1000;
     private boolean m_paused = false;
+    private volatile OverflowPolicy m_overflowPolicy = OverflowPolicy.BLOCK;
     
     public ChainsawReceiverSkeleton(){
         m_eventListeners = new ArrayList<>();
-        m_worker = new WorkQueue();
+        m_worker = new WorkQueue(DEFAULT_QUEUE_CAPACITY);
     }
 
     @Override
@@ -139,9 +152,62 @@ public boolean getPaused(){
         return m_paused;
     }
     
+    /**
+     * @return the maximum number of events buffered between this receiver and its listeners
+     */
+    public int getQueueCapacity() {
+        return m_worker.capacity;
+    }
+
+    /**
+     * Sets the maximum number of events buffered between this receiver and its
+     * listeners.  Events already queued are kept, up to the new capacity.
+     * <p>
+     * Intended to be called while configuring the receiver, before it is started.
+     *
+     * @param capacity the new capacity, must be positive
+     */
+    public void setQueueCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "The queue capacity (" + capacity + ") is not a positive integer.");
+        }
+        m_worker.resize(capacity);
+    }
+
+    /**
+     * @return the name of the OverflowPolicy applied when the queue is full
+     */
+    public String getQueueOverflowPolicy() {
+        return m_overflowPolicy.name();
+    }
+
+    /**
+     * Sets the policy applied when events arrive faster than the listeners consume
+     * them and the queue is full.
+     *
+     * @param policy one of the OverflowPolicy names (case-insensitive)
+     */
+    public void setQueueOverflowPolicy(String policy) {
+        m_overflowPolicy = OverflowPolicy.valueOf(policy.trim().toUpperCase(Locale.ENGLISH));
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return m_worker.queue.size();
+    }
+
+    @Override
+    public long getDroppedEventCount() {
+        return m_worker.droppedCount.get();
+    }
+
     /**
      * Whenever a new log event comes in, create a ChainsawLoggingEvent and call
      * this method.  If this receiver is paused, discard the event.
+     * <p>
+     * If the queue is full the configured OverflowPolicy decides whether the
+     * calling thread blocks or an event is dropped.
      * 
      * @param event 
      */
@@ -149,25 +215,193 @@ protected void append(final ChainsawLoggingEvent event){
         if( m_paused ) return;
         m_worker.enqueue(event);
     }
-    
+
     /**
-     * Queue of Events are placed in here, which are picked up by an asychronous
-     * thread. The WorkerThread looks for events once a second and processes all
-     * events accumulated during that time..
+     * What to do with an event that arrives while the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Block the producer until the worker thread has made room
+         */
+        BLOCK,
+        /**
+         * Discard the oldest queued event to make room for the new one
+         */
+        DROP_OLDEST,
+        /**
+         * Discard the new event
+         */
+        DROP_NEWEST,
+        /**
+         * Discard new events below WARN, make room for WARN and above by discarding the oldest queued
+         * event below WARN, or the oldest queued event if all of them are WARN and above
+         */
+        SAMPLE_BY_LEVEL
+    }
+
+    /**
+     * Bounded queue of Events, which are picked up by an asychronous thread.
+     * The WorkerThread drains all events accumulated since its last pass and
+     * hands them to the listeners as one batch.
      */
     class WorkQueue {
-        final ArrayList<ChainsawLoggingEvent> queue = new ArrayList<>();
+        //how long the idle worker waits on a queue before checking whether it was replaced
+        private static final long POLL_MILLIS = 100;
+
+        volatile BlockingQueue<ChainsawLoggingEvent> queue;
+        volatile int capacity;
+        final AtomicLong droppedCount = new AtomicLong();
+        //at least the number of queued events below WARN, counted up before and down after they are queued
+        private final AtomicInteger belowWarnCount = new AtomicInteger();
         Thread workerThread;
 
-        protected WorkQueue() {
+        protected WorkQueue(int capacity) {
+            this.capacity = capacity;
+            queue = new ArrayBlockingQueue<>(capacity);
             workerThread = new WorkerThread();
             workerThread.start();
         }
 
         public final void enqueue(ChainsawLoggingEvent event) {
+            BlockingQueue<ChainsawLoggingEvent> currentQueue = queue;
+            if (!offer(currentQueue, event)) {
+                enqueueOnOverflow(currentQueue, event);
+            }
+            if (currentQueue != queue) {
+                //resize() may have drained the queue before this thread added to it, nobody reads it any more
+                ChainsawLoggingEvent queued;
+                while ((queued = currentQueue.poll()) != null) {
+                    removed(queued);
+                    enqueue(queued);
+                }
+            }
+        }
+
+        private boolean offer(BlockingQueue<ChainsawLoggingEvent> currentQueue, ChainsawLoggingEvent event) {
+            boolean belowWarn = isBelowWarn(event);
+            if (belowWarn) {
+                belowWarnCount.incrementAndGet();
+            }
+            if (currentQueue.offer(event)) {
+                return true;
+            }
+            if (belowWarn) {
+                belowWarnCount.decrementAndGet();
+            }
+            return false;
+        }
+
+        /**
+         * Counts an event taken off a queue.
+         */
+        private void removed(ChainsawLoggingEvent event) {
+            if (isBelowWarn(event)) {
+                belowWarnCount.decrementAndGet();
+            }
+        }
+
+        /**
+         * Removes the oldest queued event.
+         *
+         * @return true if there was one
+         */
+        private boolean removeOldest(BlockingQueue<ChainsawLoggingEvent> currentQueue) {
+            ChainsawLoggingEvent oldest = currentQueue.poll();
+            if (oldest == null) {
+                return false;
+            }
+            removed(oldest);
+            return true;
+        }
+
+        private void enqueueOnOverflow(BlockingQueue<ChainsawLoggingEvent> currentQueue, ChainsawLoggingEvent event) {
+            switch (m_overflowPolicy) {
+                case BLOCK:
+                    boolean belowWarn = isBelowWarn(event);
+                    if (belowWarn) {
+                        belowWarnCount.incrementAndGet();
+                    }
+                    try {
+                        currentQueue.put(event);
+                    } catch (InterruptedException ie) {
+                        if (belowWarn) {
+                            belowWarnCount.decrementAndGet();
+                        }
+                        droppedCount.incrementAndGet();
+                        Thread.currentThread().interrupt();
+                    }
+                    break;
+                case DROP_NEWEST:
+                    droppedCount.incrementAndGet();
+                    break;
+                case SAMPLE_BY_LEVEL:
+                    if (isBelowWarn(event)) {
+                        droppedCount.incrementAndGet();
+                        break;
+                    }
+                    while (!currentQueue.offer(event)) {
+                        if (removeOldestBelowWarn(currentQueue) || removeOldest(currentQueue)) {
+                            droppedCount.incrementAndGet();
+                        }
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!offer(currentQueue, event)) {
+                        if (removeOldest(currentQueue)) {
+                            droppedCount.incrementAndGet();
+                        }
+                    }
+                    break;
+            }
+        }
+
+        private boolean isBelowWarn(ChainsawLoggingEvent event) {
+            return event.m_level == null || event.m_level.compareTo(Level.WARN) < 0;
+        }
+
+        /**
+         * Scans the queue, under its lock, only while events below WARN may be queued.
+         *
+         * @return true if an event below WARN was found and removed
+         */
+        private boolean removeOldestBelowWarn(BlockingQueue<ChainsawLoggingEvent> currentQueue) {
+            if (belowWarnCount.get() == 0) {
+                return false;
+            }
+            for (Iterator<ChainsawLoggingEvent> iterator = currentQueue.iterator(); iterator.hasNext(); ) {
+                if (isBelowWarn(iterator.next())) {
+                    iterator.remove();
+                    belowWarnCount.decrementAndGet();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Replaces the queue with one of the new capacity, moving over as many
+         * queued events as fit.  Events that don't fit are counted as dropped.
+         * Producers which added to the old queue after it was drained move their
+         * events across themselves.  The worker notices the new queue the next time
+         * its poll of the old one times out; it is not interrupted, as it may be
+         * writing the events it took to a file channel, which an interrupt closes.
+         */
+        final void resize(int newCapacity) {
             synchronized (mutex) {
-                queue.add(event);
-                mutex.notify();
+                if (newCapacity == capacity) {
+                    return;
+                }
+                BlockingQueue<ChainsawLoggingEvent> oldQueue = queue;
+                BlockingQueue<ChainsawLoggingEvent> newQueue = new ArrayBlockingQueue<>(newCapacity);
+                queue = newQueue;
+                capacity = newCapacity;
+                ChainsawLoggingEvent event;
+                while ((event = oldQueue.poll()) != null) {
+                    if (!newQueue.offer(event)) {
+                        removed(event);
+                        droppedCount.incrementAndGet();
+                    }
+                }
             }
         }
 
@@ -178,8 +412,8 @@ public final void stop() {
         }
 
         /**
-         * The worker thread converts each queued event to a vector and forwards the
-         * vector on to the UI.
+         * The worker thread drains the queued events and forwards them
+         * on to the UI.
          */
         private class WorkerThread extends Thread {
             public WorkerThread() {
@@ -191,19 +425,25 @@ public WorkerThread() {
             public void run() {
                 while (true) {
                     List<ChainsawLoggingEvent> innerList = new ArrayList<>();
-                    synchronized (mutex) {
-                        try {
-                            while ((queue.size() == 0)) {
-//                                setDataRate(0);
-                                mutex.wait();
-                            }
-                            if (queue.size() > 0) {
-                                innerList.addAll(queue);
-                                queue.clear();
-                            }
-                        } catch (InterruptedException ie) {
+                    try {
+                        //resize() may replace the queue, so wait on it for a while only
+                        BlockingQueue<ChainsawLoggingEvent> currentQueue = queue;
+                        ChainsawLoggingEvent first = currentQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        innerList.add(first);
+                        currentQueue.drainTo(innerList);
+                    } catch (InterruptedException ie) {
+                        continue;
+                    }
+                    int belowWarn = 0;
+                    for (ChainsawLoggingEvent event : innerList) {
+                        if (isBelowWarn(event)) {
+                            belowWarn++;
                         }
                     }
+                    belowWarnCount.addAndGet(-belowWarn);
 
                     for( ChainsawEventBatchListener evtListner : m_eventListeners ){
                         evtListner.receiveChainsawEventBatch(innerList);
@@ -219,14 +459,6 @@ public void run() {
                     } else {
                         Thread.yield();
                     }
-//                    if (size == 0) {
-//                        setDataRate(0.0);
-//                    } else {
-//                        long timeEnd = System.currentTimeMillis();
-//                        long diffInSeconds = (timeEnd - timeStart) / 1000;
-//                        double rate = (((double) size) / diffInSeconds);
-//                        setDataRate(rate);
-//                    }
                 }
             }
         }
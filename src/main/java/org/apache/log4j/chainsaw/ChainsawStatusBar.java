@@ -40,6 +40,7 @@ public class ChainsawStatusBar extends JPanel {
     private final JLabel eventCountLabel = new JLabel("", SwingConstants.CENTER);
     private final JLabel receivedEventLabel = new JLabel("", SwingConstants.CENTER);
     private final JLabel receivedConnectionlabel = new JLabel("", SwingConstants.CENTER);
+    private final JLabel droppedEventLabel = new JLabel("", SwingConstants.CENTER);
     private volatile long lastReceivedConnection = System.currentTimeMillis();
     private final Thread connectionThread;
     private final Icon pausedIcon = new ImageIcon(ChainsawIcons.PAUSE);
@@ -101,6 +102,15 @@ public ChainsawStatusBar(LogUI logUI) {
                 netConnectIcon.getIconWidth() + 4,
                 (int) receivedConnectionlabel.getPreferredSize().getHeight()));
 
+        droppedEventLabel.setBorder(statusBarComponentBorder);
+        droppedEventLabel.setToolTipText(
+            "Events dropped because the receiver could not keep up");
+        droppedEventLabel.setMinimumSize(
+            new Dimension(
+                droppedEventLabel.getFontMetrics(droppedEventLabel.getFont())
+                    .stringWidth("Dropped: 999999999999") + 5,
+                (int) droppedEventLabel.getPreferredSize().getHeight()));
+
         lineSelectionLabel.setBorder(statusBarComponentBorder);
         lineSelectionLabel.setMinimumSize(
             new Dimension(
@@ -114,7 +124,7 @@ public ChainsawStatusBar(LogUI logUI) {
             new JComponent[]{
                 searchMatchLabel, eventCountLabel,
                 receivedConnectionlabel, lineSelectionLabel, receivedEventLabel,
-                pausedLabel
+                droppedEventLabel, pausedLabel
             };
 
         for (JComponent aToFix : toFix) {
@@ -166,6 +176,11 @@ public ChainsawStatusBar(LogUI logUI) {
         c.weightx = 0.0;
         c.weighty = 0.0;
         c.gridx = 6;
+        add(droppedEventLabel, c);
+
+        c.weightx = 0.0;
+        c.weighty = 0.0;
+        c.gridx = 7;
 
         add(pausedLabel, c);
 
@@ -242,6 +257,24 @@ public void setSelectedLine(
         }
     }
 
+    /**
+     * Shows how far behind the receiver feeding the tab is, and how many events it has shed
+     *
+     * @param queueDepth     events waiting in the receiver's queue
+     * @param droppedCount   events dropped by the receiver's overflow policy
+     * @param tabName        the tab the receiver feeds
+     */
+    public void setReceiverQueueStatus(final int queueDepth, final long droppedCount, String tabName) {
+        if (tabName.equals(logUI.getActiveTabName())) {
+            SwingUtilities.invokeLater(
+                () -> {
+                    droppedEventLabel.setText(droppedCount == 0 ? "" : "Dropped: " + droppedCount);
+                    droppedEventLabel.setToolTipText(
+                        "Events dropped because the receiver could not keep up (queued: " + queueDepth + ")");
+                });
+        }
+    }
+
     public void setSearchMatchCount(int searchMatchCount, String tabName) {
         if (tabName.equals(logUI.getActiveTabName())) {
             if (searchMatchCount == 0) {
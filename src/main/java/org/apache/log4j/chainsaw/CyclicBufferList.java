@@ -18,24 +18,37 @@
 package org.apache.log4j.chainsaw;
 
 import java.util.AbstractList;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 
 /**
  * CyclicBuffer implementation that is Object generic, and implements the List interface.
  * <p>
+ * Every element added gets a sequence number, one higher than the element added before it,
+ * which it keeps while it is in the buffer.  Once the buffer is full each new element pushes
+ * the oldest one out, unless the buffer is made non-cyclic, in which case it grows instead.
+ * Elements are only removed from the front, so <code>remove(int)</code> is not supported.
+ * <p>
+ * Changes must be made by one thread at a time, callers hold their own lock for that.
+ * {@link #getBySequence(long)} and {@link #cursor()} (also used by {@link #iterator()}) can be
+ * called from any thread without that lock: they see the elements held when they are called,
+ * less those pushed out by later additions, and never an element in the wrong position.
+ * Null elements are not supported.
+ * <p>
  * Original CyclicBuffer @author Ceki G&uuml;lc&uuml;
  * <p>
  * This implementation (although there's very little change) @author Paul Smith &lt;psmith@apache.org&gt;
  */
-public class CyclicBufferList extends AbstractList implements List {
-    Object[] ea;
-    int first;
-    int last;
-    int numElems;
-    int maxSize;
+public class CyclicBufferList<E> extends AbstractList<E> implements RandomAccess {
+    //the element with sequence number s is held at index s % length
+    private volatile AtomicReferenceArray<E> elements;
+    private volatile long firstSequence;
+    private volatile long nextSequence;
+    private int maxSize;
+    private boolean cyclic = true;
 
     /**
      * Instantiate a new CyclicBuffer of at most <code>maxSize</code> events.
@@ -57,57 +70,51 @@ public CyclicBufferList() {
         this(5000);
     }
 
+    private static int index(long sequence, AtomicReferenceArray<?> array) {
+        return (int) (sequence % array.length());
+    }
+
     /**
-     * Removes the element at the specified position in this list.
-     * Shifts any subsequent elements to the left (subtracts one from their
-     * indices).
-     *
-     * @param index the index of the element to removed.
-     * @return the element that was removed from the list.
-     * @throws IndexOutOfBoundsException if index out of range <tt>(index
-     *                                   &lt; 0 || index &gt;= size())</tt>.
+     * Copies the elements held into a new array of the given length.
      */
-    public Object remove(int index) {
-        Object oldValue = ea[index];
-
-        List list = new ArrayList(Arrays.asList(ea));
-        list.remove(index);
-        ea = list.toArray(ea);
-        numElems = ea.length;
-
-        numElems--;
-        if (--last <= 0) {
-            last = numElems;
-        }
-
-        if (first == maxSize) {
-            first = 0;
+    private AtomicReferenceArray<E> relayout(int length) {
+        AtomicReferenceArray<E> oldElements = elements;
+        AtomicReferenceArray<E> newElements = new AtomicReferenceArray<>(length);
+        for (long sequence = firstSequence; sequence < nextSequence; sequence++) {
+            newElements.set(index(sequence, newElements), oldElements.get(index(sequence, oldElements)));
         }
-        return oldValue;
+        elements = newElements;
+        return newElements;
     }
 
-    public Object set(int index, Object element) {
-        Object previous = ea[index];
-        ea[index] = element;
-
-        return previous;
+    public E set(int index, E element) {
+        if ((index < 0) || (index >= size())) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        AtomicReferenceArray<E> array = elements;
+        return array.getAndSet(index(firstSequence + index, array), element);
     }
 
     /**
      * Add an <code>event</code> as the last event in the buffer.
      */
-    public boolean add(Object event) {
-        ea[last] = event;
-
-        if (++last == maxSize) {
-            last = 0;
+    public boolean add(E event) {
+        if (event == null) {
+            throw new NullPointerException("Null elements are not supported");
         }
-
-        if (numElems < maxSize) {
-            numElems++;
-        } else if (++first == maxSize) {
-            first = 0;
+        AtomicReferenceArray<E> array = elements;
+        long sequence = nextSequence;
+        if (sequence - firstSequence == array.length()) {
+            if (cyclic) {
+                //the oldest element drops out, readers check firstSequence after reading its slot
+                firstSequence = sequence - array.length() + 1;
+            } else {
+                array = relayout((int) Math.min(Integer.MAX_VALUE - 8, array.length() * 2L));
+            }
         }
+        array.set(index(sequence, array), event);
+        nextSequence = sequence + 1;
+        modCount++;
 
         return true;
     }
@@ -117,37 +124,62 @@ public boolean add(Object event) {
      * <em>i</em> is outside the range 0 to the number of elements
      * currently in the buffer, then <code>null</code> is returned.
      */
-    public Object get(int i) {
-        if ((i < 0) || (i >= numElems)) {
+    public E get(int i) {
+        if ((i < 0) || (i >= size())) {
             return null;
         }
 
-        return ea[(first + i) % maxSize];
+        return getBySequence(firstSequence + i);
     }
 
-    public int getMaxSize() {
-        return maxSize;
+    /**
+     * Get the element with the sequence number.  Safe to call without the lock used for changes.
+     *
+     * @return the element, or null if it has not been added yet or is no longer in the buffer
+     */
+    public E getBySequence(long sequence) {
+        if (sequence >= nextSequence || sequence < firstSequence) {
+            return null;
+        }
+        //read after nextSequence, so it holds every element up to there
+        AtomicReferenceArray<E> array = elements;
+        E element = array.get(index(sequence, array));
+        //the slot may have been reused by a newer element while it was read
+        return sequence < firstSequence ? null : element;
     }
 
-    public int getLast() {
-        return last;
+    /**
+     * @return the sequence number of the oldest element in the buffer
+     */
+    public long getFirstSequence() {
+        return firstSequence;
     }
 
     /**
-     * Get the oldest (first) element in the buffer. The oldest element
-     * is removed from the buffer.
+     * @return the sequence number the next element added will get
      */
-    public Object get() {
-        Object r = null;
+    public long getNextSequence() {
+        return nextSequence;
+    }
 
-        if (numElems > 0) {
-            numElems--;
-            r = ea[first];
-            ea[first] = null;
+    public int getMaxSize() {
+        return maxSize;
+    }
 
-            if (++first == maxSize) {
-                first = 0;
-            }
+    /**
+     * Get the oldest (first) element in the buffer. The oldest element
+     * is removed from the buffer.
+     */
+    public E get() {
+        E r = null;
+
+        if (size() > 0) {
+            AtomicReferenceArray<E> array = elements;
+            int index = index(firstSequence, array);
+            r = array.get(index);
+            firstSequence++;
+            array.set(index, null);
+            modCount++;
         }
 
         return r;
@@ -156,61 +188,124 @@ public Object get() {
     /**
      * Get the number of elements in the buffer. This number is
      * guaranteed to be in the range 0 to <code>maxSize</code>
-     * (inclusive).
+     * (inclusive) while the buffer is cyclic.
      */
     public int size() {
-        return numElems;
+        return (int) (nextSequence - firstSequence);
     }
 
     /**
-     * Resize the cyclic buffer to <code>newSize</code>.
+     * Resize the cyclic buffer to <code>newSize</code>.  The oldest elements are dropped
+     * if more than <code>newSize</code> are held and the buffer is cyclic.
      *
-     * @throws IllegalArgumentException if <code>newSize</code> is negative.
+     * @throws IllegalArgumentException if <code>newSize</code> is not positive.
      */
     public void resize(int newSize) {
-        if (newSize < 0) {
+        if (newSize < 1) {
             throw new IllegalArgumentException(
-                "Negative array size [" + newSize + "] not allowed.");
+                "The newSize argument (" + newSize + ") is not a positive integer.");
         }
-
-        if (newSize == numElems) {
-            return; // nothing to do
+        maxSize = newSize;
+        if (cyclic) {
+            trimToMaxSize();
         }
+    }
 
-        Object[] temp = new Object[newSize];
-
-        int loopLen = (newSize < numElems) ? newSize : numElems;
-
-        for (int i = 0; i < loopLen; i++) {
-            temp[i] = ea[first];
-            ea[first] = null;
-
-            if (++first == numElems) {
-                first = 0;
-            }
+    private void trimToMaxSize() {
+        if (size() > maxSize) {
+            firstSequence = nextSequence - maxSize;
+            modCount++;
         }
+        if (elements.length() != maxSize) {
+            relayout(maxSize);
+        }
+    }
 
-        ea = temp;
-        first = 0;
-        numElems = loopLen;
-        maxSize = newSize;
+    public boolean isCyclic() {
+        return cyclic;
+    }
 
-        if (loopLen == newSize) {
-            last = 0;
-        } else {
-            last = loopLen;
+    /**
+     * When not cyclic the buffer grows past <code>maxSize</code> instead of dropping its
+     * oldest elements.  Making it cyclic again drops the elements over <code>maxSize</code>.
+     */
+    public void setCyclic(boolean cyclic) {
+        this.cyclic = cyclic;
+        if (cyclic) {
+            trimToMaxSize();
         }
     }
 
-    /* (non-Javadoc)
+    /**
+     * Sequence numbers keep increasing across a clear.
+     *
      * @see java.util.Collection#clear()
      */
     public void clear() {
-        ea = new Object[maxSize];
-        first = 0;
-        last = 0;
-        numElems = 0;
+        firstSequence = nextSequence;
+        elements = new AtomicReferenceArray<>(maxSize);
+        modCount++;
+    }
+
+    /**
+     * The iterator is a {@link Cursor}, so it can be used without the lock used for changes.
+     */
+    public Iterator<E> iterator() {
+        return cursor();
+    }
 
+    /**
+     * @return a cursor over the elements held now, which does not copy them
+     */
+    public Cursor cursor() {
+        return new Cursor(firstSequence, nextSequence);
     }
 
+    /**
+     * Iterates over the elements with sequence numbers in a range, read one at a time from the
+     * buffer.  Elements pushed out of the buffer while iterating are skipped, elements added
+     * after the cursor was created are not returned.
+     */
+    public final class Cursor implements Iterator<E> {
+        private final long end;
+        private long position;
+        private long sequence = -1;
+        private E next;
+        private long nextElementSequence;
+
+        private Cursor(long start, long end) {
+            this.position = start;
+            this.end = end;
+        }
+
+        public boolean hasNext() {
+            while (next == null && position < end) {
+                next = getBySequence(position);
+                if (next == null) {
+                    //pushed out, and so were the ones before it
+                    position = Math.max(position + 1, firstSequence);
+                } else {
+                    nextElementSequence = position++;
+                }
+            }
+            return next != null;
+        }
+
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            E result = next;
+            sequence = nextElementSequence;
+            next = null;
+            return result;
+        }
+
+        /**
+         * @return the sequence number of the element last returned by {@link #next()}
+         */
+        public long getSequence() {
+            return sequence;
+        }
+    }
 }
@@ -17,6 +17,7 @@
 
 package org.apache.log4j.chainsaw;
 
+import org.apache.log4j.chainsaw.color.ColorRuleChangeEvent;
 import org.apache.log4j.rule.Rule;
 
 import java.beans.PropertyChangeListener;
@@ -120,7 +121,33 @@ void addPropertyChangeListener(
     LoggingEventWrapper getRow(int row);
 
     /**
-     * Adds a row to the model.
+     * Returns the milliseconds between the event displayed at the row and the event displayed
+     * in the row above it, 0 for the first row.  Like the row heights, this depends on the
+     * events the container displays, so it is not kept on the event.
+     */
+    long getMillisDelta(int row);
+
+    /**
+     * Returns the height last computed by the renderer for the marker column of the row,
+     * or -1 if it has not been computed since the row was last displayed.  Row heights
+     * belong to the view, so a LoggingEventWrapper shown in several containers has a height
+     * in each of them.
+     */
+    int getMarkerHeight(int row);
+
+    void setMarkerHeight(int row, int markerHeight);
+
+    /**
+     * Returns the height last computed by the renderer for the message column of the row,
+     * or -1 if it has not been computed since the row was last displayed.
+     */
+    int getMsgHeight(int row);
+
+    void setMsgHeight(int row, int msgHeight);
+
+    /**
+     * Adds a row to the model.  The same LoggingEventWrapper may be added to more than one
+     * container: state specific to this container is kept by the container, not the wrapper.
      *
      * @param e event
      * @return flag representing whether or not the row is being displayed (not filtered)
@@ -128,9 +155,11 @@ void addPropertyChangeListener(
     boolean isAddRow(LoggingEventWrapper e);
 
     /**
-     * Fire appropriate table update events for the range.
+     * Makes the rows added by isAddRow since the last call visible to the TableModel methods,
+     * and fires the table events for them, and for any other change to the rows not yet shown.
+     * Called on the EDT once per batch of added rows.
      */
-    void fireTableEvent(int begin, int end, int count);
+    void publishRows();
 
     /**
      * A row was updated
@@ -140,13 +169,25 @@ void addPropertyChangeListener(
      */
     void fireRowUpdated(int row, boolean checkForNewColumns);
 
+    /**
+     * Recolors the events a change of the color rules can affect.  The rows from firstRow to
+     * lastRow, normally those on screen, are recolored before this returns; the others may be
+     * recolored asynchronously, after which the "recolor" property change is fired on the EDT.
+     *
+     * @param change     the change of the colorizer's rules
+     * @param firstRow   first row to recolor at once
+     * @param lastRow    last row to recolor at once
+     */
+    void recolor(ColorRuleChangeEvent change, int firstRow, int lastRow);
+
     /**
      * Allow a forced notification of the EventCountListeners
      */
     void notifyCountListeners();
 
     /**
-     * Force a re-processing of the table layout
+     * Force a re-processing of the table layout.  This may complete
+     * asynchronously: listeners are notified on the EDT once it has.
      */
     void reFilter();
 
@@ -164,6 +205,14 @@ void addPropertyChangeListener(
      */
     int getRowIndex(LoggingEventWrapper loggingEventWrapper);
 
+    /**
+     * Finds the row to show for a point in time.
+     *
+     * @param timestamp epoch milliseconds
+     * @return the row of the earliest displayed event at or after the time, or -1 if there is none
+     */
+    int getRowAtTime(long timestamp);
+
     /**
      * Remove property from all events in container
      *
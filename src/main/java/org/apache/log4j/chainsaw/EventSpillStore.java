@@ -0,0 +1,385 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.chainsaw;
+
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.chainsaw.logevents.LocationInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps events pushed out of a table model's on-heap buffer in memory-mapped segment files,
+ * so a non-cyclic tab can hold far more events than fit on the heap.
+ * <p>
+ * Each event is written once, in a compact binary form, to the end of the current segment
+ * file, and read back by sequence number when it is needed.  The operating system pages in
+ * only the parts of the segments being read, and the heap only holds the position of each event.
+ * Sequence numbers must be added in order without gaps, as the table model pushes events out
+ * of its buffer.
+ * <p>
+ * The segments are never rewritten.  Properties changed after an event was spilled, such as
+ * markers, are kept on the heap by sequence number and applied each time the event is read back.
+ * <p>
+ * Events are added by one thread at a time, under the owning model's lock.  {@link #get(long)}
+ * can be called from any thread without it.  The segment files are deleted by {@link #clear()}
+ * and when the JVM exits.
+ */
+final class EventSpillStore {
+    private static final Logger logger = LogManager.getLogger();
+    static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final Level[] LEVELS = Level.values();
+
+    private static final int HAS_TIMESTAMP = 1;
+    private static final int HAS_LEVEL = 2;
+    private static final int HAS_LOCATION = 4;
+    private static final int HAS_MDC = 8;
+
+    private final File directory;
+    //the position of each event, as segment index << 32 | offset, by sequence - firstSequence
+    private volatile long[] positions = new long[1024];
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile long firstSequence;
+    private volatile long nextSequence;
+    private int segmentCount;
+    private MappedByteBuffer currentSegment;
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    //properties changed after the events were spilled, by sequence number.  A null value removes
+    //the property.  Guarded by itself
+    private final Map<Long, Map<String, String>> propertyChanges = new HashMap<>();
+    //properties removed from all events spilled before the sequence number, by name.  Guarded by propertyChanges
+    private final Map<String, Long> removedProperties = new HashMap<>();
+    //names of the properties written to the segments
+    private final Set<String> writtenPropertyNames = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param directory where the segment files are created, created if it does not exist
+     */
+    EventSpillStore(File directory) {
+        this.directory = directory;
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    long getNextSequence() {
+        return nextSequence;
+    }
+
+    int size() {
+        return (int) (nextSequence - firstSequence);
+    }
+
+    /**
+     * Writes the event to the end of the current segment.
+     *
+     * @param sequence the event's sequence number, one higher than the last event added
+     *                 unless the store is empty
+     * @throws IOException if a new segment file could not be created, the event is not added
+     */
+    void add(ChainsawLoggingEvent event, long sequence) throws IOException {
+        if (size() == 0) {
+            firstSequence = sequence;
+            nextSequence = sequence;
+        } else if (sequence != nextSequence) {
+            throw new IllegalArgumentException("Expected sequence " + nextSequence + " but was " + sequence);
+        }
+        ByteBuffer encoded = encode(event);
+        if (currentSegment == null || currentSegment.remaining() < encoded.remaining()) {
+            currentSegment = newSegment(Math.max(SEGMENT_SIZE, encoded.remaining()));
+        }
+        long position = ((long) (segmentCount - 1) << 32) | currentSegment.position();
+        currentSegment.put(encoded);
+        writtenPropertyNames.addAll(event.getPropertyKeySet());
+
+        int index = (int) (sequence - firstSequence);
+        long[] currentPositions = positions;
+        if (index == currentPositions.length) {
+            currentPositions = Arrays.copyOf(currentPositions, currentPositions.length * 2);
+        }
+        currentPositions[index] = position;
+        positions = currentPositions;
+        //published last, readers check it first
+        nextSequence = sequence + 1;
+    }
+
+    private MappedByteBuffer newSegment(int size) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create spill directory " + directory);
+        }
+        File file = new File(directory, "segment-" + segmentCount + ".bin");
+        file.deleteOnExit();
+        MappedByteBuffer segment;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            //the mapping stays valid once the file is closed
+            segment = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        MappedByteBuffer[] newSegments = Arrays.copyOf(segments, segmentCount + 1);
+        newSegments[segmentCount++] = segment;
+        segments = newSegments;
+        logger.debug("Spilling events to {}", file);
+        return segment;
+    }
+
+    /**
+     * @return the event with the sequence number, or null if it is not held
+     */
+    ChainsawLoggingEvent get(long sequence) {
+        if (sequence >= nextSequence) {
+            return null;
+        }
+        long first = firstSequence;
+        if (sequence < first) {
+            return null;
+        }
+        long[] currentPositions = positions;
+        MappedByteBuffer[] currentSegments = segments;
+        int index = (int) (sequence - first);
+        if (index >= currentPositions.length) {
+            //cleared while it was read
+            return null;
+        }
+        long position = currentPositions[index];
+        int segmentIndex = (int) (position >>> 32);
+        if (segmentIndex >= currentSegments.length) {
+            return null;
+        }
+        ByteBuffer in = currentSegments[segmentIndex].duplicate();
+        try {
+            in.position((int) position);
+            ChainsawLoggingEvent event = decode(in);
+            applyPropertyChanges(sequence, event);
+            //if it was cleared while it was read, the position may have been for another event
+            return firstSequence == first ? event : null;
+        } catch (RuntimeException e) {
+            if (firstSequence != first) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private void applyPropertyChanges(long sequence, ChainsawLoggingEvent event) {
+        synchronized (propertyChanges) {
+            for (Map.Entry<String, Long> entry : removedProperties.entrySet()) {
+                if (sequence < entry.getValue()) {
+                    event.removeProperty(entry.getKey());
+                }
+            }
+            Map<String, String> changes = propertyChanges.get(sequence);
+            if (changes != null) {
+                for (Map.Entry<String, String> entry : changes.entrySet()) {
+                    if (entry.getValue() == null) {
+                        event.removeProperty(entry.getKey());
+                    } else {
+                        event.setProperty(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes a property of a spilled event, from then on it is applied when the event is read back.
+     *
+     * @param value the new value, or null to remove the property
+     */
+    void setProperty(long sequence, String name, String value) {
+        if (sequence < firstSequence || sequence >= nextSequence) {
+            return;
+        }
+        synchronized (propertyChanges) {
+            propertyChanges.computeIfAbsent(sequence, key -> new HashMap<>()).put(name, value);
+        }
+    }
+
+    /**
+     * Removes a property from all events spilled so far.
+     *
+     * @return true if any of them may have held it
+     */
+    boolean removeProperty(String name) {
+        boolean held = false;
+        synchronized (propertyChanges) {
+            for (Map<String, String> changes : propertyChanges.values()) {
+                held |= changes.remove(name) != null;
+            }
+            if (writtenPropertyNames.contains(name)) {
+                removedProperties.put(name, nextSequence);
+                held = true;
+            }
+        }
+        return held;
+    }
+
+    /**
+     * Drops all events and deletes the segment files.
+     */
+    void clear() {
+        firstSequence = nextSequence;
+        segments = new MappedByteBuffer[0];
+        positions = new long[1024];
+        currentSegment = null;
+        for (int i = 0; i < segmentCount; i++) {
+            File file = new File(directory, "segment-" + i + ".bin");
+            if (file.exists() && !file.delete()) {
+                logger.debug("Unable to delete {}, it is deleted on exit", file);
+            }
+        }
+        segmentCount = 0;
+        synchronized (propertyChanges) {
+            propertyChanges.clear();
+            removedProperties.clear();
+            writtenPropertyNames.clear();
+        }
+    }
+
+    private ByteBuffer encode(ChainsawLoggingEvent event) {
+        scratch.clear();
+        int flags = (event.m_timestamp != null ? HAS_TIMESTAMP : 0)
+            | (event.m_level != null ? HAS_LEVEL : 0)
+            | (event.m_locationInfo != null ? HAS_LOCATION : 0)
+            | (event.m_mdc != null ? HAS_MDC : 0);
+        ensureCapacity(16);
+        scratch.put((byte) flags);
+        if (event.m_timestamp != null) {
+            scratch.putLong(event.m_timestamp.getEpochSecond());
+            scratch.putInt(event.m_timestamp.getNano());
+        }
+        if (event.m_level != null) {
+            scratch.put((byte) event.m_level.ordinal());
+        }
+        putString(event.m_logger);
+        putString(event.m_threadName);
+        putString(event.m_message);
+        putString(event.m_ndc);
+        if (event.m_locationInfo != null) {
+            putString(event.m_locationInfo.fileName);
+            putString(event.m_locationInfo.className);
+            putString(event.m_locationInfo.methodName);
+            ensureCapacity(4);
+            scratch.putInt(event.m_locationInfo.lineNumber);
+        }
+        if (event.m_mdc != null) {
+            putMap(event.m_mdc);
+        }
+        putMap(event.getProperties());
+        scratch.flip();
+        return scratch;
+    }
+
+    private void putMap(Map<String, String> map) {
+        ensureCapacity(4);
+        scratch.putInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            putString(entry.getKey());
+            putString(entry.getValue());
+        }
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            ensureCapacity(4);
+            scratch.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(4 + bytes.length);
+        scratch.putInt(bytes.length);
+        scratch.put(bytes);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (scratch.remaining() < needed) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + needed));
+            scratch.flip();
+            larger.put(scratch);
+            scratch = larger;
+        }
+    }
+
+    private static ChainsawLoggingEvent decode(ByteBuffer in) {
+        int flags = in.get();
+        ChainsawLoggingEventBuilder builder = new ChainsawLoggingEventBuilder();
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            long epochSecond = in.getLong();
+            builder.setTimestamp(Instant.ofEpochSecond(epochSecond, in.getInt()));
+        }
+        if ((flags & HAS_LEVEL) != 0) {
+            builder.setLevel(LEVELS[in.get()]);
+        }
+        builder.setLogger(getString(in))
+            .setThreadName(getString(in))
+            .setMessage(getString(in))
+            .setNDC(getString(in));
+        if ((flags & HAS_LOCATION) != 0) {
+            String fileName = getString(in);
+            String className = getString(in);
+            String methodName = getString(in);
+            builder.setLocationInfo(new LocationInfo(fileName, className, methodName, in.getInt()));
+        }
+        if ((flags & HAS_MDC) != 0) {
+            builder.setMDC(getMap(in));
+        }
+        ChainsawLoggingEvent event = builder.create();
+        for (Map.Entry<String, String> entry : getMap(in).entrySet()) {
+            event.setProperty(entry.getKey(), entry.getValue());
+        }
+        return event;
+    }
+
+    private static Map<String, String> getMap(ByteBuffer in) {
+        int size = in.getInt();
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String key = getString(in);
+            map.put(key, getString(in));
+        }
+        return map;
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.rule.AndRule;
+import org.apache.log4j.rule.EqualsRule;
+import org.apache.log4j.rule.ExpressionRule;
+import org.apache.log4j.rule.OrRule;
+import org.apache.log4j.rule.PartialTextMatchRule;
+import org.apache.log4j.rule.Rule;
+import org.apache.log4j.spi.LoggingEventFieldResolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An inverted index from the words in the MSG, LOGGER and THREAD fields of an EventContainer's
+ * events to their sequence numbers, so a find rule only needs to be evaluated against the events
+ * which can match it.  Property fields are not indexed: markers and other properties change
+ * after the events are added, and the index only sees the events as they were added.
+ * <p>
+ * Words are runs of letters and digits, case-folded the way the rules' case-insensitive
+ * matching folds them.  {@link #getCandidates(Rule, long)} resolves <code>~=</code> and
+ * <code>==</code> rules on those fields, and AND and OR combinations of them, to the events
+ * holding the rule's words: a superset of the events the rule matches, which the caller still
+ * evaluates the rule against.  Other rules are not resolved.
+ * <p>
+ * Entries of events which have left the container are dropped as their lists are added to,
+ * and from all lists once as many events have been added as there are lists.
+ * Not thread safe, used under the owning container's lock.
+ */
+final class EventTokenIndex {
+    //field name -> folded word -> sequence numbers of the events with the word in the field
+    private final Map<String, Map<String, SequenceList>> postings = new HashMap<>();
+    private final Set<String> eventTokens = new HashSet<>();
+    private int listCount;
+    private int addsSincePrune;
+
+    /**
+     * Indexes the words of the event's fields.
+     *
+     * @param sequence      sequence number of the event, higher than those added before
+     * @param firstSequence sequence number of the oldest event still in the container
+     */
+    void add(ChainsawLoggingEvent event, long sequence, long firstSequence) {
+        addField(LoggingEventFieldResolver.MSG_FIELD, event.m_message, sequence, firstSequence);
+        addField(LoggingEventFieldResolver.LOGGER_FIELD, event.m_logger, sequence, firstSequence);
+        addField(LoggingEventFieldResolver.THREAD_FIELD, event.m_threadName, sequence, firstSequence);
+        if (++addsSincePrune > Math.max(1024, listCount)) {
+            prune(firstSequence);
+        }
+    }
+
+    private void addField(String field, String value, long sequence, long firstSequence) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        eventTokens.clear();
+        tokenize(value, eventTokens, null);
+        if (eventTokens.isEmpty()) {
+            return;
+        }
+        Map<String, SequenceList> tokens = postings.computeIfAbsent(field, k -> new HashMap<>());
+        for (String token : eventTokens) {
+            SequenceList sequences = tokens.get(token);
+            if (sequences == null) {
+                sequences = new SequenceList(Integer.MAX_VALUE);
+                tokens.put(token, sequences);
+                listCount++;
+            } else {
+                sequences.removeBefore(firstSequence);
+            }
+            sequences.add(sequence);
+        }
+    }
+
+    /**
+     * Drops the entries of events older than firstSequence, and the lists left empty.
+     */
+    void prune(long firstSequence) {
+        addsSincePrune = 0;
+        for (Map<String, SequenceList> tokens : postings.values()) {
+            tokens.values().removeIf(sequences -> {
+                sequences.removeBefore(firstSequence);
+                return sequences.size() == 0;
+            });
+        }
+        postings.values().removeIf(Map::isEmpty);
+        listCount = 0;
+        for (Map<String, SequenceList> tokens : postings.values()) {
+            listCount += tokens.size();
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        listCount = 0;
+        addsSincePrune = 0;
+    }
+
+    /**
+     * @param firstSequence sequence number of the oldest event still in the container
+     * @return the sequence numbers of the events which can match the rule, ascending, or null if
+     * the rule can not be resolved through the index and every event has to be evaluated
+     */
+    long[] getCandidates(Rule rule, long firstSequence) {
+        if (rule instanceof ExpressionRule) {
+            return getCandidates(((ExpressionRule) rule).getCompiledRule(), firstSequence);
+        }
+        if (rule instanceof AndRule) {
+            long[] first = getCandidates(((AndRule) rule).getFirstRule(), firstSequence);
+            long[] second = getCandidates(((AndRule) rule).getSecondRule(), firstSequence);
+            if (first == null || second == null) {
+                //an event matching both matches the one which was resolved
+                return first == null ? second : first;
+            }
+            return intersect(first, second);
+        }
+        if (rule instanceof OrRule) {
+            long[] first = getCandidates(((OrRule) rule).getFirstRule(), firstSequence);
+            long[] second = getCandidates(((OrRule) rule).getSecondRule(), firstSequence);
+            return first == null || second == null ? null : union(Arrays.asList(first, second));
+        }
+        if (rule instanceof PartialTextMatchRule) {
+            PartialTextMatchRule partialTextMatchRule = (PartialTextMatchRule) rule;
+            return getCandidates(partialTextMatchRule.getField().getName(), partialTextMatchRule.getValue(), false, firstSequence);
+        }
+        if (rule instanceof EqualsRule) {
+            EqualsRule equalsRule = (EqualsRule) rule;
+            return getCandidates(equalsRule.getField().getName(), equalsRule.getValue(), true, firstSequence);
+        }
+        return null;
+    }
+
+    /**
+     * @param wholeValue true if the value has to equal the whole field, false if it can be part of it
+     */
+    private long[] getCandidates(String field, String value, boolean wholeValue, long firstSequence) {
+        if (!isIndexed(field) || value == null) {
+            return null;
+        }
+        List<String> words = new ArrayList<>();
+        List<Boolean> partial = new ArrayList<>();
+        tokenize(value, words, wholeValue ? null : partial);
+        if (words.isEmpty()) {
+            //no word to look up, a value like "." can be anywhere
+            return null;
+        }
+        Map<String, SequenceList> tokens = postings.get(field);
+        if (tokens == null) {
+            return new long[0];
+        }
+        long[] candidates = null;
+        for (int i = 0; i < words.size() && (candidates == null || candidates.length > 0); i++) {
+            String word = words.get(i);
+            long[] wordCandidates;
+            if (wholeValue || (!partial.get(2 * i) && !partial.get(2 * i + 1))) {
+                wordCandidates = toArray(tokens.get(word), firstSequence);
+            } else {
+                //the first and last words of a partial value can be the end and start of longer words
+                boolean start = partial.get(2 * i);
+                boolean end = partial.get(2 * i + 1);
+                List<long[]> lists = new ArrayList<>();
+                for (Map.Entry<String, SequenceList> entry : tokens.entrySet()) {
+                    String token = entry.getKey();
+                    boolean matches = start && end ? token.contains(word) : start ? token.endsWith(word) : token.startsWith(word);
+                    if (matches) {
+                        lists.add(toArray(entry.getValue(), firstSequence));
+                    }
+                }
+                wordCandidates = union(lists);
+            }
+            candidates = candidates == null ? wordCandidates : intersect(candidates, wordCandidates);
+        }
+        return candidates;
+    }
+
+    private static boolean isIndexed(String field) {
+        return field.equals(LoggingEventFieldResolver.MSG_FIELD) ||
+            field.equals(LoggingEventFieldResolver.LOGGER_FIELD) ||
+            field.equals(LoggingEventFieldResolver.THREAD_FIELD);
+    }
+
+    private static long[] toArray(SequenceList sequences, long firstSequence) {
+        if (sequences == null) {
+            return new long[0];
+        }
+        sequences.removeBefore(firstSequence);
+        return sequences.toArray();
+    }
+
+    /**
+     * Splits the value into folded words.
+     *
+     * @param partial if not null, receives two flags per word: whether it starts at the start
+     *                of the value and whether it ends at its end, so it may be part of a longer word
+     */
+    private static void tokenize(String value, Collection<String> words, List<Boolean> partial) {
+        StringBuilder word = new StringBuilder();
+        int wordStart = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            char c = i < value.length() ? fold(value.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (word.length() == 0) {
+                    wordStart = i;
+                }
+                word.append(c);
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                if (partial != null) {
+                    partial.add(wordStart == 0);
+                    partial.add(i == value.length());
+                }
+                word.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Folds a char the way the case-insensitive matching of PartialTextMatchRule does.
+     */
+    private static char fold(char c) {
+        if (c < 0x80) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * @return the entries of both ascending arrays, ascending
+     */
+    static long[] intersect(long[] first, long[] second) {
+        long[] result = new long[Math.min(first.length, second.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static long[] union(List<long[]> lists) {
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        int total = 0;
+        for (long[] list : lists) {
+            total += list.length;
+        }
+        long[] merged = new long[total];
+        int count = 0;
+        for (long[] list : lists) {
+            System.arraycopy(list, 0, merged, count, list.length);
+            count += list.length;
+        }
+        Arrays.sort(merged);
+        int distinct = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[i - 1]) {
+                merged[distinct++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, distinct);
+    }
+}
@@ -19,21 +19,26 @@
  */
 package org.apache.log4j.chainsaw;
 
+import org.apache.log4j.chainsaw.helper.SwingHelper;
+
 import javax.swing.event.EventListenerList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * An implementation of LoggerNameModel which can be used as a delegate
+ * <p>
+ * Logger names are added by the ingest threads while the EDT reads them, so the set is concurrent.
+ * Listeners are told of a reset on the EDT.
  *
  * @author Paul Smith &lt;psmith@apache.org&gt;
  */
 public class LoggerNameModelSupport implements LoggerNameModel {
 
-    private Set<String> loggerNameSet = new HashSet<>();
+    private final Set<String> loggerNameSet = ConcurrentHashMap.newKeySet();
     private EventListenerList listenerList = new EventListenerList();
 
 
@@ -61,9 +66,11 @@ public void reset() {
         loggerNameSet.clear();
         LoggerNameListener[] eventListeners = listenerList.getListeners(LoggerNameListener.class);
 
-        for (LoggerNameListener listener : eventListeners) {
-            listener.reset();
-        }
+        SwingHelper.invokeOnEDT(() -> {
+            for (LoggerNameListener listener : eventListeners) {
+                listener.reset();
+            }
+        });
     }
 
     /**
@@ -40,6 +40,7 @@
 import java.awt.event.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.configuration2.AbstractConfiguration;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 
@@ -79,7 +80,8 @@ public final class LoggerNameTreePanel extends JPanel implements LoggerNameListe
     private final Action clearRefineFocusAction;
     private final SmallToggleButton focusOnLoggerButton =
         new SmallToggleButton();
-    private final Set hiddenSet = new HashSet();
+    //changed on the EDT, read by the threads evaluating the visibility rule
+    private final Set<String> hiddenSet = ConcurrentHashMap.newKeySet();
     private final Action hideAction;
     private final Action hideSubLoggersAction;
     private final AbstractConfiguration m_panelConfig;
@@ -110,8 +112,8 @@ public final class LoggerNameTreePanel extends JPanel implements LoggerNameListe
     private final JToolBar toolbar = new JToolBar();
     private final LogPanel logPanel;
     private final RuleColorizer colorizer;
-    private Rule ignoreExpressionRule;
-    private Rule alwaysDisplayExpressionRule;
+    private volatile Rule ignoreExpressionRule;
+    private volatile Rule alwaysDisplayExpressionRule;
     private boolean expandRootLatch = false;
     private String currentlySelectedLoggerName;
 
@@ -474,9 +476,8 @@ public void setFocusOn(String newLogger) {
     }
 
     private boolean isHiddenLogger(String loggerName) {
-        for (Object aHiddenSet : hiddenSet) {
-            String hiddenLoggerEntry = aHiddenSet.toString();
-            if (loggerName.startsWith(hiddenLoggerEntry + ".") || loggerName.endsWith(hiddenLoggerEntry)) {
+        for (String hiddenLoggerEntry : hiddenSet) {
+            if (LoggerVisibilityChangeEvent.matches(hiddenLoggerEntry, loggerName)) {
                 return true;
             }
         }
@@ -490,13 +491,15 @@ private boolean isHiddenLogger(String loggerName) {
      * @param logger
      */
     protected void toggleHiddenLogger(String logger) {
-        if (!hiddenSet.contains(logger)) {
+        boolean hidden = !hiddenSet.contains(logger);
+        if (hidden) {
             hiddenSet.add(logger);
         } else {
             hiddenSet.remove(logger);
         }
 
-        visibilityRuleDelegate.firePropertyChange("hiddenSet", null, null);
+        //lets the models re-evaluate only the events of this logger
+        visibilityRuleDelegate.firePropertyChange(new LoggerVisibilityChangeEvent(visibilityRuleDelegate, logger, hidden));
     }
 
     /**
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import java.beans.PropertyChangeEvent;
+
+
+/**
+ * A "hiddenSet" change of the logger tree's visibility rule which hides or shows a single
+ * logger entry.  Only events whose logger is matched by that entry can change visibility,
+ * so containers may re-evaluate those instead of refiltering every event.
+ */
+public final class LoggerVisibilityChangeEvent extends PropertyChangeEvent {
+    private final String loggerName;
+    private final boolean hidden;
+
+    /**
+     * @param source     the visibility rule
+     * @param loggerName the entry added to or removed from the hidden set
+     * @param hidden     true if the entry was added, false if removed
+     */
+    public LoggerVisibilityChangeEvent(Object source, String loggerName, boolean hidden) {
+        super(source, "hiddenSet", null, null);
+        this.loggerName = loggerName;
+        this.hidden = hidden;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public boolean isHidden() {
+        return hidden;
+    }
+
+    /**
+     * @return true if events of the logger can change visibility with this change
+     */
+    public boolean affects(String logger) {
+        return matches(loggerName, logger);
+    }
+
+    /**
+     * @return true if a hidden set entry hides events of the logger
+     */
+    public static boolean matches(String hiddenLoggerEntry, String logger) {
+        return logger.startsWith(hiddenLoggerEntry + ".") || logger.endsWith(hiddenLoggerEntry);
+    }
+}
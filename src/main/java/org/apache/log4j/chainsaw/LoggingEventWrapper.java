@@ -16,53 +16,50 @@
  */
 package org.apache.log4j.chainsaw;
 
+import org.apache.log4j.chainsaw.color.RuleColorizer;
 import org.apache.log4j.helpers.Constants;
 import org.apache.log4j.rule.Rule;
 
 import java.awt.*;
-import java.time.Instant;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 
 /**
- * Wrap access to a LoggingEvent.  All property updates need to go through this object and not through the wrapped logging event,
- * since the properties are shared by two views of the same backing LoggingEvent, and loggingEvent itself creates a copy of passed-in properties..
+ * Wrap access to a LoggingEvent.  All property updates need to go through this object and not through the wrapped logging event.
+ * <p>
+ * One wrapper is shared by all the EventContainers an event is added to (the main and search tables of a tab), so it only holds
+ * state which is the same in every view: the colors and find rule matches, which come from the one RuleColorizer of the tab.
+ * Whether the event is displayed and its row heights differ per view and are kept by each container.
  * <p>
  * Property reads can be made on the actual LoggingEvent.
  */
 public class LoggingEventWrapper {
     private final ChainsawLoggingEvent loggingEvent;
-    private static final int DEFAULT_HEIGHT = -1;
 
     private Color colorRuleBackground = ChainsawConstants.COLOR_DEFAULT_BACKGROUND;
     private Color colorRuleForeground = ChainsawConstants.COLOR_DEFAULT_FOREGROUND;
-    private int markerHeight = DEFAULT_HEIGHT;
-    private int msgHeight = DEFAULT_HEIGHT;
+    //set once the color rules have been evaluated, so a second container adding this wrapper need not evaluate them again
+    private boolean colorized;
+    //the colors as computed by the colorizer, which knows the rules they came from, or null if set directly
+    private volatile RuleColorizer.Colors ruleColors;
 
     //set to the log4jid value via setId - assumed to never change
     private int id;
 
     private boolean searchMatch = false;
-    //a Map of event fields to Sets of string matches (can be used to render matches differently)
-    Map eventMatches = new HashMap();
-    private LoggingEventWrapper syncWrapper;
-    private boolean displayed;
+    //a Map of event fields to Sets of string matches (can be used to render matches differently), created on the first match
+    Map eventMatches = Collections.emptyMap();
+    //most events do not match, so the matches are collected in a reused map and only copied for those which do
+    private static final ThreadLocal<Map> SCRATCH_MATCHES = ThreadLocal.withInitial(HashMap::new);
 
     public LoggingEventWrapper(ChainsawLoggingEvent loggingEvent) {
         this.loggingEvent = loggingEvent;
     }
 
-    public LoggingEventWrapper(LoggingEventWrapper loggingEventWrapper) {
-        this.loggingEvent = loggingEventWrapper.getLoggingEvent();
-        this.id = loggingEventWrapper.id;
-        this.syncWrapper = loggingEventWrapper;
-        loggingEventWrapper.syncWrapper = this;
-    }
-
     public ChainsawLoggingEvent getLoggingEvent() {
         return loggingEvent;
     }
@@ -72,17 +69,10 @@ public void setProperty(String propName, String propValue) {
         if (id == 0 && propName.equals(Constants.LOG4J_ID_KEY)) {
             id = Integer.parseInt(propValue);
         }
-        if (syncWrapper != null && !propName.equals(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE)) {
-            syncWrapper.getLoggingEvent().setProperty(propName, propValue);
-        }
     }
 
     public Object removeProperty(String propName) {
-        Object result = loggingEvent.removeProperty(propName);
-        if (syncWrapper != null && !propName.equals(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE)) {
-            syncWrapper.getLoggingEvent().removeProperty(propName);
-        }
-        return result;
+        return loggingEvent.removeProperty(propName);
     }
 
     public Set getPropertyKeySet() {
@@ -90,26 +80,48 @@ public Set getPropertyKeySet() {
     }
 
     public void updateColorRuleColors(Color backgroundColor, Color foregroundColor) {
+        colorized = true;
+        ruleColors = null;
         if (backgroundColor != null && foregroundColor != null) {
             this.colorRuleBackground = backgroundColor;
             this.colorRuleForeground = foregroundColor;
-            if (syncWrapper != null) {
-                syncWrapper.colorRuleBackground = this.colorRuleBackground;
-                syncWrapper.colorRuleForeground = this.colorRuleForeground;
-            }
         } else {
             this.colorRuleBackground = ChainsawConstants.COLOR_DEFAULT_BACKGROUND;
             this.colorRuleForeground = ChainsawConstants.COLOR_DEFAULT_FOREGROUND;
-            if (syncWrapper != null) {
-                syncWrapper.colorRuleBackground = this.colorRuleBackground;
-                syncWrapper.colorRuleForeground = this.colorRuleForeground;
-            }
         }
     }
 
+    public void updateColorRuleColors(RuleColorizer.Colors colors) {
+        //the two color variant forgets the rule colors, so they are set after it
+        updateColorRuleColors(colors.getBackground(), colors.getForeground());
+        ruleColors = colors;
+    }
+
+    /**
+     * @return the colors last set through {@link #updateColorRuleColors(RuleColorizer.Colors)},
+     * or null if they were set directly
+     */
+    public RuleColorizer.Colors getRuleColors() {
+        return ruleColors;
+    }
+
+    /**
+     * @return true once {@link #updateColorRuleColors(Color, Color)} has been called
+     */
+    public boolean isColorized() {
+        return colorized;
+    }
+
     public void evaluateSearchRule(Rule searchRule) {
-        eventMatches.clear();
-        searchMatch = searchRule != null && searchRule.evaluate(loggingEvent, eventMatches);
+        if (searchRule == null) {
+            eventMatches = Collections.emptyMap();
+            searchMatch = false;
+            return;
+        }
+        Map matches = SCRATCH_MATCHES.get();
+        matches.clear();
+        searchMatch = searchRule.evaluate(loggingEvent, matches);
+        eventMatches = matches.isEmpty() ? Collections.emptyMap() : new HashMap(matches);
     }
 
     public Map getSearchMatches() {
@@ -136,38 +148,6 @@ public boolean isSearchMatch() {
         return searchMatch;
     }
 
-    public void setMarkerHeight(int markerHeight) {
-        this.markerHeight = markerHeight;
-    }
-
-    public int getMarkerHeight() {
-        return markerHeight;
-    }
-
-    public void setMsgHeight(int msgHeight) {
-        this.msgHeight = msgHeight;
-    }
-
-    public int getMsgHeight() {
-        return msgHeight;
-    }
-
-    public void setDisplayed(boolean b) {
-        markerHeight = DEFAULT_HEIGHT;
-        msgHeight = DEFAULT_HEIGHT;
-        displayed = b;
-    }
-
-    public void setPreviousDisplayedEventTimestamp(Instant previousDisplayedEventTimeStamp) {
-        long diffMs = ChronoUnit.MILLIS.between( previousDisplayedEventTimeStamp, loggingEvent.m_timestamp );
-        setProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE,
-                String.valueOf(diffMs));
-    }
-
-    public boolean isDisplayed() {
-        return displayed;
-    }
-
     public boolean equals(Object o) {
         if (this == o) {
             return true;
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import org.apache.log4j.chainsaw.helper.SwingHelper;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedString;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * The heights of wrapped texts of one table column, keyed by the text, for the column's
+ * current width.
+ * <p>
+ * Laying out a wrapped text pane to find its preferred height is the most expensive part
+ * of rendering a wrapped row, so the renderer looks the height up here instead.  A text
+ * seen for the first time is measured in the background with a LineBreakMeasurer, and the
+ * rows which asked for it are called back on the EDT with its height, so they can be
+ * resized without waiting for the table to be painted again.  The heights are discarded when the width or font changes, and are kept across refilters,
+ * as they only depend on the text.
+ * <p>
+ * Used on the EDT; the measuring tasks only touch the cache under its lock.
+ */
+final class RowHeightCache {
+    private static final int MAX_ENTRIES = 8192;
+
+    private final Map<String, Integer> heights = new LinkedHashMap<String, Integer>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    //the rows waiting for the height of each text being measured, at most one callback per row
+    private final Map<String, Map<Object, IntConsumer>> pending = new HashMap<>();
+    private int width = -1;
+    private Font font;
+    //incremented when the heights are discarded, so measurements made for the old width are too
+    private long generation;
+
+    /**
+     * @param text     text of the cell
+     * @param width    width the text is wrapped to, the column width less the cell's insets
+     * @param font     font of the text
+     * @param context  rendering context of the table
+     * @param row      key of the row asking, so a row painted again while its text is measured is only called back once
+     * @param measured called on the EDT with the height of the text, if it wasn't known
+     * @return height of the wrapped text, or -1 if it is being measured
+     */
+    synchronized int getHeight(String text, int width, Font font, FontRenderContext context, Object row, IntConsumer measured) {
+        if (width != this.width || !font.equals(this.font)) {
+            heights.clear();
+            pending.clear();
+            this.width = width;
+            this.font = font;
+            generation++;
+        }
+        Integer height = heights.get(text);
+        if (height != null) {
+            return height;
+        }
+        Map<Object, IntConsumer> waiting = pending.get(text);
+        if (waiting == null) {
+            waiting = new HashMap<>();
+            pending.put(text, waiting);
+            long measuredGeneration = generation;
+            ForkJoinPool.commonPool().execute(() -> {
+                int measuredHeight = measure(text, width, font, context);
+                Map<Object, IntConsumer> callbacks;
+                synchronized (this) {
+                    if (generation != measuredGeneration) {
+                        return;
+                    }
+                    callbacks = pending.remove(text);
+                    heights.put(text, measuredHeight);
+                }
+                SwingHelper.invokeOnEDT(() -> callbacks.values().forEach(callback -> callback.accept(measuredHeight)));
+            });
+        }
+        waiting.put(row, measured);
+        return -1;
+    }
+
+    private static int measure(String text, int width, Font font, FontRenderContext context) {
+        Map<TextAttribute, Font> attributes = Collections.singletonMap(TextAttribute.FONT, font);
+        float height = 0;
+        //each line of the text is a paragraph, wrapped on its own
+        for (String paragraph : text.split("\r\n|\r|\n", -1)) {
+            if (paragraph.isEmpty()) {
+                height += font.getLineMetrics(" ", context).getHeight();
+                continue;
+            }
+            LineBreakMeasurer lineMeasurer = new LineBreakMeasurer(new AttributedString(paragraph, attributes).getIterator(), context);
+            while (lineMeasurer.getPosition() < paragraph.length()) {
+                TextLayout layout = lineMeasurer.nextLayout(Math.max(1, width));
+                height += layout.getAscent() + layout.getDescent() + layout.getLeading();
+            }
+        }
+        return (int) Math.ceil(height);
+    }
+}
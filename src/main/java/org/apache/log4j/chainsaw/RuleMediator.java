@@ -37,9 +37,10 @@
  * @author Scott Deboy &lt;sdeboy@apache.org&gt;
  */
 public class RuleMediator extends AbstractRule {
-    private Rule loggerRule;
-    private Rule filterRule;
-    private Rule findRule;
+    //rules are replaced on the EDT and read by the threads evaluating events
+    private volatile Rule loggerRule;
+    private volatile Rule filterRule;
+    private volatile Rule findRule;
     private final PropertyChangeListener ruleChangerNotifier = new RuleChangerNotifier();
     private boolean findRuleRequired;
 
@@ -68,6 +69,18 @@ public boolean isFindRuleRequired() {
         return findRuleRequired;
     }
 
+    public Rule getLoggerRule() {
+        return loggerRule;
+    }
+
+    public Rule getFilterRule() {
+        return filterRule;
+    }
+
+    public Rule getFindRule() {
+        return findRule;
+    }
+
     public void setFilterRule(Rule r) {
         Rule oldFilterRule = this.filterRule;
         this.filterRule = r;
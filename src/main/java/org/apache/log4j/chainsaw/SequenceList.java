@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.chainsaw;
+
+import java.util.function.LongPredicate;
+
+/**
+ * The sequence numbers of the rows an EventContainer displays, in display order.
+ * <p>
+ * Kept in a long[] used as a ring, so rows can be dropped from the start without copying.
+ * While cyclic it holds at most maxSize entries, dropping the first to make room.
+ * Not thread safe.
+ */
+final class SequenceList {
+    private final int maxSize;
+    private boolean cyclic = true;
+    private long[] elements = new long[16];
+    private int head;
+    private int size;
+
+    SequenceList(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    void setCyclic(boolean cyclic) {
+        this.cyclic = cyclic;
+        while (cyclic && size > maxSize) {
+            removeFirst();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        int slot = head + index;
+        return elements[slot >= elements.length ? slot - elements.length : slot];
+    }
+
+    void add(long sequence) {
+        if (cyclic && size >= maxSize) {
+            removeFirst();
+        }
+        if (size == elements.length) {
+            long[] grown = new long[elements.length * 2];
+            int firstPart = Math.min(size, elements.length - head);
+            System.arraycopy(elements, head, grown, 0, firstPart);
+            System.arraycopy(elements, 0, grown, firstPart, size - firstPart);
+            elements = grown;
+            head = 0;
+        }
+        int slot = head + size;
+        elements[slot >= elements.length ? slot - elements.length : slot] = sequence;
+        size++;
+    }
+
+    private void removeFirst() {
+        head = head + 1 == elements.length ? 0 : head + 1;
+        size--;
+    }
+
+    /**
+     * Drops entries from the start of the list while they are lower than the sequence number.
+     */
+    void removeBefore(long sequence) {
+        while (size > 0 && get(0) < sequence) {
+            removeFirst();
+        }
+    }
+
+    void removeIf(LongPredicate predicate) {
+        long[] remaining = new long[Math.max(16, size)];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            long sequence = get(i);
+            if (!predicate.test(sequence)) {
+                remaining[count++] = sequence;
+            }
+        }
+        elements = remaining;
+        head = 0;
+        size = count;
+    }
+
+    int indexOf(long sequence) {
+        for (int i = 0; i < size; i++) {
+            if (get(i) == sequence) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    long[] toArray() {
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+}
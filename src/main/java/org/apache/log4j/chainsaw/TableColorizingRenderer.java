@@ -30,12 +30,14 @@
 import javax.swing.table.TableColumn;
 import javax.swing.text.*;
 import java.awt.*;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
@@ -52,13 +54,13 @@
  * @author Paul Smith &lt;psmith@apache.org&gt;
  */
 public class TableColorizingRenderer extends DefaultTableCellRenderer {
-    private static final DateFormat DATE_FORMATTER = new SimpleDateFormat(Constants.SIMPLE_TIME_PATTERN);
     private final Map<String, Icon> iconMap;
     private RuleColorizer colorizer;
     private boolean levelUseIcons = false;
     private boolean wrap = false;
     private boolean highlightSearchMatchText;
-    private DateFormat dateFormatInUse = DATE_FORMATTER;
+    private String dateFormatPattern = Constants.SIMPLE_TIME_PATTERN;
+    private CachedTimestampFormatter timestampFormatter = new CachedTimestampFormatter(dateFormatPattern, ZoneId.systemDefault());
     private int loggerPrecision = 0;
     private boolean toolTipsVisible;
     private String dateFormatTZ;
@@ -66,11 +68,22 @@ public class TableColorizingRenderer extends DefaultTableCellRenderer {
     private ZonedDateTime relativeTimestampBase;
 
     private static int borderWidth = ChainsawConstants.TABLE_BORDER_WIDTH;
+    //left indent of the text in every cell
+    private static final int TEXT_INDENT = 6;
 
     private final Color borderColor;
+    //the borders of a row without a millis delta gap, the same for every cell
+    private final Border leftBorder;
+    private final Border leftEmptyBorder;
+    private final Border rightBorder;
+    private final Border rightEmptyBorder;
+    private final Border middleBorder;
+    private final Border middleEmptyBorder;
 
     private final JTextPane levelTextPane = new JTextPane();
     private JTextPane singleLineTextPane = new JTextPane();
+    //renders the cells without highlighted search matches
+    private final PlainTextCell plainTextCell = new PlainTextCell();
 
     private final JPanel multiLinePanel = new JPanel(new BorderLayout());
     private final JPanel generalPanel = new JPanel(new BorderLayout());
@@ -79,7 +92,11 @@ public class TableColorizingRenderer extends DefaultTableCellRenderer {
     private JTextPane multiLineTextPane;
     private MutableAttributeSet boldAttributeSet;
     private TabSet tabs;
-    private int maxHeight;
+    //heights of the wrapped message and marker texts at the current column widths
+    private final RowHeightCache messageHeights = new RowHeightCache();
+    private final RowHeightCache markerHeights = new RowHeightCache();
+    //set while applying the stored row heights to the table is queued on the EDT
+    private boolean rowHeightsQueued;
     private boolean useRelativeTimesToPrevious;
     private EventContainer eventContainer;
     private LogPanelPreferenceModel logPanelPreferenceModel;
@@ -99,7 +116,6 @@ public TableColorizingRenderer(RuleColorizer colorizer, ApplicationPreferenceMod
         multiLinePanel.setLayout(new BoxLayout(multiLinePanel, BoxLayout.Y_AXIS));
         generalPanel.setLayout(new BoxLayout(generalPanel, BoxLayout.Y_AXIS));
         levelPanel.setLayout(new BoxLayout(levelPanel, BoxLayout.Y_AXIS));
-        maxHeight = Toolkit.getDefaultToolkit().getScreenSize().height;
 
         iconMap = new HashMap<>();
         try {
@@ -113,12 +129,18 @@ public TableColorizingRenderer(RuleColorizer colorizer, ApplicationPreferenceMod
         } else {
             borderColor = Color.BLUE;
         }
+        leftBorder = BorderFactory.createMatteBorder(borderWidth, borderWidth, borderWidth, 0, borderColor);
+        leftEmptyBorder = BorderFactory.createEmptyBorder(borderWidth, borderWidth, borderWidth, 0);
+        rightBorder = BorderFactory.createMatteBorder(borderWidth, 0, borderWidth, borderWidth, borderColor);
+        rightEmptyBorder = BorderFactory.createEmptyBorder(borderWidth, 0, borderWidth, borderWidth);
+        middleBorder = BorderFactory.createMatteBorder(borderWidth, 0, borderWidth, 0, borderColor);
+        middleEmptyBorder = BorderFactory.createEmptyBorder(borderWidth, 0, borderWidth, 0);
         //define the 'bold' attributeset
         boldAttributeSet = new SimpleAttributeSet();
         StyleConstants.setBold(boldAttributeSet, true);
 
         insetAttributeSet = new SimpleAttributeSet();
-        StyleConstants.setLeftIndent(insetAttributeSet, 6);
+        StyleConstants.setLeftIndent(insetAttributeSet, TEXT_INDENT);
         //throwable col may have a tab..if so, render the tab as col zero
         int pos = 0;
         int align = TabStop.ALIGN_LEFT;
@@ -155,7 +177,7 @@ public Component getTableCellRendererComponent(
         int row, int col) {
         EventContainer container = (EventContainer) table.getModel();
         LoggingEventWrapper loggingEventWrapper = container.getRow(row);
-        value = formatField(value, loggingEventWrapper);
+        value = formatField(value, container, row);
         TableColumn tableColumn = table.getColumnModel().getColumn(col);
         int width = tableColumn.getWidth();
         JLabel label = (JLabel) super.getTableCellRendererComponent(table, value,
@@ -180,24 +202,13 @@ public Component getTableCellRendererComponent(
         JComponent component;
         switch (colIndex) {
             case ChainsawColumns.INDEX_THROWABLE_COL_NAME:
-                if (value instanceof String[] && ((String[]) value).length > 0) {
-                    Style tabStyle = singleLineTextPane.getLogicalStyle();
-                    StyleConstants.setTabSet(tabStyle, tabs);
-                    //set the 1st tab at position 3
-                    singleLineTextPane.setLogicalStyle(tabStyle);
-                    //exception string is split into an array..just highlight the first line completely if anything in the exception matches if we have a match for the exception field
-                    Set exceptionMatches = (Set) matches.get(LoggingEventFieldResolver.EXCEPTION_FIELD);
-                    if (exceptionMatches != null && exceptionMatches.size() > 0) {
-                        singleLineTextPane.setText(((String[]) value)[0]);
-                        boldAll((StyledDocument) singleLineTextPane.getDocument());
-                    } else {
-                        singleLineTextPane.setText(((String[]) value)[0]);
-                    }
-                } else {
-                    singleLineTextPane.setText("");
-                }
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
+                Style tabStyle = singleLineTextPane.getLogicalStyle();
+                StyleConstants.setTabSet(tabStyle, tabs);
+                //set the 1st tab at position 3
+                singleLineTextPane.setLogicalStyle(tabStyle);
+                //exception string is split into an array..just highlight the first line completely if anything in the exception matches if we have a match for the exception field
+                String firstLine = value instanceof String[] && ((String[]) value).length > 0 ? ((String[]) value)[0] : "";
+                component = renderText(firstLine, matches.get(LoggingEventFieldResolver.EXCEPTION_FIELD), true, delta, isSelected, width, col, table);
                 break;
             case ChainsawColumns.INDEX_LOGGER_COL_NAME:
                 String logger = value.toString();
@@ -209,150 +220,115 @@ public Component getTableCellRendererComponent(
                         break;
                     }
                 }
-                singleLineTextPane.setText(logger.substring(startPos + 1));
-                setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.LOGGER_FIELD), (StyledDocument) singleLineTextPane.getDocument());
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
+                component = renderText(logger.substring(startPos + 1), matches.get(LoggingEventFieldResolver.LOGGER_FIELD), false, delta, isSelected, width, col, table);
                 break;
             case ChainsawColumns.INDEX_ID_COL_NAME:
-                singleLineTextPane.setText(value.toString());
-                setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.PROP_FIELD + "LOG4JID"), (StyledDocument) singleLineTextPane.getDocument());
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
+                component = renderText(value.toString(), matches.get(LoggingEventFieldResolver.PROP_FIELD + "LOG4JID"), false, delta, isSelected, width, col, table);
                 break;
             case ChainsawColumns.INDEX_CLASS_COL_NAME:
-                singleLineTextPane.setText(value.toString());
-                setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.CLASS_FIELD), (StyledDocument) singleLineTextPane.getDocument());
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
+                component = renderText(value.toString(), matches.get(LoggingEventFieldResolver.CLASS_FIELD), false, delta, isSelected, width, col, table);
                 break;
             case ChainsawColumns.INDEX_FILE_COL_NAME:
-                singleLineTextPane.setText(value.toString());
-                setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.FILE_FIELD), (StyledDocument) singleLineTextPane.getDocument());
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
+                component = renderText(value.toString(), matches.get(LoggingEventFieldResolver.FILE_FIELD), false, delta, isSelected, width, col, table);
                 break;
             case ChainsawColumns.INDEX_LINE_COL_NAME:
-                singleLineTextPane.setText(value.toString());
-                setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.LINE_FIELD), (StyledDocument) singleLineTextPane.getDocument());
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
+                component = renderText(value.toString(), matches.get(LoggingEventFieldResolver.LINE_FIELD), false, delta, isSelected, width, col, table);
                 break;
             case ChainsawColumns.INDEX_NDC_COL_NAME:
-                singleLineTextPane.setText(value.toString());
-                setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.NDC_FIELD), (StyledDocument) singleLineTextPane.getDocument());
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
+                component = renderText(value.toString(), matches.get(LoggingEventFieldResolver.NDC_FIELD), false, delta, isSelected, width, col, table);
                 break;
             case ChainsawColumns.INDEX_THREAD_COL_NAME:
-                singleLineTextPane.setText(value.toString());
-                setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.THREAD_FIELD), (StyledDocument) singleLineTextPane.getDocument());
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
+                component = renderText(value.toString(), matches.get(LoggingEventFieldResolver.THREAD_FIELD), false, delta, isSelected, width, col, table);
                 break;
             case ChainsawColumns.INDEX_TIMESTAMP_COL_NAME:
                 //timestamp matches contain the millis..not the display text..just highlight if we have a match for the timestamp field
-                Set timestampMatches = (Set) matches.get(LoggingEventFieldResolver.TIMESTAMP_FIELD);
-                if (timestampMatches != null && timestampMatches.size() > 0) {
-                    singleLineTextPane.setText(value.toString());
-                    boldAll((StyledDocument) singleLineTextPane.getDocument());
-                } else {
-                    singleLineTextPane.setText(value.toString());
-                }
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
+                component = renderText(value.toString(), matches.get(LoggingEventFieldResolver.TIMESTAMP_FIELD), true, delta, isSelected, width, col, table);
                 break;
             case ChainsawColumns.INDEX_METHOD_COL_NAME:
-                singleLineTextPane.setText(value.toString());
-                setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.METHOD_FIELD), (StyledDocument) singleLineTextPane.getDocument());
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
+                component = renderText(value.toString(), matches.get(LoggingEventFieldResolver.METHOD_FIELD), false, delta, isSelected, width, col, table);
                 break;
             case ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME:
             case ChainsawColumns.INDEX_MESSAGE_COL_NAME:
                 String thisString = value.toString().trim();
-                JTextPane textPane = wrap ? multiLineTextPane : singleLineTextPane;
-                JComponent textPaneContainer = wrap ? multiLinePanel : generalPanel;
-                textPane.setText(thisString);
-
+                Object messageMatches;
                 if (colIndex == ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME) {
                     //property keys are set as all uppercase
-                    setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.PROP_FIELD + ChainsawConstants.LOG4J_MARKER_COL_NAME_LOWERCASE.toUpperCase()), (StyledDocument) textPane.getDocument());
+                    messageMatches = matches.get(LoggingEventFieldResolver.PROP_FIELD + ChainsawConstants.LOG4J_MARKER_COL_NAME_LOWERCASE.toUpperCase());
                 } else {
-                    setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.MSG_FIELD), (StyledDocument) textPane.getDocument());
+                    messageMatches = matches.get(LoggingEventFieldResolver.MSG_FIELD);
                 }
-                textPaneContainer.removeAll();
-                if (delta > 0 && logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
-                    JPanel newPanel = new JPanel();
-                    newPanel.setOpaque(true);
-                    newPanel.setBackground(applicationPreferenceModel.getDeltaColor());
-                    newPanel.setPreferredSize(new Dimension(width, (int) delta));
-                    textPaneContainer.add(newPanel, BorderLayout.NORTH);
-                }
-                textPaneContainer.add(textPane, BorderLayout.SOUTH);
-
-                if (delta == 0 || !logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
-                    if (col == 0) {
-                        textPane.setBorder(getLeftBorder(isSelected, delta));
-                    } else if (col == table.getColumnCount() - 1) {
-                        textPane.setBorder(getRightBorder(isSelected, delta));
-                    } else {
-                        textPane.setBorder(getMiddleBorder(isSelected, delta));
-                    }
+                int newRowHeight = ChainsawConstants.DEFAULT_ROW_HEIGHT;
+                if (!wrap && isPlain(thisString, messageMatches, false, delta)) {
+                    component = renderPlainText(thisString, delta, isSelected, col, table);
                 } else {
-                    if (col == 0) {
-                        textPane.setBorder(getLeftBorder(isSelected, 0));
-                    } else if (col == table.getColumnCount() - 1) {
-                        textPane.setBorder(getRightBorder(isSelected, 0));
-                    } else {
-                        textPane.setBorder(getMiddleBorder(isSelected, 0));
+                    JTextPane textPane = wrap ? multiLineTextPane : singleLineTextPane;
+                    JComponent textPaneContainer = wrap ? multiLinePanel : generalPanel;
+                    textPane.setText(thisString);
+                    setHighlightAttributesInternal(messageMatches, (StyledDocument) textPane.getDocument());
+                    textPaneContainer.removeAll();
+                    if (delta > 0 && logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
+                        JPanel newPanel = new JPanel();
+                        newPanel.setOpaque(true);
+                        newPanel.setBackground(applicationPreferenceModel.getDeltaColor());
+                        newPanel.setPreferredSize(new Dimension(width, (int) delta));
+                        textPaneContainer.add(newPanel, BorderLayout.NORTH);
                     }
-                }
-                int currentMarkerHeight = loggingEventWrapper.getMarkerHeight();
-                int currentMsgHeight = loggingEventWrapper.getMsgHeight();
-                int newRowHeight = ChainsawConstants.DEFAULT_ROW_HEIGHT;
-                boolean setHeight = false;
-
-                if (wrap) {
-            /*
-            calculating the height -would- be the correct thing to do, but setting the size to screen size works as well and
-            doesn't incur massive overhead, like calculateHeight does
-            Map paramMap = new HashMap();
-            paramMap.put(TextAttribute.FONT, multiLineTextPane.getFont());
-
-            int calculatedHeight = calculateHeight(thisString, width, paramMap);
-             */
-                    //instead, set size to max height
-                    textPane.setSize(new Dimension(width, maxHeight));
-                    int multiLinePanelPrefHeight = textPaneContainer.getPreferredSize().height;
-                    newRowHeight = Math.max(ChainsawConstants.DEFAULT_ROW_HEIGHT, multiLinePanelPrefHeight);
+                    textPaneContainer.add(textPane, BorderLayout.SOUTH);
 
-                }
-                if (!wrap && logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
-                    textPane.setSize(new Dimension(Integer.MAX_VALUE, ChainsawConstants.DEFAULT_ROW_HEIGHT));
-                    newRowHeight = (int) (ChainsawConstants.DEFAULT_ROW_HEIGHT + delta);
-                }
+                    if (delta == 0 || !logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
+                        textPane.setBorder(getBorder(isSelected, delta, col, table));
+                    } else {
+                        textPane.setBorder(getBorder(isSelected, 0, col, table));
+                    }
 
-                if (colIndex == ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME) {
-                    loggingEventWrapper.setMarkerHeight(newRowHeight);
-                    if (newRowHeight != currentMarkerHeight && newRowHeight >= loggingEventWrapper.getMsgHeight()) {
-                        setHeight = true;
+                    if (wrap) {
+                        //laying the text pane out for its preferred height is too slow to do for every cell painted,
+                        //the height of the text is measured in the background the first time it is shown at this width
+                        RowHeightCache heights = colIndex == ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME ? markerHeights : messageHeights;
+                        Insets insets = textPane.getInsets();
+                        Font font = textPane.getFont();
+                        int gapHeight = delta > 0 && logPanelPreferenceModel.isShowMillisDeltaAsGap() ? (int) delta : 0;
+                        int otherHeight = gapHeight + insets.top + insets.bottom;
+                        boolean marker = colIndex == ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME;
+                        int textHeight = heights.getHeight(thisString, width - insets.left - insets.right - TEXT_INDENT,
+                            font, table.getFontMetrics(font).getFontRenderContext(), loggingEventWrapper,
+                            measuredHeight -> setMeasuredRowHeight(table, row, loggingEventWrapper, marker,
+                                Math.max(ChainsawConstants.DEFAULT_ROW_HEIGHT, otherHeight + measuredHeight)));
+                        if (textHeight >= 0) {
+                            newRowHeight = Math.max(ChainsawConstants.DEFAULT_ROW_HEIGHT, otherHeight + textHeight);
+                        } else {
+                            //keep the height last computed for the row until the text is measured
+                            int lastHeight = colIndex == ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME ? container.getMarkerHeight(row) : container.getMsgHeight(row);
+                            newRowHeight = Math.max(ChainsawConstants.DEFAULT_ROW_HEIGHT, lastHeight);
+                        }
                     }
+                    if (!wrap && logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
+                        textPane.setSize(new Dimension(Integer.MAX_VALUE, ChainsawConstants.DEFAULT_ROW_HEIGHT));
+                        newRowHeight = (int) (ChainsawConstants.DEFAULT_ROW_HEIGHT + delta);
+                    }
+                    component = textPaneContainer;
                 }
 
-                if (colIndex == ChainsawColumns.INDEX_MESSAGE_COL_NAME) {
-                    loggingEventWrapper.setMsgHeight(newRowHeight);
-                    if (newRowHeight != currentMsgHeight && newRowHeight >= loggingEventWrapper.getMarkerHeight()) {
-                        setHeight = true;
-                    }
+                if (colIndex == ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME) {
+                    container.setMarkerHeight(row, newRowHeight);
+                } else {
+                    container.setMsgHeight(row, newRowHeight);
                 }
-                if (setHeight) {
-                    table.setRowHeight(row, newRowHeight);
+                //the table resets its row heights when rows are inserted or refiltered, so compare with its height,
+                //not the one last stored for the row.  Resizing a row while painting it would lay the table out
+                //again in the middle of the paint, so the heights are applied once it is done
+                int rowHeight = Math.max(container.getMsgHeight(row), container.getMarkerHeight(row));
+                if (rowHeight > 0 && table.getRowHeight(row) != rowHeight) {
+                    queueRowHeights(table);
                 }
-
-                component = textPaneContainer;
                 break;
             case ChainsawColumns.INDEX_LEVEL_COL_NAME:
+                Object levelMatches = matches.get(LoggingEventFieldResolver.LEVEL_FIELD);
+                if (!levelUseIcons && isPlain(value.toString(), levelMatches, false, delta)) {
+                    component = renderPlainText(value.toString(), delta, isSelected, col, table);
+                    component.setToolTipText(toolTipsVisible ? label.getToolTipText() : null);
+                    break;
+                }
                 if (levelUseIcons) {
                     levelTextPane.setText("");
                     levelTextPane.insertIcon(iconMap.get(value.toString()));
@@ -361,7 +337,7 @@ public Component getTableCellRendererComponent(
                     }
                 } else {
                     levelTextPane.setText(value.toString());
-                    setHighlightAttributesInternal(matches.get(LoggingEventFieldResolver.LEVEL_FIELD), (StyledDocument) levelTextPane.getDocument());
+                    setHighlightAttributesInternal(levelMatches, (StyledDocument) levelTextPane.getDocument());
                     if (!toolTipsVisible) {
                         levelTextPane.setToolTipText(null);
                     }
@@ -390,14 +366,10 @@ public Component getTableCellRendererComponent(
                 }
                 if (thisProp != null) {
                     String propKey = LoggingEventFieldResolver.PROP_FIELD + thisProp.toUpperCase();
-                    Set propKeyMatches = (Set) matches.get(propKey);
-                    singleLineTextPane.setText(loggingEventWrapper.getLoggingEvent().getProperty(thisProp));
-                    setHighlightAttributesInternal(propKeyMatches, (StyledDocument) singleLineTextPane.getDocument());
+                    component = renderText(loggingEventWrapper.getLoggingEvent().getProperty(thisProp), matches.get(propKey), false, delta, isSelected, width, col, table);
                 } else {
-                    singleLineTextPane.setText("");
+                    component = renderText("", null, false, delta, isSelected, width, col, table);
                 }
-                layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
-                component = generalPanel;
                 break;
         }
 
@@ -431,49 +403,110 @@ public Component getTableCellRendererComponent(
         component.setForeground(foreground);
 
         //update the background & foreground of the jtextpane using styles
-        if (multiLineTextPane != null) {
-            updateColors(multiLineTextPane, background, foreground);
+        if (component != plainTextCell) {
+            if (multiLineTextPane != null) {
+                updateColors(multiLineTextPane, background, foreground);
+            }
+            updateColors(levelTextPane, background, foreground);
+            updateColors(singleLineTextPane, background, foreground);
         }
-        updateColors(levelTextPane, background, foreground);
-        updateColors(singleLineTextPane, background, foreground);
 
         return component;
     }
 
+    /**
+     * Renders a single line of text, through the plain text cell unless it has to be styled.
+     *
+     * @param matchSet the search matches of the field the text shows
+     * @param boldAll  whether any match highlights the whole text
+     */
+    private JComponent renderText(String text, Object matchSet, boolean boldAll, long delta, boolean isSelected,
+                                  int width, int col, JTable table) {
+        if (isPlain(text, matchSet, boldAll, delta)) {
+            return renderPlainText(text, delta, isSelected, col, table);
+        }
+        singleLineTextPane.setText(text);
+        if (boldAll) {
+            if (matchSet instanceof Set && !((Set) matchSet).isEmpty()) {
+                boldAll((StyledDocument) singleLineTextPane.getDocument());
+            }
+        } else {
+            setHighlightAttributesInternal(matchSet, (StyledDocument) singleLineTextPane.getDocument());
+        }
+        layoutRenderingPanel(generalPanel, singleLineTextPane, delta, isSelected, width, col, table);
+        return generalPanel;
+    }
+
+    private JComponent renderPlainText(String text, long delta, boolean isSelected, int col, JTable table) {
+        plainTextCell.setText(text);
+        plainTextCell.setFont(singleLineTextPane.getFont());
+        plainTextCell.setToolTipText(null);
+        plainTextCell.setBorder(getBorder(isSelected, delta, col, table));
+        return plainTextCell;
+    }
+
+    /**
+     * @return true if the text can be painted by the plain text cell: it has no highlighted
+     * search matches, no tabs or line breaks and no characters needing complex text layout,
+     * and no millis delta gap is drawn above it
+     */
+    private boolean isPlain(String text, Object matchSet, boolean boldAll, long delta) {
+        if (highlightSearchMatchText && matchSet instanceof Set && !((Set) matchSet).isEmpty()) {
+            if (boldAll) {
+                return false;
+            }
+            //highlighting only changes the text if a match occurs in it
+            String lowerText = text.toLowerCase();
+            for (Object match : (Set) matchSet) {
+                if (lowerText.contains(match.toString().toLowerCase())) {
+                    return false;
+                }
+            }
+        }
+        if (delta > 0 && logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
+            return false;
+        }
+        boolean complex = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\t' || c == '\n' || c == '\r') {
+                return false;
+            }
+            //combining marks and the scripts needing shaping start at U+0300
+            complex |= c >= '\u0300';
+        }
+        return !complex || !Font.textRequiresLayout(text.toCharArray(), 0, text.length());
+    }
+
     private void layoutRenderingPanel(JComponent container, JComponent bottomComponent, long delta, boolean isSelected,
                                       int width, int col, JTable table) {
         container.removeAll();
         if (delta == 0 || !logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
-            if (col == 0) {
-                bottomComponent.setBorder(getLeftBorder(isSelected, delta));
-            } else if (col == table.getColumnCount() - 1) {
-                bottomComponent.setBorder(getRightBorder(isSelected, delta));
-            } else {
-                bottomComponent.setBorder(getMiddleBorder(isSelected, delta));
-            }
+            bottomComponent.setBorder(getBorder(isSelected, delta, col, table));
         } else {
             JPanel newPanel = new JPanel();
             newPanel.setOpaque(true);
             newPanel.setBackground(applicationPreferenceModel.getDeltaColor());
             newPanel.setPreferredSize(new Dimension(width, (int) delta));
             container.add(newPanel, BorderLayout.NORTH);
-            if (col == 0) {
-                bottomComponent.setBorder(getLeftBorder(isSelected, 0));
-            } else if (col == table.getColumnCount() - 1) {
-                bottomComponent.setBorder(getRightBorder(isSelected, 0));
-            } else {
-                bottomComponent.setBorder(getMiddleBorder(isSelected, 0));
-            }
+            bottomComponent.setBorder(getBorder(isSelected, 0, col, table));
         }
 
         container.add(bottomComponent, BorderLayout.SOUTH);
     }
 
-    private Border getLeftBorder(boolean isSelected, long delta) {
-        Border LEFT_BORDER = BorderFactory.createMatteBorder(borderWidth, borderWidth, borderWidth, 0, borderColor);
-        Border LEFT_EMPTY_BORDER = BorderFactory.createEmptyBorder(borderWidth, borderWidth, borderWidth, 0);
+    private Border getBorder(boolean isSelected, long delta, int col, JTable table) {
+        if (col == 0) {
+            return getLeftBorder(isSelected, delta);
+        } else if (col == table.getColumnCount() - 1) {
+            return getRightBorder(isSelected, delta);
+        } else {
+            return getMiddleBorder(isSelected, delta);
+        }
+    }
 
-        Border innerBorder = isSelected ? LEFT_BORDER : LEFT_EMPTY_BORDER;
+    private Border getLeftBorder(boolean isSelected, long delta) {
+        Border innerBorder = isSelected ? leftBorder : leftEmptyBorder;
         if (delta == 0 || !wrap || !logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
             return innerBorder;
         } else {
@@ -483,9 +516,7 @@ private Border getLeftBorder(boolean isSelected, long delta) {
     }
 
     private Border getRightBorder(boolean isSelected, long delta) {
-        Border RIGHT_BORDER = BorderFactory.createMatteBorder(borderWidth, 0, borderWidth, borderWidth, borderColor);
-        Border RIGHT_EMPTY_BORDER = BorderFactory.createEmptyBorder(borderWidth, 0, borderWidth, borderWidth);
-        Border innerBorder = isSelected ? RIGHT_BORDER : RIGHT_EMPTY_BORDER;
+        Border innerBorder = isSelected ? rightBorder : rightEmptyBorder;
         if (delta == 0 || !wrap || !logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
             return innerBorder;
         } else {
@@ -495,9 +526,7 @@ private Border getRightBorder(boolean isSelected, long delta) {
     }
 
     private Border getMiddleBorder(boolean isSelected, long delta) {
-        Border MIDDLE_BORDER = BorderFactory.createMatteBorder(borderWidth, 0, borderWidth, 0, borderColor);
-        Border MIDDLE_EMPTY_BORDER = BorderFactory.createEmptyBorder(borderWidth, 0, borderWidth, 0);
-        Border innerBorder = isSelected ? MIDDLE_BORDER : MIDDLE_EMPTY_BORDER;
+        Border innerBorder = isSelected ? middleBorder : middleEmptyBorder;
         if (delta == 0 || !wrap || !logPanelPreferenceModel.isShowMillisDeltaAsGap()) {
             return innerBorder;
         } else {
@@ -515,17 +544,21 @@ private void updateColors(JTextPane textPane, Color background, Color foreground
     }
 
     /**
-     * Changes the Date Formatting object to be used for rendering dates.
+     * Changes the pattern used for rendering dates.
      *
-     * @param formatter
+     * @param pattern DateTimeFormatter pattern
+     * @throws IllegalArgumentException if the pattern is invalid
      */
-    public void setDateFormatter(DateFormat formatter) {
-        this.dateFormatInUse = formatter;
-        if (dateFormatInUse != null && dateFormatTZ != null && !("".equals(dateFormatTZ))) {
-            dateFormatInUse.setTimeZone(TimeZone.getTimeZone(dateFormatTZ));
-        } else {
-            dateFormatInUse.setTimeZone(TimeZone.getDefault());
+    public void setDateFormatPattern(String pattern) {
+        timestampFormatter = new CachedTimestampFormatter(pattern, getZone());
+        dateFormatPattern = pattern;
+    }
+
+    private ZoneId getZone() {
+        if (dateFormatTZ != null && !("".equals(dateFormatTZ))) {
+            return TimeZone.getTimeZone(dateFormatTZ).toZoneId();
         }
+        return ZoneId.systemDefault();
     }
 
     /**
@@ -547,21 +580,75 @@ public void setLoggerPrecision(String loggerPrecisionText) {
      * @param field object
      * @return formatted object
      */
-    private Object formatField(Object field, LoggingEventWrapper loggingEventWrapper) {
-        if (!(field instanceof ZonedDateTime)) {
+    /**
+     * Stores the height of a row whose wrapped text has been measured, and resizes the row,
+     * unless the table has moved the event to another row since.  Called on the EDT.
+     */
+    private void setMeasuredRowHeight(JTable table, int row, LoggingEventWrapper loggingEventWrapper, boolean marker, int height) {
+        EventContainer container = (EventContainer) table.getModel();
+        if (row >= container.getRowCount() || container.getRow(row) != loggingEventWrapper) {
+            //painted again at its new row, where the height is known now
+            table.repaint();
+            return;
+        }
+        if (marker) {
+            container.setMarkerHeight(row, height);
+        } else {
+            container.setMsgHeight(row, height);
+        }
+        int rowHeight = Math.max(container.getMsgHeight(row), container.getMarkerHeight(row));
+        if (table.getRowHeight(row) != rowHeight) {
+            table.setRowHeight(row, rowHeight);
+        }
+    }
+
+    /**
+     * Applies the row heights stored for the rows on screen to the table, once the table is painted.
+     */
+    private void queueRowHeights(JTable table) {
+        if (rowHeightsQueued) {
+            return;
+        }
+        rowHeightsQueued = true;
+        SwingUtilities.invokeLater(() -> {
+            rowHeightsQueued = false;
+            EventContainer container = (EventContainer) table.getModel();
+            Rectangle visible = table.getVisibleRect();
+            int firstRow = table.rowAtPoint(new Point(0, visible.y));
+            int lastRow = table.rowAtPoint(new Point(0, visible.y + visible.height - 1));
+            if (firstRow < 0) {
+                return;
+            }
+            if (lastRow < 0) {
+                lastRow = table.getRowCount() - 1;
+            }
+            for (int row = firstRow; row <= lastRow && row < container.getRowCount(); row++) {
+                int rowHeight = Math.max(container.getMsgHeight(row), container.getMarkerHeight(row));
+                if (rowHeight > 0 && table.getRowHeight(row) != rowHeight) {
+                    table.setRowHeight(row, rowHeight);
+                }
+            }
+        });
+    }
+
+    private Object formatField(Object field, EventContainer container, int row) {
+        if (field instanceof ZonedDateTime) {
+            field = ((ZonedDateTime) field).toInstant();
+        }
+        if (!(field instanceof Instant)) {
             return (field == null ? "" : field);
         }
 
         //handle date field
+        Instant timestamp = (Instant) field;
         if (useRelativeTimesToFixedTime) {
-            ZonedDateTime dt = (ZonedDateTime)field;
-            return "" + ChronoUnit.MILLIS.between(dt, relativeTimestampBase);
+            return "" + ChronoUnit.MILLIS.between(timestamp, relativeTimestampBase.toInstant());
         }
         if (useRelativeTimesToPrevious) {
-            return loggingEventWrapper.getLoggingEvent().getProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE);
+            return String.valueOf(container.getMillisDelta(row));
         }
 
-        return ((ZonedDateTime)field).format(DateTimeFormatter.ISO_DATE);
+        return timestampFormatter.format(timestamp);
     }
 
     /**
@@ -585,12 +672,7 @@ public void setLevelUseIcons(boolean levelUseIcons) {
 
     public void setTimeZone(String dateFormatTZ) {
         this.dateFormatTZ = dateFormatTZ;
-
-        if (dateFormatInUse != null && dateFormatTZ != null && !("".equals(dateFormatTZ))) {
-            dateFormatInUse.setTimeZone(TimeZone.getTimeZone(dateFormatTZ));
-        } else {
-            dateFormatInUse.setTimeZone(TimeZone.getDefault());
-        }
+        timestampFormatter = new CachedTimestampFormatter(dateFormatPattern, getZone());
     }
 
     public void setUseRelativeTimes(ZonedDateTime timeStamp) {
@@ -613,25 +695,6 @@ public void setUseNormalTimes() {
         useRelativeTimesToPrevious = false;
     }
 
-  /*
-   private int calculateHeight(String string, int width, Map paramMap) {
-     if (string.trim().length() == 0) {
-         return ChainsawConstants.DEFAULT_ROW_HEIGHT;
-     }
-     AttributedCharacterIterator paragraph = new AttributedString(string, paramMap).getIterator();
-     LineBreakMeasurer lineMeasurer = new LineBreakMeasurer(paragraph, new FontRenderContext(null, true, true));
-     float height = 0;
-     lineMeasurer.setPosition(paragraph.getBeginIndex());
-     TextLayout layout;
-     while (lineMeasurer.getPosition() < paragraph.getEndIndex()) {
-       layout = lineMeasurer.nextLayout(width);
-         float layoutHeight = layout.getAscent() + layout.getDescent() + layout.getLeading();
-         height += layoutHeight;
-     }
-     return Math.max(ChainsawConstants.DEFAULT_ROW_HEIGHT, (int) height);
-    }
-    */
-
     private void setHighlightAttributesInternal(Object matchSet, StyledDocument styledDocument) {
         if (!highlightSearchMatchText) {
             return;
@@ -715,4 +778,57 @@ public int getFlowSpan(int index) {
             return Integer.MAX_VALUE;
         }
     }
+
+    /**
+     * Paints a single line of unstyled text, left aligned with the text of the styled cells.
+     * The glyphs of recently painted strings are cached, so scrolling back over rows doesn't
+     * lay their text out again.
+     */
+    private static final class PlainTextCell extends JComponent {
+        private static final int GLYPH_CACHE_SIZE = 4096;
+
+        private final Map<String, GlyphVector> glyphCache = new LinkedHashMap<String, GlyphVector>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GlyphVector> eldest) {
+                return size() > GLYPH_CACHE_SIZE;
+            }
+        };
+        private Font cachedFont;
+        private FontRenderContext cachedContext;
+        private String text = "";
+
+        private PlainTextCell() {
+            setOpaque(true);
+        }
+
+        private void setText(String text) {
+            this.text = text == null ? "" : text;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            if (text.isEmpty()) {
+                return;
+            }
+            Graphics2D g2 = (Graphics2D) g;
+            //antialias the text the way the look and feel does
+            Object desktopHints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+            if (desktopHints instanceof Map) {
+                g2.addRenderingHints((Map<?, ?>) desktopHints);
+            }
+            Font font = getFont();
+            FontRenderContext context = g2.getFontRenderContext();
+            if (!font.equals(cachedFont) || !context.equals(cachedContext)) {
+                glyphCache.clear();
+                cachedFont = font;
+                cachedContext = context;
+            }
+            GlyphVector glyphs = glyphCache.computeIfAbsent(text, key -> font.createGlyphVector(context, key));
+            Insets insets = getInsets();
+            g2.setColor(getForeground());
+            g2.drawGlyphVector(glyphs, insets.left + TEXT_INDENT, insets.top + g2.getFontMetrics(font).getAscent());
+        }
+    }
 }
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import org.apache.log4j.rule.AndRule;
+import org.apache.log4j.rule.ExpressionRule;
+import org.apache.log4j.rule.OrRule;
+import org.apache.log4j.rule.Rule;
+import org.apache.log4j.rule.TimestampEqualsRule;
+import org.apache.log4j.rule.TimestampInequalityRule;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * The timestamps of an EventContainer's events in time order, each with the event's sequence
+ * number, so the events in a time range can be found by binary search.
+ * <p>
+ * Kept in two parallel long[]s sorted by timestamp.  Events mostly arrive in time order and are
+ * appended, a late event is inserted by moving the entries after it.  Entries of events which
+ * have left the container are dropped from the start as new events are added; those left behind
+ * by late events are dropped once they make up half of the entries.  Events without a timestamp
+ * are not indexed.
+ * Not thread safe, used under the owning container's lock.
+ */
+final class TimestampIndex {
+    private long[] timestamps = new long[1024];
+    private long[] sequences = new long[1024];
+    //the entries are held in [start, end)
+    private int start;
+    private int end;
+
+    /**
+     * @param firstSequence sequence number of the oldest event still in the container
+     */
+    void add(long timestamp, long sequence, long firstSequence) {
+        while (start < end && sequences[start] < firstSequence) {
+            start++;
+        }
+        long live = sequence - firstSequence + 1;
+        if (end - start > 2 * live) {
+            compact(firstSequence, timestamps.length);
+        }
+        if (end == timestamps.length) {
+            compact(firstSequence, end - start >= timestamps.length / 2 ? timestamps.length * 2 : timestamps.length);
+        }
+        int position = end;
+        if (position > start && timestamps[position - 1] > timestamp) {
+            //late, goes after the entries with the same timestamp
+            position = lowerBound(timestamp + 1);
+            System.arraycopy(timestamps, position, timestamps, position + 1, end - position);
+            System.arraycopy(sequences, position, sequences, position + 1, end - position);
+        }
+        timestamps[position] = timestamp;
+        sequences[position] = sequence;
+        end++;
+    }
+
+    /**
+     * Moves the entries of events still in the container to the start of arrays of the capacity.
+     */
+    private void compact(long firstSequence, int capacity) {
+        long[] newTimestamps = capacity == timestamps.length ? timestamps : new long[capacity];
+        long[] newSequences = capacity == sequences.length ? sequences : new long[capacity];
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (sequences[i] >= firstSequence) {
+                newTimestamps[count] = timestamps[i];
+                newSequences[count] = sequences[i];
+                count++;
+            }
+        }
+        timestamps = newTimestamps;
+        sequences = newSequences;
+        start = 0;
+        end = count;
+    }
+
+    void clear() {
+        start = 0;
+        end = 0;
+    }
+
+    /**
+     * @return the index of the first entry with a timestamp not lower than the timestamp
+     */
+    private int lowerBound(long timestamp) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param from          lowest timestamp included, in epoch milliseconds
+     * @param to            lowest timestamp excluded
+     * @param firstSequence sequence number of the oldest event still in the container
+     * @return the sequence numbers of the events in the range, ascending, or null if the range
+     * holds most of the events, so they are better scanned in order than sorted
+     */
+    long[] getSequences(long from, long to, long firstSequence) {
+        int low = lowerBound(from);
+        int high = to == Long.MAX_VALUE ? end : lowerBound(to);
+        if (high - low > (end - start) / 2) {
+            return null;
+        }
+        long[] result = new long[Math.max(high - low, 0)];
+        int count = 0;
+        for (int i = low; i < high; i++) {
+            if (sequences[i] >= firstSequence) {
+                result[count++] = sequences[i];
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * @param firstSequence sequence number of the oldest event still in the container
+     * @param accepted      which events can be returned
+     * @return the sequence number of the first accepted event in time order at or after the
+     * timestamp, or -1 if there is none
+     */
+    long find(long timestamp, long firstSequence, LongPredicate accepted) {
+        for (int i = lowerBound(timestamp); i < end; i++) {
+            if (sequences[i] >= firstSequence && accepted.test(sequences[i])) {
+                return sequences[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the timestamps an event can have if the rule matches it, from the timestamp rules
+     * the rule is built of.
+     *
+     * @return the lowest timestamp included and the lowest excluded, or null if the rule
+     * does not limit the timestamps
+     */
+    static long[] getTimeRange(Rule rule) {
+        if (rule instanceof RuleMediator) {
+            RuleMediator ruleMediator = (RuleMediator) rule;
+            long[] range = getTimeRange(ruleMediator.getFilterRule());
+            if (ruleMediator.isFindRuleRequired()) {
+                range = intersect(range, getTimeRange(ruleMediator.getFindRule()));
+            }
+            return range;
+        }
+        if (rule instanceof ExpressionRule) {
+            return getTimeRange(((ExpressionRule) rule).getCompiledRule());
+        }
+        if (rule instanceof AndRule) {
+            return intersect(getTimeRange(((AndRule) rule).getFirstRule()), getTimeRange(((AndRule) rule).getSecondRule()));
+        }
+        if (rule instanceof OrRule) {
+            long[] first = getTimeRange(((OrRule) rule).getFirstRule());
+            long[] second = getTimeRange(((OrRule) rule).getSecondRule());
+            if (first == null || second == null) {
+                return null;
+            }
+            return new long[]{Math.min(first[0], second[0]), Math.max(first[1], second[1])};
+        }
+        if (rule instanceof TimestampEqualsRule) {
+            long timeStamp = ((TimestampEqualsRule) rule).getTimeStamp();
+            return widen(timeStamp, timeStamp + 1000);
+        }
+        if (rule instanceof TimestampInequalityRule) {
+            TimestampInequalityRule inequalityRule = (TimestampInequalityRule) rule;
+            long timeStamp = inequalityRule.getTimeStamp();
+            switch (String.valueOf(inequalityRule.getInequalitySymbol())) {
+                case "<":
+                    return widen(Long.MIN_VALUE, timeStamp);
+                case "<=":
+                    return widen(Long.MIN_VALUE, timeStamp + 1000);
+                case ">":
+                    return widen(timeStamp + 1000, Long.MAX_VALUE);
+                case ">=":
+                    return widen(timeStamp, Long.MAX_VALUE);
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The rules compare event timestamps truncated to the second, widening the range by a
+     * second keeps every event they can match in it.
+     */
+    private static long[] widen(long from, long to) {
+        return new long[]{from == Long.MIN_VALUE ? from : from - 1000, to == Long.MAX_VALUE ? to : to + 1000};
+    }
+
+    private static long[] intersect(long[] first, long[] second) {
+        if (first == null || second == null) {
+            //an event matching both matches the one which limits the timestamps
+            return first == null ? second : first;
+        }
+        return new long[]{Math.max(first[0], second[0]), Math.min(first[1], second[1])};
+    }
+}
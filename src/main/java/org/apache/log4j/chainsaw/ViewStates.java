@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import org.apache.log4j.chainsaw.color.RuleColorizer;
+
+/**
+ * The display state an EventContainer keeps for each of its rows: whether the row passes
+ * the display rule, the time since the previous displayed row, the row heights last
+ * computed by the renderer and the colors the color rules last gave the row's event.
+ * <p>
+ * A LoggingEventWrapper can be shown by several containers at once (the main and search
+ * tables of a tab), and each of them displays it differently, so this state belongs to the
+ * container rather than the wrapper.  It is kept in arrays indexed by the row's sequence
+ * number modulo the capacity, which grows when more rows than that are live.
+ * <p>
+ * Changes are made under the owning container's lock, except the row heights, which the
+ * renderer sets on the EDT, and the colors, which are recomputed by whichever thread
+ * reads a spilled event back or recolors the rows after a color rule change.  Reads need no lock: the arrays are replaced together when the
+ * capacity grows, so a read may see a value from before a concurrent change but never one
+ * from the wrong row's slot layout.
+ */
+final class ViewStates {
+    private static final int DEFAULT_HEIGHT = -1;
+
+    private volatile Columns columns;
+
+    ViewStates(int capacity) {
+        columns = new Columns(capacity);
+    }
+
+    /**
+     * Adds the state of a new row, which is not displayed.
+     *
+     * @param sequence      sequence number of the new row
+     * @param firstSequence sequence number of the oldest live row, including the new one
+     */
+    void add(long sequence, long firstSequence) {
+        Columns current = columns;
+        int liveCount = (int) (sequence - firstSequence + 1);
+        if (liveCount > current.displayed.length) {
+            Columns grown = new Columns(Math.max(liveCount, current.displayed.length * 2));
+            for (long live = firstSequence; live < sequence; live++) {
+                int oldIndex = current.index(live);
+                int newIndex = grown.index(live);
+                grown.displayed[newIndex] = current.displayed[oldIndex];
+                grown.millisDeltas[newIndex] = current.millisDeltas[oldIndex];
+                grown.markerHeights[newIndex] = current.markerHeights[oldIndex];
+                grown.msgHeights[newIndex] = current.msgHeights[oldIndex];
+                grown.colors[newIndex] = current.colors[oldIndex];
+            }
+            columns = grown;
+        }
+        setDisplayed(sequence, false);
+        setMillisDelta(sequence, 0);
+        setMarkerHeight(sequence, DEFAULT_HEIGHT);
+        setMsgHeight(sequence, DEFAULT_HEIGHT);
+        setColors(sequence, null);
+    }
+
+    boolean isDisplayed(long sequence) {
+        Columns current = columns;
+        return current.displayed[current.index(sequence)];
+    }
+
+    /**
+     * Keeps the row heights, which only depend on the event and the column widths.
+     */
+    void setDisplayed(long sequence, boolean display) {
+        Columns current = columns;
+        current.displayed[current.index(sequence)] = display;
+    }
+
+    /**
+     * @return milliseconds between the previous displayed row and this one
+     */
+    long getMillisDelta(long sequence) {
+        Columns current = columns;
+        return current.millisDeltas[current.index(sequence)];
+    }
+
+    void setMillisDelta(long sequence, long millisDelta) {
+        Columns current = columns;
+        current.millisDeltas[current.index(sequence)] = millisDelta;
+    }
+
+    int getMarkerHeight(long sequence) {
+        Columns current = columns;
+        return current.markerHeights[current.index(sequence)];
+    }
+
+    void setMarkerHeight(long sequence, int markerHeight) {
+        Columns current = columns;
+        current.markerHeights[current.index(sequence)] = markerHeight;
+    }
+
+    int getMsgHeight(long sequence) {
+        Columns current = columns;
+        return current.msgHeights[current.index(sequence)];
+    }
+
+    void setMsgHeight(long sequence, int msgHeight) {
+        Columns current = columns;
+        current.msgHeights[current.index(sequence)] = msgHeight;
+    }
+
+    /**
+     * @return colors last computed for the row's event, or null
+     */
+    RuleColorizer.Colors getColors(long sequence) {
+        Columns current = columns;
+        return current.colors[current.index(sequence)];
+    }
+
+    void setColors(long sequence, RuleColorizer.Colors colors) {
+        Columns current = columns;
+        current.colors[current.index(sequence)] = colors;
+    }
+
+    private static final class Columns {
+        private final boolean[] displayed;
+        private final long[] millisDeltas;
+        private final int[] markerHeights;
+        private final int[] msgHeights;
+        private final RuleColorizer.Colors[] colors;
+
+        private Columns(int capacity) {
+            displayed = new boolean[capacity];
+            millisDeltas = new long[capacity];
+            markerHeights = new int[capacity];
+            msgHeights = new int[capacity];
+            colors = new RuleColorizer.Colors[capacity];
+        }
+
+        private int index(long sequence) {
+            return (int) (sequence % displayed.length);
+        }
+    }
+}
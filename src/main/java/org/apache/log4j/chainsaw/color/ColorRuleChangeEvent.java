@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.color;
+
+import java.beans.PropertyChangeEvent;
+
+
+/**
+ * A "colorrule" change of a RuleColorizer.  The rules before the first changed one are
+ * the same as before, so an event colored by them keeps its colors, and containers need
+ * only re-evaluate the events colored by a later rule or by none.
+ * <p>
+ * Changes of the logger or find rule fire this event too, without changing any color rule.
+ */
+public final class ColorRuleChangeEvent extends PropertyChangeEvent {
+    private static final int NO_RULE_CHANGED = Integer.MAX_VALUE;
+
+    private final int firstChangedRule;
+
+    /**
+     * @param source           the colorizer
+     * @param firstChangedRule index of the first rule which was added, removed or edited
+     */
+    ColorRuleChangeEvent(Object source, int firstChangedRule) {
+        super(source, RuleColorizer.PROPERTY_CHANGED_COLORRULE, Boolean.FALSE, Boolean.TRUE);
+        this.firstChangedRule = firstChangedRule;
+    }
+
+    /**
+     * @param source the colorizer
+     * @return a change of the colorizer which leaves the color rules as they are
+     */
+    static ColorRuleChangeEvent noRuleChanged(Object source) {
+        return new ColorRuleChangeEvent(source, NO_RULE_CHANGED);
+    }
+
+    /**
+     * @return false if no color rule changed, so no event changes colors
+     */
+    public boolean isRuleChange() {
+        return firstChangedRule != NO_RULE_CHANGED;
+    }
+
+    public int getFirstChangedRule() {
+        return firstChangedRule;
+    }
+
+    /**
+     * @param colors colors of an event computed before the change, or null if unknown
+     * @return true if the event can change colors with this change
+     */
+    public boolean affects(RuleColorizer.Colors colors) {
+        if (colors == null) {
+            return isRuleChange();
+        }
+        int backgroundRule = colors.getBackgroundRule();
+        int foregroundRule = colors.getForegroundRule();
+        //an event no rule colored may be colored by a changed rule
+        return backgroundRule < 0 || foregroundRule < 0 || Math.max(backgroundRule, foregroundRule) >= firstChangedRule;
+    }
+}
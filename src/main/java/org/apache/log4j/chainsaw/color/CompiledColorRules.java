@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.color;
+
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.rule.AndRule;
+import org.apache.log4j.rule.ColorRule;
+import org.apache.log4j.rule.ExpressionRule;
+import org.apache.log4j.rule.LevelEqualsRule;
+import org.apache.log4j.rule.NotLevelEqualsRule;
+import org.apache.log4j.rule.NotRule;
+import org.apache.log4j.rule.OrRule;
+import org.apache.log4j.rule.Rule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The color rules of a RuleColorizer arranged as a decision table indexed by event level.
+ * <p>
+ * Most color rules test the level ("level == WARN", "level == FATAL || level == ERROR ||
+ * exception exists"), so for each level the table holds only the rules that can match an
+ * event of that level, in their original order, and marks those the level alone makes
+ * match.  The level predicates are decided once here instead of for every event and rule.
+ * Events without a level, and rules that refer to a level name Chainsaw doesn't know,
+ * are evaluated as they are.
+ * <p>
+ * Immutable; RuleColorizer compiles a new instance, with a new version, whenever its
+ * rules change.
+ */
+final class CompiledColorRules {
+    private static final AtomicInteger VERSIONS = new AtomicInteger();
+    private static final Level[] LEVELS = Level.values();
+
+    private final int version;
+    private final Entry[][] table;
+    private final RuleColorizer.Colors noColors;
+
+    CompiledColorRules(List<ColorRule> rules) {
+        version = VERSIONS.incrementAndGet();
+        noColors = new RuleColorizer.Colors(version, null, null, -1, -1);
+        Entry[] entries = new Entry[rules.size()];
+        for (int i = 0; i < entries.length; i++) {
+            ColorRule rule = rules.get(i);
+            entries[i] = new Entry(rule, new RuleColorizer.Colors(version, rule.getBackgroundColor(), rule.getForegroundColor(), i, i));
+        }
+        table = new Entry[LEVELS.length + 1][];
+        for (int slot = 0; slot < table.length; slot++) {
+            Level level = slot < LEVELS.length ? LEVELS[slot] : null;
+            List<Entry> candidates = new ArrayList<>();
+            for (Entry entry : entries) {
+                Boolean verdict = entry.rule.getRule() == null ? Boolean.FALSE : getVerdict(entry.rule.getRule(), level);
+                if (verdict == null) {
+                    candidates.add(entry);
+                } else if (verdict) {
+                    candidates.add(entry.alwaysMatching());
+                }
+            }
+            table[slot] = candidates.toArray(new Entry[0]);
+        }
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * Evaluates each rule at most once: the first matching rule with a background color
+     * provides the background, the first with a foreground color the foreground.
+     *
+     * @return the colors, either of which is null if no rule provides it
+     */
+    RuleColorizer.Colors getColors(ChainsawLoggingEvent event) {
+        Level level = event.m_level;
+        Entry background = null;
+        Entry foreground = null;
+        for (Entry entry : table[level == null ? LEVELS.length : level.ordinal()]) {
+            boolean wantsBackground = background == null && entry.rule.getBackgroundColor() != null;
+            boolean wantsForeground = foreground == null && entry.rule.getForegroundColor() != null;
+            if ((wantsBackground || wantsForeground) && (entry.alwaysMatches || entry.rule.evaluate(event, null))) {
+                if (wantsBackground) {
+                    background = entry;
+                }
+                if (wantsForeground) {
+                    foreground = entry;
+                }
+                if (background != null && foreground != null) {
+                    break;
+                }
+            }
+        }
+        if (background == foreground) {
+            return background == null ? noColors : background.colors;
+        }
+        return new RuleColorizer.Colors(version,
+            background == null ? null : background.rule.getBackgroundColor(),
+            foreground == null ? null : foreground.rule.getForegroundColor(),
+            background == null ? -1 : background.colors.getBackgroundRule(),
+            foreground == null ? -1 : foreground.colors.getForegroundRule());
+    }
+
+    /**
+     * @return whether the rule matches every event of the level (true), none of them (false)
+     * or depends on other fields (null)
+     */
+    static Boolean getVerdict(Rule rule, Level level) {
+        if (rule instanceof ExpressionRule) {
+            return getVerdict(((ExpressionRule) rule).getCompiledRule(), level);
+        }
+        if (rule instanceof LevelEqualsRule) {
+            Level ruleLevel = ((LevelEqualsRule) rule).getLevel();
+            return level == null || ruleLevel == null ? null : ruleLevel == level;
+        }
+        if (rule instanceof NotLevelEqualsRule) {
+            Level ruleLevel = ((NotLevelEqualsRule) rule).getLevel();
+            return level == null || ruleLevel == null ? null : ruleLevel != level;
+        }
+        if (rule instanceof NotRule) {
+            Boolean verdict = getVerdict(((NotRule) rule).getRule(), level);
+            return verdict == null ? null : !verdict;
+        }
+        if (rule instanceof AndRule) {
+            Boolean first = getVerdict(((AndRule) rule).getFirstRule(), level);
+            Boolean second = getVerdict(((AndRule) rule).getSecondRule(), level);
+            if (Boolean.FALSE.equals(first) || Boolean.FALSE.equals(second)) {
+                return Boolean.FALSE;
+            }
+            return Boolean.TRUE.equals(first) && Boolean.TRUE.equals(second) ? Boolean.TRUE : null;
+        }
+        if (rule instanceof OrRule) {
+            Boolean first = getVerdict(((OrRule) rule).getFirstRule(), level);
+            Boolean second = getVerdict(((OrRule) rule).getSecondRule(), level);
+            if (Boolean.TRUE.equals(first) || Boolean.TRUE.equals(second)) {
+                return Boolean.TRUE;
+            }
+            return Boolean.FALSE.equals(first) && Boolean.FALSE.equals(second) ? Boolean.FALSE : null;
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        private final ColorRule rule;
+        private final RuleColorizer.Colors colors;
+        private final boolean alwaysMatches;
+
+        private Entry(ColorRule rule, RuleColorizer.Colors colors) {
+            this(rule, colors, false);
+        }
+
+        private Entry(ColorRule rule, RuleColorizer.Colors colors, boolean alwaysMatches) {
+            this.rule = rule;
+            this.colors = colors;
+            this.alwaysMatches = alwaysMatches;
+        }
+
+        private Entry alwaysMatching() {
+            return new Entry(rule, colors, true);
+        }
+    }
+}
@@ -33,6 +33,8 @@
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 /**
@@ -45,7 +47,10 @@ public class RuleColorizer implements Colorizer {
     private static final Logger logger = LogManager.getLogger();
     public static final String PROPERTY_CHANGED_COLORRULE = "colorrule";
 
+    //rules are evaluated by the ingest threads of the log panels while being edited on the EDT
     private final List<ColorRule> rules;
+    //replaced whenever the rules change, read without locking by the ingest threads
+    private volatile CompiledColorRules compiledRules;
     private final PropertyChangeSupport colorChangeSupport =
         new PropertyChangeSupport(this);
 
@@ -86,23 +91,25 @@ public static List<ColorRule> defaultRules(){
     }
 
     public RuleColorizer() {
-        this.rules = defaultRules();
+        this.rules = new CopyOnWriteArrayList<>(defaultRules());
+        compiledRules = new CompiledColorRules(rules);
         isGlobal = false;
     }
 
     public RuleColorizer(boolean isGlobal){
-        this.rules = defaultRules();
+        this.rules = new CopyOnWriteArrayList<>(defaultRules());
+        compiledRules = new CompiledColorRules(rules);
         this.isGlobal = isGlobal;
     }
 
     public void setLoggerRule(Rule loggerRule) {
         this.loggerRule = loggerRule;
-        colorChangeSupport.firePropertyChange(PROPERTY_CHANGED_COLORRULE, false, true);
+        colorChangeSupport.firePropertyChange(ColorRuleChangeEvent.noRuleChanged(this));
     }
 
     public void setFindRule(Rule findRule) {
         this.findRule = findRule;
-        colorChangeSupport.firePropertyChange(PROPERTY_CHANGED_COLORRULE, false, true);
+        colorChangeSupport.firePropertyChange(ColorRuleChangeEvent.noRuleChanged(this));
     }
 
     public Rule getFindRule() {
@@ -114,9 +121,17 @@ public Rule getLoggerRule() {
     }
 
     public void setRules(List<ColorRule> rules) {
-        this.rules.clear();
-        this.rules.addAll(rules);
-        colorChangeSupport.firePropertyChange(PROPERTY_CHANGED_COLORRULE, false, true);
+        int firstChangedRule;
+        synchronized (this.rules) {
+            List<ColorRule> newRules = new ArrayList<>(rules);
+            firstChangedRule = getFirstChangedRule(this.rules, newRules);
+            this.rules.clear();
+            this.rules.addAll(newRules);
+            compiledRules = new CompiledColorRules(this.rules);
+        }
+        //the color panel sets all the rules when any of them is edited
+        colorChangeSupport.firePropertyChange(firstChangedRule < 0 ?
+            ColorRuleChangeEvent.noRuleChanged(this) : new ColorRuleChangeEvent(this, firstChangedRule));
 
         saveColorSettings();
     }
@@ -126,26 +141,41 @@ public List<ColorRule> getRules() {
     }
 
     public void addRule(ColorRule rule) {
-        rules.add(rule);
+        int firstChangedRule;
+        synchronized (rules) {
+            firstChangedRule = rules.size();
+            rules.add(rule);
+            compiledRules = new CompiledColorRules(rules);
+        }
 
-        colorChangeSupport.firePropertyChange(PROPERTY_CHANGED_COLORRULE, false, true);
+        colorChangeSupport.firePropertyChange(new ColorRuleChangeEvent(this, firstChangedRule));
 
         saveColorSettings();
     }
 
     /**
-     * {{@inheritDoc}
+     * @return index of the first rule which differs between the lists, or -1 if they are the same
      */
-    @Override
-    public Color getBackgroundColor(ChainsawLoggingEvent event) {
-        for (ColorRule rule : rules) {
-
-            if ((rule.getBackgroundColor() != null) && (rule.evaluate(event, null))) {
-                return rule.getBackgroundColor();
+    private static int getFirstChangedRule(List<ColorRule> oldRules, List<ColorRule> newRules) {
+        int count = Math.min(oldRules.size(), newRules.size());
+        for (int i = 0; i < count; i++) {
+            ColorRule oldRule = oldRules.get(i);
+            ColorRule newRule = newRules.get(i);
+            if (oldRule != newRule && !(Objects.equals(oldRule.getExpression(), newRule.getExpression())
+                && Objects.equals(oldRule.getBackgroundColor(), newRule.getBackgroundColor())
+                && Objects.equals(oldRule.getForegroundColor(), newRule.getForegroundColor()))) {
+                return i;
             }
         }
+        return oldRules.size() == newRules.size() ? -1 : count;
+    }
 
-        return null;
+    /**
+     * {{@inheritDoc}
+     */
+    @Override
+    public Color getBackgroundColor(ChainsawLoggingEvent event) {
+        return getColors(event).getBackground();
     }
 
     /**
@@ -153,14 +183,26 @@ public Color getBackgroundColor(ChainsawLoggingEvent event) {
      */
     @Override
     public Color getForegroundColor(ChainsawLoggingEvent event) {
-        for (ColorRule rule : rules) {
+        return getColors(event).getForeground();
+    }
 
-            if ((rule.getForegroundColor() != null) && (rule.evaluate(event, null))) {
-                return rule.getForegroundColor();
-            }
-        }
+    /**
+     * Evaluates the rules once for both colors of the event.
+     *
+     * @param event event to colorize
+     * @return the colors, tagged with the version of the rules they were computed from
+     */
+    public Colors getColors(ChainsawLoggingEvent event) {
+        return compiledRules.getColors(event);
+    }
 
-        return null;
+    /**
+     * @param colors colors previously returned by {@link #getColors(ChainsawLoggingEvent)}
+     * @return true if the rules haven't changed since the colors were computed, so they can
+     * be reused for the same event
+     */
+    public boolean isCurrent(Colors colors) {
+        return colors.version == compiledRules.getVersion();
     }
 
     public void addPropertyChangeListener(PropertyChangeListener listener) {
@@ -302,6 +344,53 @@ public static List<Color> getDefaultColors() {
         return vec;
     }
 
+    /**
+     * The background and foreground colors the rules give an event.
+     */
+    public static final class Colors {
+        private final int version;
+        private final Color background;
+        private final Color foreground;
+        private final int backgroundRule;
+        private final int foregroundRule;
+
+        Colors(int version, Color background, Color foreground, int backgroundRule, int foregroundRule) {
+            this.version = version;
+            this.background = background;
+            this.foreground = foreground;
+            this.backgroundRule = backgroundRule;
+            this.foregroundRule = foregroundRule;
+        }
+
+        /**
+         * @return background color, or null if no rule provides one
+         */
+        public Color getBackground() {
+            return background;
+        }
+
+        /**
+         * @return foreground color, or null if no rule provides one
+         */
+        public Color getForeground() {
+            return foreground;
+        }
+
+        /**
+         * @return index of the rule which provided the background color, or -1
+         */
+        public int getBackgroundRule() {
+            return backgroundRule;
+        }
+
+        /**
+         * @return index of the rule which provided the foreground color, or -1
+         */
+        public int getForegroundRule() {
+            return foregroundRule;
+        }
+    }
+
     @Override
     public String toString(){
         StringBuilder sb = new StringBuilder();
@@ -20,6 +20,7 @@
 import org.apache.commons.configuration2.event.EventListener;
 import org.apache.log4j.chainsaw.*;
 import org.apache.log4j.chainsaw.color.ColorPanel;
+import org.apache.log4j.chainsaw.color.ColorRuleChangeEvent;
 import org.apache.log4j.chainsaw.color.RuleColorizer;
 import org.apache.log4j.chainsaw.components.elements.SmallButton;
 import org.apache.log4j.chainsaw.components.elements.SmallToggleButton;
@@ -150,7 +151,7 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
     private double lastLogTreePanelSplitLocation = DEFAULT_LOG_TREE_SPLIT_LOCATION;
     private Point currentPoint;
     private JTable currentTable;
-    private boolean paused = false;
+    private volatile boolean paused = false;
     private Rule findRule;
     private String currentFindRuleText;
     private Rule findMarkerRule;
@@ -183,6 +184,15 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
     private ChainsawReceiver m_receiver;
     private AbstractConfiguration m_configuration;
     private Map<String, RuleColorizer> m_allColorizers;
+    //rows added to the models by the receiver thread which have not yet been announced to the tables
+    private static final int INGEST_PUBLISH_INTERVAL_MS = 1000 / 30;
+    private final Object pendingIngestMutex = new Object();
+    private int pendingAddedRowCount;
+    private int pendingSearchAddedRowCount;
+    private boolean ingestPublishScheduled;
+    private final javax.swing.Timer ingestPublishTimer = new javax.swing.Timer(INGEST_PUBLISH_INTERVAL_MS, e -> publishIngestedRows());
+    //selected row of the main table, tracked on the EDT so it can be restored after rows are ingested
+    private volatile LoggingEventWrapper lastSelectedEvent;
 
     /**
      * Creates a new LogPanel object.  If a LogPanel with this identifier has
@@ -485,20 +495,20 @@ public void propertyChange(PropertyChangeEvent evt) {
                     }
 
                     if (model.isUseISO8601Format()) {
-                        renderer.setDateFormatter(new SimpleDateFormat(Constants.ISO8601_PATTERN));
-                        searchRenderer.setDateFormatter(new SimpleDateFormat(Constants.ISO8601_PATTERN));
+                        renderer.setDateFormatPattern(Constants.ISO8601_PATTERN);
+                        searchRenderer.setDateFormatPattern(Constants.ISO8601_PATTERN);
                     } else {
                         try {
-                            renderer.setDateFormatter(new SimpleDateFormat(model.getDateFormatPattern()));
+                            renderer.setDateFormatPattern(model.getDateFormatPattern());
                         } catch (IllegalArgumentException iae) {
                             model.setDefaultDatePatternFormat();
-                            renderer.setDateFormatter(new SimpleDateFormat(Constants.ISO8601_PATTERN));
+                            renderer.setDateFormatPattern(Constants.ISO8601_PATTERN);
                         }
                         try {
-                            searchRenderer.setDateFormatter(new SimpleDateFormat(model.getDateFormatPattern()));
+                            searchRenderer.setDateFormatPattern(model.getDateFormatPattern());
                         } catch (IllegalArgumentException iae) {
                             model.setDefaultDatePatternFormat();
-                            searchRenderer.setDateFormatter(new SimpleDateFormat(Constants.ISO8601_PATTERN));
+                            searchRenderer.setDateFormatPattern(Constants.ISO8601_PATTERN);
                         }
                     }
 
@@ -580,7 +590,8 @@ public void propertyChange(PropertyChangeEvent evt) {
         /*
          *End of preferenceModel listeners
          */
-        tableModel = new ChainsawCyclicBufferTableModel(cyclicBufferSize, colorizer, "main");
+        ingestPublishTimer.setRepeats(false);
+        tableModel = createEventContainer(cyclicBufferSize, "main", true);
         table = new JSortTable(tableModel);
 
         markerCellEditor = new MarkerCellEditor();
@@ -588,7 +599,7 @@ public void propertyChange(PropertyChangeEvent evt) {
         table.setColumnSelectionAllowed(false);
         table.setRowSelectionAllowed(true);
 
-        searchModel = new ChainsawCyclicBufferTableModel(cyclicBufferSize, colorizer, "search");
+        searchModel = createEventContainer(cyclicBufferSize, "search", false);
         searchTable = new JSortTable(searchModel);
 
         searchTable.setName("search");
@@ -712,9 +723,17 @@ public void actionPerformed(ActionEvent e) {
             "colorrule",
             new PropertyChangeListener() {
                 public void propertyChange(PropertyChangeEvent evt) {
-                    for (Object o : tableModel.getAllEvents()) {
-                        LoggingEventWrapper loggingEventWrapper = (LoggingEventWrapper) o;
-                        loggingEventWrapper.updateColorRuleColors(colorizer.getBackgroundColor(loggingEventWrapper.getLoggingEvent()), colorizer.getForegroundColor(loggingEventWrapper.getLoggingEvent()));
+                    //the rows on screen are recolored now, the rest of the buffer in the background
+                    if (evt instanceof ColorRuleChangeEvent) {
+                        Rectangle visible = table.getVisibleRect();
+                        int firstRow = table.rowAtPoint(visible.getLocation());
+                        int lastRow = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+                        if (firstRow < 0) {
+                            lastRow = -1;
+                        } else if (lastRow < 0) {
+                            lastRow = table.getRowCount() - 1;
+                        }
+                        tableModel.recolor((ColorRuleChangeEvent) evt, firstRow, lastRow);
                     }
 //          no need to update searchmodel events since tablemodel and searchmodel share all events, and color rules aren't different between the two
 //          if that changes, un-do the color syncing in loggingeventwrapper & re-enable this code
@@ -732,6 +751,17 @@ public void propertyChange(PropertyChangeEvent evt) {
                 }
             });
 
+        tableModel.addPropertyChangeListener("recolor", evt -> {
+            colorizedEventAndSearchMatchThumbnail.configureColors();
+            searchTable.repaint();
+        });
+
+        PropertyChangeListener spillFailedListener = evt -> statusBar.setMessage(
+            "Unable to write older events of the '" + getIdentifier() + "' tab to disk, they have been discarded.  Only the newest "
+                + cyclicBufferSize + " events are kept from now on.");
+        tableModel.addPropertyChangeListener("spillToDisk", spillFailedListener);
+        searchModel.addPropertyChangeListener("spillToDisk", spillFailedListener);
+
         /*
          * Table definition.  Actual construction is above (next to tablemodel)
          */
@@ -780,6 +810,13 @@ public void keyReleased(KeyEvent e) {
         table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         searchTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
+        table.getSelectionModel().addListSelectionListener(evt -> {
+            if (!evt.getValueIsAdjusting()) {
+                int selectedRow = table.getSelectedRow();
+                lastSelectedEvent = selectedRow >= 0 ? tableModel.getRow(selectedRow) : null;
+            }
+        });
+
         table.getSelectionModel().addListSelectionListener(evt -> {
                 if (((evt.getFirstIndex() == evt.getLastIndex())
                     && (evt.getFirstIndex() > 0) && previousLastIndex != -1) || (evt.getValueIsAdjusting())) {
@@ -1640,6 +1677,22 @@ private void checkMultiSelect(MouseEvent mouseEvent) {
         loadSettings();
     }
 
+    /**
+     * Tabs with logpanel.spillToDisk set keep only the newest events on the heap when not cyclic,
+     * older ones are kept in files below the settings directory.  Tabs with logpanel.findIndex
+     * set index the words of the main table's events, so find does not evaluate every event.
+     */
+    private EventContainer createEventContainer(int cyclicBufferSize, String tableModelName, boolean findable) {
+        ChainsawCyclicBufferTableModel model = new ChainsawCyclicBufferTableModel(cyclicBufferSize, colorizer, tableModelName);
+        if (m_configuration.getBoolean("logpanel.spillToDisk", false)) {
+            model.setSpillDirectory(new File(SettingsManager.getInstance().getSettingsDirectory(), "spill"));
+        }
+        if (findable && m_configuration.getBoolean("logpanel.findIndex", false)) {
+            model.enableFindIndex();
+        }
+        return model;
+    }
+
     private LoggerNameTreePanel createLoggerNameTreePanel(AbstractConfiguration tabConfig) {
         final LoggerNameTreePanel logTreePanel;
         LogPanelLoggerTreeModel logTreeModel = new LogPanelLoggerTreeModel();
@@ -2352,6 +2405,23 @@ public int setSelectedEvent(int eventNumber) {
         return row;
     }
 
+    /**
+     * Change the selected event on the log panel to the earliest displayed event at or after
+     * the time.  Will cause scrollToBottom to be turned off.
+     *
+     * @param timestamp epoch milliseconds
+     * @return row number or -1 if no displayed event is at or after the time
+     */
+    public int setSelectedTime(long timestamp) {
+        int row = tableModel.getRowAtTime(timestamp);
+        if (row > -1) {
+            preferenceModel.setScrollToBottom(false);
+
+            table.scrollToRow(row);
+        }
+        return row;
+    }
+
     /**
      * Add a preference propertyChangeListener
      *
@@ -2739,19 +2809,23 @@ private DateTimeFormatter getDetailPaneDatetimeFormat() {
     }
 
     /**
-     * Reset the LoggingEvent container, detail panel and status bar
+     * Reset the LoggingEvent container, detail panel and status bar.  May be called on the ingest
+     * thread when the clear table expression matches; the models install the cleared rows on the
+     * EDT, ahead of any rows published after them, and the components are reset there too.
      */
     private void clearModel() {
-        previousLastIndex = -1;
         tableModel.clearModel();
         searchModel.clearModel();
 
-        synchronized (detail) {
-            detailPaneUpdater.setSelectedRow(-1);
-            detail.notify();
-        }
+        SwingHelper.invokeOnEDT(() -> {
+            previousLastIndex = -1;
+            synchronized (detail) {
+                detailPaneUpdater.setSelectedRow(-1);
+                detail.notify();
+            }
 
-        statusBar.setNothingSelected();
+            statusBar.setNothingSelected();
+        });
     }
 
     public void findNextColorizedEvent() {
@@ -2784,7 +2858,7 @@ public void findNext() {
             EventQueue.invokeLater(() -> {
                 final JTextField findText = (JTextField) findCombo.getEditor().getEditorComponent();
                 try {
-                    int filteredEventsSize = getFilteredEvents().size();
+                    int filteredEventsSize = tableModel.getRowCount();
                     int startRow = table.getSelectedRow() + 1;
                     if (startRow > filteredEventsSize - 1) {
                         startRow = 0;
@@ -2821,7 +2895,7 @@ public void findPrevious() {
                 final JTextField findText = (JTextField) findCombo.getEditor().getEditorComponent();
                 try {
                     int startRow = table.getSelectedRow() - 1;
-                    int filteredEventsSize = getFilteredEvents().size();
+                    int filteredEventsSize = tableModel.getRowCount();
                     if (startRow < 0) {
                         startRow = filteredEventsSize - 1;
                     }
@@ -2976,8 +3050,8 @@ private int getMaxColumnWidth(int index) {
         return longestWidth + 5;
     }
 
-    private String getToolTipTextForEvent(LoggingEventWrapper loggingEventWrapper) {
-        return detailLayout.format(loggingEventWrapper.getLoggingEvent());
+    private String getToolTipTextForEvent(LoggingEventWrapper loggingEventWrapper, long millisDelta) {
+        return detailLayout.format(loggingEventWrapper.getLoggingEvent(), millisDelta);
     }
 
     /**
@@ -2999,7 +3073,7 @@ private void updateOtherModels(ChainsawLoggingEvent event) {
     public void findNextMarker() {
         EventQueue.invokeLater(() -> {
             int startRow = table.getSelectedRow() + 1;
-            int filteredEventsSize = getFilteredEvents().size();
+            int filteredEventsSize = tableModel.getRowCount();
             if (startRow > filteredEventsSize - 1) {
                 startRow = 0;
             }
@@ -3014,7 +3088,7 @@ public void findNextMarker() {
     public void findPreviousMarker() {
         EventQueue.invokeLater(() -> {
             int startRow = table.getSelectedRow() - 1;
-            int filteredEventsSize = getFilteredEvents().size();
+            int filteredEventsSize = tableModel.getRowCount();
             if (startRow < 0) {
                 startRow = filteredEventsSize - 1;
             }
@@ -3079,89 +3153,120 @@ public void setReceiver( ChainsawReceiver rx ){
         m_receiver.addChainsawEventBatchListener(this);
     }
 
+    /**
+     * Ingests a batch of events on the calling (receiver) thread: wrappers are created, color, find
+     * and display rules are evaluated and the events are added to both models here.  The added
+     * rows are published to the tables on the EDT by {@link #publishIngestedRows()}, at most once
+     * every INGEST_PUBLISH_INTERVAL_MS.
+     *
+     * @param events the batch of events delivered by the receiver
+     */
     public void receiveChainsawEventBatch(List<ChainsawLoggingEvent> events){
-        SwingHelper.invokeOnEDT(() -> {
-            /*
-             * if this panel is paused, we totally ignore events
-             */
-            if (isPaused()) {
-                return;
-            }
-            final int selectedRow = table.getSelectedRow();
-            final int startingRow = table.getRowCount();
-            final LoggingEventWrapper selectedEvent;
-            if (selectedRow >= 0) {
-                selectedEvent = tableModel.getRow(selectedRow);
-            } else {
-                selectedEvent = null;
-            }
-
-            final int startingSearchRow = searchTable.getRowCount();
-
-            boolean rowAdded = false;
-            boolean searchRowAdded = false;
-
-            int addedRowCount = 0;
-            int searchAddedRowCount = 0;
-
-            for (ChainsawLoggingEvent event1 : events) {
-                //create two separate loggingEventWrappers (main table and search table), as they have different info on display state
-                LoggingEventWrapper loggingEventWrapper1 = new LoggingEventWrapper(event1);
-                //if the clearTableExpressionRule is not null, evaluate & clear the table if it matches
-                if (clearTableExpressionRule != null && clearTableExpressionRule.evaluate(event1, null)) {
-                    logger.info("clear table expression matched - clearing table - matching event msg - " + event1.m_message);
-                    clearEvents();
-                }
+        /*
+         * if this panel is paused, we totally ignore events
+         */
+        if (isPaused()) {
+            return;
+        }
 
-                updateOtherModels(event1);
-                boolean isCurrentRowAdded = tableModel.isAddRow(loggingEventWrapper1);
-                if (isCurrentRowAdded) {
-                    addedRowCount++;
+        int addedRowCount = 0;
+        int searchAddedRowCount = 0;
+
+        for (ChainsawLoggingEvent event1 : events) {
+            //one loggingEventWrapper is shared by the main table and the search table, each table keeps its own display state
+            LoggingEventWrapper loggingEventWrapper = new LoggingEventWrapper(event1);
+            //if the clearTableExpressionRule is not null, evaluate & clear the table if it matches
+            if (clearTableExpressionRule != null && clearTableExpressionRule.evaluate(event1, null)) {
+                logger.info("clear table expression matched - clearing table - matching event msg - " + event1.m_message);
+                clearEvents();
+                //rows ingested before the clear are gone, don't announce them
+                addedRowCount = 0;
+                searchAddedRowCount = 0;
+                synchronized (pendingIngestMutex) {
+                    pendingAddedRowCount = 0;
+                    pendingSearchAddedRowCount = 0;
                 }
-                rowAdded = rowAdded || isCurrentRowAdded;
+            }
 
-                //create a new loggingEventWrapper via copy constructor to ensure same IDs
-                LoggingEventWrapper loggingEventWrapper2 = new LoggingEventWrapper(loggingEventWrapper1);
-                boolean isSearchCurrentRowAdded = searchModel.isAddRow(loggingEventWrapper2);
-                if (isSearchCurrentRowAdded) {
-                    searchAddedRowCount++;
-                }
-                searchRowAdded = searchRowAdded || isSearchCurrentRowAdded;
+            updateOtherModels(event1);
+            if (tableModel.isAddRow(loggingEventWrapper)) {
+                addedRowCount++;
             }
-            //fire after adding all events
-            if (rowAdded) {
-                tableModel.fireTableEvent(startingRow, startingRow + addedRowCount, addedRowCount);
+
+            //the main table has assigned the ID and colors, the search table reuses them
+            if (searchModel.isAddRow(loggingEventWrapper)) {
+                searchAddedRowCount++;
             }
-            if (searchRowAdded) {
-                searchModel.fireTableEvent(startingSearchRow, startingSearchRow + searchAddedRowCount, searchAddedRowCount);
+        }
+
+        synchronized (pendingIngestMutex) {
+            pendingAddedRowCount += addedRowCount;
+            pendingSearchAddedRowCount += searchAddedRowCount;
+            if (ingestPublishScheduled) {
+                //a publish is already pending, it will pick up these rows as well
+                return;
             }
+            ingestPublishScheduled = true;
+        }
+        //the timer bounds the rate at which table events are fired on the EDT
+        SwingHelper.invokeOnEDT(ingestPublishTimer::restart);
+    }
 
-            //tell the model to notify the count listeners
-            tableModel.notifyCountListeners();
+    /**
+     * Fires the coalesced table events for all rows ingested since the last publish.
+     * Must be called on the EDT.
+     */
+    private void publishIngestedRows() {
+        final int addedRowCount;
+        final int searchAddedRowCount;
+        synchronized (pendingIngestMutex) {
+            addedRowCount = pendingAddedRowCount;
+            searchAddedRowCount = pendingSearchAddedRowCount;
+            pendingAddedRowCount = 0;
+            pendingSearchAddedRowCount = 0;
+            ingestPublishScheduled = false;
+        }
 
-            if (rowAdded) {
-                if (tableModel.isSortEnabled()) {
-                    tableModel.sort();
-                }
+        final LoggingEventWrapper selectedEvent = lastSelectedEvent;
+        boolean rowAdded = addedRowCount > 0;
+        boolean searchRowAdded = searchAddedRowCount > 0;
+
+        //the rows are already in the models, make them visible to the tables
+        if (rowAdded) {
+            tableModel.publishRows();
+        }
+        if (searchRowAdded) {
+            searchModel.publishRows();
+        }
+
+        //tell the model to notify the count listeners
+        tableModel.notifyCountListeners();
+        if (m_receiver != null) {
+            statusBar.setReceiverQueueStatus(m_receiver.getQueueDepth(), m_receiver.getDroppedEventCount(), getIdentifier());
+        }
 
-                //always update detail pane (since we may be using a cyclic buffer which is full)
-                detailPaneUpdater.setSelectedRow(table.getSelectedRow());
+        if (rowAdded) {
+            if (tableModel.isSortEnabled()) {
+                tableModel.sort();
             }
 
-            if (searchRowAdded) {
-                if (searchModel.isSortEnabled()) {
-                    searchModel.sort();
-                }
+            //always update detail pane (since we may be using a cyclic buffer which is full)
+            detailPaneUpdater.setSelectedRow(table.getSelectedRow());
+        }
+
+        if (searchRowAdded) {
+            if (searchModel.isSortEnabled()) {
+                searchModel.sort();
             }
+        }
 
-            if (!isScrollToBottom() && selectedEvent != null) {
-                final int newIndex = tableModel.getRowIndex(selectedEvent);
-                if (newIndex >= 0) {
-                    // Don't scroll, just maintain selection...
-                    table.setRowSelectionInterval(newIndex, newIndex);
-                }
+        if (!isScrollToBottom() && selectedEvent != null) {
+            final int newIndex = tableModel.getRowIndex(selectedEvent);
+            if (newIndex >= 0) {
+                // Don't scroll, just maintain selection...
+                table.setRowSelectionInterval(newIndex, newIndex);
             }
-        });
+        }
     }
 
     /**
@@ -3359,7 +3464,7 @@ public void mouseMoved(MouseEvent evt) {
                 LoggingEventWrapper event = detailEventContainer.getRow(currentRow);
 
                 if (event != null) {
-                    String toolTipText = getToolTipTextForEvent(event);
+                    String toolTipText = getToolTipTextForEvent(event, detailEventContainer.getMillisDelta(currentRow));
                     detailTable.setToolTipText(toolTipText);
                 }
             } else {
@@ -3465,7 +3570,7 @@ private void updateDetailPane(boolean force) {
 
                 if (loggingEventWrapper != null) {
                     final StringBuilder buf = new StringBuilder();
-                    buf.append(detailLayout.format(loggingEventWrapper.getLoggingEvent()));
+                    buf.append(detailLayout.format(loggingEventWrapper.getLoggingEvent(), tableModel.getMillisDelta(selectedRow)));
                     if (buf.length() > 0) {
                         try {
                             final Document doc = detail.getEditorKit().createDefaultDocument();
@@ -3656,13 +3761,8 @@ public EventTimeDeltaMatchThumbnail() {
         }
 
         boolean primaryMatches(ThumbnailLoggingEventWrapper wrapper) {
-            String millisDelta = wrapper.loggingEventWrapper.getLoggingEvent().getProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE);
-            if (millisDelta != null && !millisDelta.trim().equals("")) {
-                long millisDeltaLong = Long.parseLong(millisDelta);
-                //arbitrary
-                return millisDeltaLong >= 1000;
-            }
-            return false;
+            //arbitrary
+            return tableModel.getMillisDelta(wrapper.rowNum) >= 1000;
         }
 
         boolean secondaryMatches(ThumbnailLoggingEventWrapper wrapper) {
@@ -3714,8 +3814,7 @@ public void paintComponent(Graphics g) {
                     int startX = 1;
                     int width = getWidth() - (startX * 2);
                     //max out at 50, min 2...
-                    String millisDelta = wrapper.loggingEventWrapper.getLoggingEvent().getProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE);
-                    long millisDeltaLong = Long.parseLong(millisDelta);
+                    long millisDeltaLong = tableModel.getMillisDelta(wrapper.rowNum);
                     long delta = Math.min(ChainsawConstants.MILLIS_DELTA_RENDERING_HEIGHT_MAX, Math.max(0, (long) (millisDeltaLong * ChainsawConstants.MILLIS_DELTA_RENDERING_FACTOR)));
                     float widthMaxMillisDeltaRenderRatio = ((float) width / ChainsawConstants.MILLIS_DELTA_RENDERING_HEIGHT_MAX);
                     int widthToUse = Math.max(2, (int) (delta * widthMaxMillisDeltaRenderRatio));
@@ -3850,7 +3949,7 @@ public void mouseMoved(MouseEvent e) {
                         int yPosition = e.getPoint().y;
                         ThumbnailLoggingEventWrapper event = getEventWrapperAtPosition(yPosition);
                         if (event != null) {
-                            setToolTipText(getToolTipTextForEvent(event.loggingEventWrapper));
+                            setToolTipText(getToolTipTextForEvent(event.loggingEventWrapper, tableModel.getMillisDelta(event.rowNum)));
                         }
                     } else {
                         setToolTipText(null);
@@ -19,27 +19,32 @@
  */
 package org.apache.log4j.chainsaw.filter;
 
+import org.apache.log4j.chainsaw.helper.SwingHelper;
+
 import javax.swing.*;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A Container class used to hold unique LoggingEvent values
  * and provide them as unique ListModels.
+ * <p>
+ * Values may be added from any thread, the ListModels are only updated on the EDT.
  *
  * @author Paul Smith
  */
 public class EventTypeEntryContainer {
-    private final Set<String> columnNames = new HashSet<>();
-    private final Set<String> methods = new HashSet<>();
-    private final Set<String> classes = new HashSet<>();
-    private final Set<String> ndcs = new HashSet<>();
-    private final Set Levels = new HashSet();
-    private final Set<String> loggers = new HashSet<>();
-    private final Set<String> threads = new HashSet<>();
-    private final Set<String> fileNames = new HashSet<>();
+    private final Set<String> columnNames = ConcurrentHashMap.newKeySet();
+    private final Set<String> methods = ConcurrentHashMap.newKeySet();
+    private final Set<String> classes = ConcurrentHashMap.newKeySet();
+    private final Set<String> ndcs = ConcurrentHashMap.newKeySet();
+    private final Set<Object> Levels = ConcurrentHashMap.newKeySet();
+    private final Set<String> loggers = ConcurrentHashMap.newKeySet();
+    private final Set<String> threads = ConcurrentHashMap.newKeySet();
+    private final Set<String> fileNames = ConcurrentHashMap.newKeySet();
+    private final Set<Object> propertyKeys = ConcurrentHashMap.newKeySet();
     private final DefaultListModel<String> columnNameListModel = new DefaultListModel<>();
     private final DefaultListModel methodListModel = new DefaultListModel();
     private final DefaultListModel classesListModel = new DefaultListModel();
@@ -86,62 +91,52 @@ public ListModel getModel(String fieldName) {
     }
 
     void addLevel(Object level) {
-        if (Levels.add(level)) {
-            levelListModel.addElement(level);
-        }
+        addIfNew(Levels, levelListModel, level);
     }
 
     void addLogger(String logger) {
-        if (loggers.add(logger)) {
-            loggerListModel.addElement(logger);
-        }
+        addIfNew(loggers, loggerListModel, logger);
     }
 
     void addFileName(String filename) {
-        if (fileNames.add(filename)) {
-            fileNameListModel.addElement(filename);
-        }
+        addIfNew(fileNames, fileNameListModel, filename);
     }
 
     void addThread(String thread) {
-        if (threads.add(thread)) {
-            threadListModel.addElement(thread);
-        }
+        addIfNew(threads, threadListModel, thread);
     }
 
     void addNDC(String ndc) {
-        if (ndcs.add(ndc)) {
-            ndcListModel.addElement(ndc);
-        }
+        addIfNew(ndcs, ndcListModel, ndc);
     }
 
     void addColumnName(String name) {
-        if (columnNames.add(name)) {
-            columnNameListModel.addElement(name);
-        }
+        addIfNew(columnNames, columnNameListModel, name);
     }
 
     void addMethod(String method) {
-        if (methods.add(method)) {
-            methodListModel.addElement(method);
-        }
+        addIfNew(methods, methodListModel, method);
     }
 
     void addClass(String className) {
-        if (classes.add(className)) {
-            classesListModel.addElement(className);
-        }
+        addIfNew(classes, classesListModel, className);
     }
 
     void addProperties(Map properties) {
         if (properties == null) {
             return;
         }
-        for (Object o : properties.entrySet()) {
-            Map.Entry entry = (Map.Entry) o;
-            if (!(propListModel.contains(entry.getKey()))) {
-                propListModel.addElement(entry.getKey());
-            }
+        for (Object key : properties.keySet()) {
+            addIfNew(propertyKeys, propListModel, key);
+        }
+    }
+
+    /**
+     * Adds the value to the ListModel (on the EDT) if it has not been seen before.  Null values are ignored.
+     */
+    private <T> void addIfNew(Set<T> values, final DefaultListModel model, final T value) {
+        if (value != null && values.add(value)) {
+            SwingHelper.invokeOnEDT(() -> model.addElement(value));
         }
     }
 }
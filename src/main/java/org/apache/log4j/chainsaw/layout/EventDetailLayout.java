@@ -17,11 +17,10 @@
 
 package org.apache.log4j.chainsaw.layout;
 
-import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
-import org.apache.log4j.chainsaw.ChainsawConstants;
+import org.apache.log4j.chainsaw.CachedTimestampFormatter;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
 import org.apache.log4j.chainsaw.logevents.LocationInfo;
@@ -43,9 +42,11 @@ public class EventDetailLayout {
 
     private String m_conversionPattern;
     private DateTimeFormatter m_dateFormat;
+    private CachedTimestampFormatter m_timestampFormatter;
 
     public EventDetailLayout() {
         m_dateFormat = DateTimeFormatter.ISO_LOCAL_TIME;
+        m_timestampFormatter = new CachedTimestampFormatter(m_dateFormat);
     }
 
     public void setConversionPattern(String conversionPattern) {
@@ -58,6 +59,7 @@ public String getConversionPattern() {
 
     public void setDateformat(DateTimeFormatter dateFormat){
         m_dateFormat = dateFormat;
+        m_timestampFormatter = new CachedTimestampFormatter(dateFormat);
     }
 
     public DateTimeFormatter getDateformat(){
@@ -222,17 +224,18 @@ public boolean ignoresThrowable() {
     public void activateOptions() {
     }
 
-    /* (non-Javadoc)
-     * @see org.apache.log4j.Layout#format(java.io.Writer, org.apache.log4j.spi.LoggingEvent)
+    /**
+     * @param event       the event to format
+     * @param millisDelta milliseconds since the event displayed before it, used for the millisdelta variable
      */
-    public String format(final ChainsawLoggingEvent event) {
+    public String format(final ChainsawLoggingEvent event, long millisDelta) {
         ChainsawLoggingEvent newEvent = copyForHTML(event);
 
         Map<String,String> valuesMap = new HashMap<>();
         valuesMap.put("level", event.m_level.toString());
         valuesMap.put("logger", event.m_logger);
-        valuesMap.put("time", event.m_timestamp.atZone(ZoneId.systemDefault()).format(m_dateFormat));
-        valuesMap.put("millisdelta", event.getProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE));
+        valuesMap.put("time", m_timestampFormatter.format(event.m_timestamp));
+        valuesMap.put("millisdelta", String.valueOf(millisDelta));
         valuesMap.put("thread", event.m_threadName);
         valuesMap.put("message", event.m_message);
         valuesMap.put("marker", "");
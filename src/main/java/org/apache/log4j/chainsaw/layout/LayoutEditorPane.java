@@ -144,7 +144,7 @@ private void updatePreview() {
         layout.setConversionPattern(pattern);
         layout.setDateformat(m_datetimeFormat);
 
-        previewer.setText(layout.format(event));
+        previewer.setText(layout.format(event, 20));
     }
 
     /**
@@ -179,7 +179,6 @@ private void createEvent() {
                 .setTimestamp(Instant.now());
 
         event = build.create();
-        event.setProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE, "20");
     }
 
     /**
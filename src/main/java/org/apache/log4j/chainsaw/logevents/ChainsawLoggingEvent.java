@@ -16,11 +16,14 @@
  */
 package org.apache.log4j.chainsaw.logevents;
 
+import org.apache.log4j.helpers.Constants;
+
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The ChainsawLoggingEvent is a Chainsaw-specific type of logging event.  This
@@ -40,7 +43,8 @@ public class ChainsawLoggingEvent {
     public final LocationInfo m_locationInfo;
     public final String m_ndc;
     public final Map<String,String> m_mdc;
-    private Map<String,String> m_properties;
+    //set on the EDT (markers) while rules on PROP fields are evaluated on other threads
+    private final Map<String,String> m_properties = new ConcurrentHashMap<>();
 
     ChainsawLoggingEvent( ChainsawLoggingEventBuilder b ){
         m_timestamp = b.m_timestamp;
@@ -51,11 +55,23 @@ public class ChainsawLoggingEvent {
         m_locationInfo = b.m_locationInfo;
         m_ndc = b.m_ndc;
         m_mdc = b.m_mdc;
-        m_properties = new HashMap<>();
     }
 
+    /**
+     * Sets a property.  The key is canonicalized through the shared {@link StringDictionary},
+     * as is the value of the hostname and application properties.  A null value removes the
+     * property.
+     */
     public void setProperty(String name, String value){
-        m_properties.put(name, value);
+        if (value == null) {
+            m_properties.remove(name);
+            return;
+        }
+        StringDictionary dictionary = StringDictionary.getInstance();
+        if (Constants.HOSTNAME_KEY.equals(name) || Constants.APPLICATION_KEY.equals(name)) {
+            value = dictionary.intern(value);
+        }
+        m_properties.put(dictionary.intern(name), value);
     }
 
     public String removeProperty(String name){
@@ -22,7 +22,10 @@
 import java.util.Map;
 
 /**
- *
+ * Builds ChainsawLoggingEvents.
+ * <p>
+ * Logger and thread names and MDC keys are canonicalized through the shared
+ * {@link StringDictionary}, as they repeat across many events.
  */
 public class ChainsawLoggingEventBuilder {
 
@@ -88,12 +91,12 @@ public ChainsawLoggingEventBuilder setMessage( String inMessage ){
     }
 
     public ChainsawLoggingEventBuilder setThreadName( String threadName ){
-        m_threadName = threadName;
+        m_threadName = StringDictionary.getInstance().intern( threadName );
         return this;
     }
 
     public ChainsawLoggingEventBuilder setLogger( String logger ){
-        m_logger = logger;
+        m_logger = StringDictionary.getInstance().intern( logger );
         return this;
     }
 
@@ -108,7 +111,13 @@ public ChainsawLoggingEventBuilder setNDC( String ndc ){
     }
 
     public ChainsawLoggingEventBuilder setMDC( Map<String,String> mdc ){
-        m_mdc = mdc;
+        m_mdc = null;
+        if( mdc != null ){
+            m_mdc = new HashMap<>();
+            for( Map.Entry<String,String> entry : mdc.entrySet() ){
+                addMDCEntry( entry.getKey(), entry.getValue() );
+            }
+        }
         return this;
     }
 
@@ -116,7 +125,7 @@ public ChainsawLoggingEventBuilder addMDCEntry( String key, String value ){
         if( m_mdc == null ){
             m_mdc = new HashMap<>();
         }
-        m_mdc.put( key, value );
+        m_mdc.put( StringDictionary.getInstance().intern( key ), value );
         return this;
     }
 
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.chainsaw.logevents;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bounded, thread safe pool of canonical String instances for event fields which
+ * repeat across many events: logger and thread names, property keys and host names.
+ * <p>
+ * Decoders create a new String for every field of every event they read.  Passing those
+ * fields through {@link #intern(String)} means all events of a logger share one logger name
+ * instance, so the duplicates can be collected straight away.  It also lets comparisons of
+ * these fields (String.equals checks for the same instance first) succeed without comparing
+ * characters.
+ * <p>
+ * The pool holds at most {@link #MAX_SIZE} strings.  Once full it is emptied and filled again
+ * from the following events, so fields which stop occurring (thread names of ended threads,
+ * for example) do not stay in it forever.
+ */
+public final class StringDictionary {
+    /**
+     * Number of strings kept before the pool is emptied.
+     */
+    public static final int MAX_SIZE = 65536;
+    /**
+     * Longer strings are returned as they are: they are unlikely to repeat.
+     */
+    public static final int MAX_LENGTH = 512;
+
+    private static final StringDictionary INSTANCE = new StringDictionary();
+
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+
+    private StringDictionary() {
+    }
+
+    /**
+     * @return the dictionary shared by all event builders
+     */
+    public static StringDictionary getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param value a string, may be null
+     * @return the canonical instance equal to value, value itself if it is not pooled
+     */
+    public String intern(String value) {
+        if (value == null || value.length() > MAX_LENGTH) {
+            return value;
+        }
+        String canonical = strings.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (strings.size() >= MAX_SIZE) {
+            strings.clear();
+        }
+        canonical = strings.putIfAbsent(value, value);
+        return canonical == null ? value : canonical;
+    }
+
+    /**
+     * @return number of strings currently pooled
+     */
+    public int size() {
+        return strings.size();
+    }
+}
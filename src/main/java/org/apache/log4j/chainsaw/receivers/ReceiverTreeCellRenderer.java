@@ -25,7 +25,10 @@
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import java.awt.*;
+import java.util.List;
 import org.apache.log4j.chainsaw.ChainsawReceiver;
+import org.apache.log4j.net.ConnectionBased;
+import org.apache.log4j.net.SocketNode;
 
 
 /**
@@ -101,8 +104,31 @@ public Component getTreeCellRendererComponent(
             }
         }
 
+        if (o instanceof ConnectionBased) {
+            tooltip = getConnectionsToolTip(((ConnectionBased) o).getConnectedNodes());
+        }
+
         setToolTipText(tooltip);
+        //the tree asks the component returned for the tooltip, fall back to the tree's own if there is none
+        panel.setToolTipText(tooltip.isEmpty() ? null : tooltip);
 
         return panel;
     }
+
+    /**
+     * @return a tooltip listing the connections of a receiver with their counters
+     */
+    private static String getConnectionsToolTip(List<SocketNode> nodes) {
+        if (nodes.isEmpty()) {
+            return "No connections";
+        }
+        StringBuilder tooltip = new StringBuilder("<html><b>");
+        tooltip.append(nodes.size()).append(nodes.size() == 1 ? " connection" : " connections").append("</b>");
+        for (SocketNode node : nodes) {
+            tooltip.append("<br>").append(node.getRemoteInfo())
+                .append(": ").append(node.getEventsReceived()).append(" events, ")
+                .append(node.getBytesReceived()).append(" bytes");
+        }
+        return tooltip.append("</html>").toString();
+    }
 }
@@ -16,27 +16,30 @@
  */
 package org.apache.log4j.net;
 
-import com.owlike.genson.Genson;
-import com.owlike.genson.GensonBuilder;
-import java.io.InputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.Iterator;
+import java.util.List;
 import org.apache.log4j.chainsaw.ChainsawReceiverSkeleton;
-import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * The JsonReceiver class receives log events over a TCP socket(as JSON) and
  * turns those into log events.
+ * <p>
+ * Any number of clients may be connected at once: each accepted socket is
+ * served by its own {@link JsonSocketNode}, and all nodes feed this
+ * receiver's queue.
  *
  * @author Robert Middleton
  */
-public class JsonReceiver extends ChainsawReceiverSkeleton implements Runnable, PortBased {
+public class JsonReceiver extends ChainsawReceiverSkeleton implements Runnable, PortBased, ConnectionBased {
     private ServerSocket m_serverSocket;
     private Thread m_rxThread;
+    private final SocketNodeTracker m_nodes = new SocketNodeTracker("Chainsaw-JsonSocketNode", this::doPost);
     public static final int DEFAULT_PORT = 4449;
+    private static final int ACCEPT_BACKLOG = 50;
     protected int m_port = DEFAULT_PORT;
     private boolean active = false;
     
@@ -73,6 +76,9 @@ private synchronized void doShutdown() {
 
         // close the server socket
         closeServerSocket();
+
+        // close all of the connected sockets
+        m_nodes.stop();
     }
 
     /**
@@ -96,6 +102,7 @@ private void closeServerSocket() {
     public void start() {
         logger.debug("Starting receiver");
         if (!isActive()) {
+            m_nodes.start();
             m_rxThread = new Thread(this);
             m_rxThread.setDaemon(true);
             m_rxThread.start();
@@ -116,7 +123,7 @@ public void run() {
 
         // start the server socket
         try {
-            m_serverSocket = new ServerSocket(m_port, 1);
+            m_serverSocket = new ServerSocket(m_port, ACCEPT_BACKLOG);
         } catch (Exception e) {
             logger.error(
                 "error starting JsonReceiver (" + this.getName()
@@ -127,31 +134,19 @@ public void run() {
             return;
         }
 
-        Socket socket = null;
-
         try {
             logger.debug("in run-about to enter while isactiveloop");
 
             active = true;
 
-            while (!m_rxThread.isInterrupted()) {
-                // if we have a socket, start watching it
-                if (socket != null ) {
-                    logger.debug("socket not null - parsing data");
-                    parseIncomingData(socket);
-                }
-
+            while (!Thread.currentThread().isInterrupted()) {
                 logger.debug("waiting to accept socket");
 
-                // wait for a socket to open, then loop to start it
-                socket = m_serverSocket.accept();
-                logger.debug("accepted socket");
-            }
+                // wait for a socket to open, then hand it to its own node
+                Socket socket = m_serverSocket.accept();
+                logger.debug("accepted socket from {}", socket.getRemoteSocketAddress());
 
-            // socket not watched because we a no longer running
-            // so close it now.
-            if (socket != null) {
-                socket.close();
+                m_nodes.serve(new JsonSocketNode(socket, m_nodes));
             }
         } catch (Exception e) {
             logger.warn(
@@ -159,6 +154,20 @@ public void run() {
         }
     }
 
+    /**
+     * Posts an event parsed by one of this receiver's nodes.
+     *
+     * @param event the event
+     */
+    void doPost(ChainsawLoggingEvent event) {
+        append(event);
+    }
+
+    @Override
+    public List<SocketNode> getConnectedNodes() {
+        return m_nodes.getNodes();
+    }
+
     @Override
     public int getPort() {
         return m_port;
@@ -172,50 +181,4 @@ public void setPort(int portnum){
     public boolean isActive() {
         return active;
     }
-    
-    private void parseIncomingData(Socket sock){
-        InputStream is;
-        
-        try {
-            is = sock.getInputStream();
-        } catch (Exception e) {
-            is = null;
-            logger.error("Exception opening InputStream to " + sock, e);
-            return;
-        }
-
-        if (is != null) {
-            Genson genson = new GensonBuilder()
-                    .useDateAsTimestamp(true)
-                    .create();
-
-            try {
-                //read data from the socket.
-                // Once we have a full JSON message, parse it
-                ChainsawLoggingEventBuilder build = new ChainsawLoggingEventBuilder();
-                while (true) {
-                    logger.debug( "About to deserialize values" );
-                    Iterator<ECSLogEvent> iter = genson.deserializeValues(is, ECSLogEvent.class);
-                    // Because the socket can be closed, if we don't have anything parsed
-                    // assume that the socket is closed.
-                    if( !iter.hasNext() ) break;
-                    while( iter.hasNext() ){
-                        ECSLogEvent evt = iter.next();
-                        append(evt.toChainsawLoggingEvent(build));
-                    }
-                }
-            } catch (Exception e) {
-                logger.error("Unexpected exception. Closing connection.", e);
-            }
-        }
-
-        // close the socket
-        try {
-            if (is != null) {
-                is.close();
-            }
-        } catch (Exception e) {
-            //logger.info("Could not close connection.", e);
-        }
-    }
 }
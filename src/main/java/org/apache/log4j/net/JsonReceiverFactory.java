@@ -38,6 +38,8 @@ public PropertyDescriptor[] getPropertyDescriptors() throws IntrospectionExcepti
                 new PropertyDescriptor("name", JsonReceiver.class),
 //                new PropertyDescriptor("address", JsonReceiver.class),
                 new PropertyDescriptor("port", JsonReceiver.class),
+                new PropertyDescriptor("queueCapacity", JsonReceiver.class),
+                new PropertyDescriptor("queueOverflowPolicy", JsonReceiver.class),
 //                new PropertyDescriptor("threshold", MulticastReceiver.class),
 //                new PropertyDescriptor("decoder", MulticastReceiver.class),
 //                new PropertyDescriptor("advertiseViaMulticastDNS", MulticastReceiver.class),
@@ -39,6 +39,8 @@ public PropertyDescriptor[] getPropertyDescriptors() throws IntrospectionExcepti
             new PropertyDescriptor("address", MulticastReceiver.class),
             new PropertyDescriptor("encoding", MulticastReceiver.class),
             new PropertyDescriptor("decoder", MulticastReceiver.class),
+            new PropertyDescriptor("queueCapacity", MulticastReceiver.class),
+            new PropertyDescriptor("queueOverflowPolicy", MulticastReceiver.class),
         };
     }
 
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.net;
+
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.helpers.Constants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Reads the events sent from a single remote client over a TCP socket accepted
+ * by a receiver, and posts them to the receiver through its {@link SocketNodeTracker}.
+ * <p>
+ * The node runs on its own thread, which first resolves the host name of the
+ * remote end, so a slow reverse lookup holds up only this connection and not
+ * the receiver accepting the others.  Every event is tagged with that hostname
+ * and the log4j.remoteSourceInfo (host:port) of the connection.
+ */
+public abstract class SocketNode implements Runnable {
+    private static final Logger logger = LogManager.getLogger();
+
+    private final Socket m_socket;
+    private final SocketNodeTracker m_tracker;
+    private volatile String m_hostName;
+    private volatile String m_remoteInfo;
+    private final AtomicLong m_bytesReceived = new AtomicLong();
+    private final AtomicLong m_eventsReceived = new AtomicLong();
+
+    /**
+     * @param socket  the accepted socket
+     * @param tracker the tracker of the receiver the events are posted to
+     */
+    protected SocketNode(Socket socket, SocketNodeTracker tracker) {
+        this.m_socket = socket;
+        this.m_tracker = tracker;
+        //the address until the name is resolved on the node's thread
+        this.m_hostName = socket.getInetAddress().getHostAddress();
+        this.m_remoteInfo = m_hostName + ":" + socket.getPort();
+    }
+
+    /**
+     * @return host:port of the remote end of this connection
+     */
+    public String getRemoteInfo() {
+        return m_remoteInfo;
+    }
+
+    /**
+     * @return number of bytes read from this connection so far
+     */
+    public long getBytesReceived() {
+        return m_bytesReceived.get();
+    }
+
+    /**
+     * @return number of events read from this connection so far
+     */
+    public long getEventsReceived() {
+        return m_eventsReceived.get();
+    }
+
+    /**
+     * @return true once the connection has been closed
+     */
+    protected boolean isClosed() {
+        return m_socket.isClosed();
+    }
+
+    @Override
+    public final void run() {
+        m_hostName = m_socket.getInetAddress().getHostName();
+        m_remoteInfo = m_hostName + ":" + m_socket.getPort();
+
+        InputStream is;
+        try {
+            is = new CountingInputStream(m_socket.getInputStream());
+        } catch (Exception e) {
+            logger.error("Exception opening InputStream to " + m_socket, e);
+            close();
+            return;
+        }
+
+        try {
+            readEvents(is);
+        } catch (Exception e) {
+            if (!m_socket.isClosed()) {
+                logger.error("Unexpected exception. Closing connection to " + m_remoteInfo, e);
+            }
+        }
+
+        logger.debug("Connection from {} closed after {} events, {} bytes",
+            m_remoteInfo, m_eventsReceived.get(), m_bytesReceived.get());
+        close();
+    }
+
+    /**
+     * Reads events from the connection and posts each of them, until the stream ends.
+     *
+     * @param is the stream of the socket
+     * @throws Exception if reading fails, which closes the connection
+     */
+    protected abstract void readEvents(InputStream is) throws Exception;
+
+    /**
+     * Tags the event with the remote end of this connection and posts it to the receiver.
+     *
+     * @param event the event
+     */
+    protected void post(ChainsawLoggingEvent event) {
+        event.setProperty(Constants.HOSTNAME_KEY, m_hostName);
+        // store the known remote info in an event property
+        event.setProperty("log4j.remoteSourceInfo", m_remoteInfo);
+        m_eventsReceived.incrementAndGet();
+        m_tracker.post(event);
+    }
+
+    /**
+     * Closes the socket, which also ends the read loop if it is still running.
+     */
+    public void close() {
+        try {
+            m_socket.close();
+        } catch (IOException e) {
+            //logger.info("Could not close connection.", e);
+        }
+        m_tracker.nodeClosed(this);
+    }
+
+    @Override
+    public String toString() {
+        return m_remoteInfo + " (" + m_eventsReceived.get() + " events, " + m_bytesReceived.get() + " bytes)";
+    }
+
+    /**
+     * Counts the bytes read through it into m_bytesReceived.
+     */
+    private class CountingInputStream extends FilterInputStream {
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                m_bytesReceived.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                m_bytesReceived.addAndGet(read);
+            }
+            return read;
+        }
+    }
+}
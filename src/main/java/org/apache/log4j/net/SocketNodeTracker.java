@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.net;
+
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+
+/**
+ * The {@link SocketNode}s serving the connections a receiver has accepted.
+ * <p>
+ * Each node runs on its own daemon thread of a pool created by {@link #start()},
+ * and removes itself once its connection is closed.  The events of all the
+ * nodes are posted to the receiver's sink, which is safe for concurrent use.
+ */
+final class SocketNodeTracker {
+    private static final Logger logger = LogManager.getLogger();
+
+    private final String m_threadName;
+    private final Consumer<ChainsawLoggingEvent> m_sink;
+    private final Set<SocketNode> m_nodes = ConcurrentHashMap.newKeySet();
+    private ExecutorService m_executor;
+
+    /**
+     * @param threadName prefix of the names of the node threads
+     * @param sink       receives the events of all the nodes
+     */
+    SocketNodeTracker(String threadName, Consumer<ChainsawLoggingEvent> sink) {
+        this.m_threadName = threadName;
+        this.m_sink = sink;
+    }
+
+    /**
+     * Creates the pool the nodes are run on, unless it exists.
+     */
+    synchronized void start() {
+        if (m_executor == null) {
+            final AtomicInteger nodeCount = new AtomicInteger();
+            m_executor = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, m_threadName + "-" + nodeCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Runs the node on its own thread, or closes it if the tracker has been stopped.
+     *
+     * @param node node of a newly accepted connection
+     */
+    synchronized void serve(SocketNode node) {
+        m_nodes.add(node);
+        try {
+            if (m_executor == null) {
+                throw new RejectedExecutionException("stopped");
+            }
+            m_executor.execute(node);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Not serving {}, the receiver is shutting down", node.getRemoteInfo());
+            node.close();
+        }
+    }
+
+    void post(ChainsawLoggingEvent event) {
+        m_sink.accept(event);
+    }
+
+    void nodeClosed(SocketNode node) {
+        m_nodes.remove(node);
+    }
+
+    /**
+     * Closes all the connections and stops the pool.
+     */
+    synchronized void stop() {
+        logger.debug("closing {} connections", m_nodes.size());
+
+        // the nodes remove themselves from the set as they close
+        for (SocketNode node : new ArrayList<>(m_nodes)) {
+            node.close();
+        }
+
+        if (m_executor != null) {
+            m_executor.shutdownNow();
+            m_executor = null;
+        }
+    }
+
+    /**
+     * @return a snapshot of the currently connected nodes
+     */
+    List<SocketNode> getNodes() {
+        return new ArrayList<>(m_nodes);
+    }
+}
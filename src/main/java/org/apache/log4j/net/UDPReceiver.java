@@ -25,6 +25,7 @@
 import org.apache.log4j.chainsaw.ChainsawReceiverSkeleton;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.spi.Decoder;
+import org.apache.log4j.spi.StreamingDecoder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -150,18 +151,27 @@ public void run() {
                 try {
                     socket.receive(p);
 
-                    //this string constructor which accepts a charset throws an exception if it is
-                    //null
-                    String data;
-                    if (encoding == null) {
-                        data = new String(p.getData(), 0, p.getLength());
+                    List<ChainsawLoggingEvent> v;
+                    if (encoding == null && decoderImpl instanceof StreamingDecoder) {
+                        //streaming decoders take the UTF-8 bytes as received
+                        v = ((StreamingDecoder) decoderImpl).decodeEvents(p.getData(), 0, p.getLength());
                     } else {
-                        data = new String(p.getData(), 0, p.getLength(), encoding);
+                        //this string constructor which accepts a charset throws an exception if it is
+                        //null
+                        String data;
+                        if (encoding == null) {
+                            data = new String(p.getData(), 0, p.getLength());
+                        } else {
+                            data = new String(p.getData(), 0, p.getLength(), encoding);
+                        }
+                        v = decoderImpl.decodeEvents(data);
                     }
 
-                    List<ChainsawLoggingEvent> v = decoderImpl.decodeEvents(data);
-                    for( ChainsawLoggingEvent evt : v ){
-                        append(evt);
+                    //the decoder returns null until it has a complete event
+                    if (v != null) {
+                        for( ChainsawLoggingEvent evt : v ){
+                            append(evt);
+                        }
                     }
                 } catch (SocketException se) {
                     //disconnected
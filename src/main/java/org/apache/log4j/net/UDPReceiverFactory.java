@@ -38,6 +38,8 @@ public PropertyDescriptor[] getPropertyDescriptors() throws IntrospectionExcepti
             new PropertyDescriptor("port", UDPReceiver.class),
             new PropertyDescriptor("encoding", UDPReceiver.class),
             new PropertyDescriptor("decoder", UDPReceiver.class),
+            new PropertyDescriptor("queueCapacity", UDPReceiver.class),
+            new PropertyDescriptor("queueOverflowPolicy", UDPReceiver.class),
         };
     }
 
@@ -37,6 +37,8 @@ public PropertyDescriptor[] getPropertyDescriptors() throws IntrospectionExcepti
         return new PropertyDescriptor[]{
                 new PropertyDescriptor("name", XMLSocketReceiver.class),
                 new PropertyDescriptor("port", XMLSocketReceiver.class),
+                new PropertyDescriptor("queueCapacity", XMLSocketReceiver.class),
+                new PropertyDescriptor("queueOverflowPolicy", XMLSocketReceiver.class),
             };
     }
 
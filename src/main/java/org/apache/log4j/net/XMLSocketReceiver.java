@@ -17,11 +17,9 @@
 
 package org.apache.log4j.net;
 
-import java.io.InputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.List;
-import java.util.Vector;
 import org.apache.log4j.chainsaw.ChainsawReceiverSkeleton;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.spi.Decoder;
@@ -45,15 +43,18 @@
  * <p>
  * Once the event has been "posted", it will be handled by the
  * appenders currently configured in the LoggerRespository.
+ * <p>
+ * Any number of clients may be connected at once: each accepted socket is
+ * served by its own {@link XMLSocketNode} with its own Decoder instance.
  *
  * @author Mark Womack
  * @author Scott Deboy &lt;sdeboy@apache.org&gt;
  */
-public class XMLSocketReceiver extends ChainsawReceiverSkeleton implements Runnable, PortBased {
+public class XMLSocketReceiver extends ChainsawReceiverSkeleton implements Runnable, PortBased, ConnectionBased {
     //default to log4j xml decoder
     protected String decoder = "org.apache.log4j.xml.XMLDecoder";
     private ServerSocket serverSocket;
-    private List<Socket> socketList = new Vector<>();
+    private final SocketNodeTracker nodes = new SocketNodeTracker("Chainsaw-XMLSocketNode", this::doPost);
     private Thread rThread;
     public static final int DEFAULT_PORT = 4448;
     protected int port = DEFAULT_PORT;
@@ -103,13 +104,7 @@ public void setDecoder(String _decoder) {
      * Starts the XMLSocketReceiver with the current options.
      */
     public void activateOptions() {
-        if (!isActive()) {
-            rThread = new Thread(this);
-            rThread.setDaemon(true);
-            rThread.start();
-
-            active = true;
-        }
+        start();
     }
 
     /**
@@ -139,6 +134,9 @@ private synchronized void doShutdown() {
 
         // close the server socket
         closeServerSocket();
+
+        // close all of the connected sockets
+        nodes.stop();
     }
 
     /**
@@ -183,31 +181,28 @@ public void run() {
             return;
         }
 
-        Socket socket = null;
-
         try {
             logger.debug("in run-about to enter while isactiveloop");
 
             active = true;
 
-            while (!rThread.isInterrupted()) {
-                // if we have a socket, start watching it
-                if (socket != null ) {
-                    logger.debug("socket not null - parsing data");
-                    parseIncomingData(socket);
-                }
-
+            while (!Thread.currentThread().isInterrupted()) {
                 logger.debug("waiting to accept socket");
 
-                // wait for a socket to open, then loop to start it
-                socket = serverSocket.accept();
-                logger.debug("accepted socket");
-            }
+                // wait for a socket to open, then hand it to its own node
+                Socket socket = serverSocket.accept();
+                logger.debug("accepted socket from {}", socket.getRemoteSocketAddress());
+
+                Decoder d;
+                try {
+                    d = (Decoder) Class.forName(decoder).getDeclaredConstructor().newInstance();
+                } catch (Exception e) {
+                    logger.error("Unable to load correct decoder", e);
+                    socket.close();
+                    continue;
+                }
 
-            // socket not watched because we a no longer running
-            // so close it now.
-            if (socket != null) {
-                socket.close();
+                nodes.serve(new XMLSocketNode(d, socket, nodes));
             }
         } catch (Exception e) {
             logger.warn(
@@ -215,10 +210,25 @@ public void run() {
         }
     }
 
+    /**
+     * Posts an event decoded by one of this receiver's nodes.
+     *
+     * @param event the event
+     */
+    void doPost(ChainsawLoggingEvent event) {
+        append(event);
+    }
+
+    @Override
+    public List<SocketNode> getConnectedNodes() {
+        return nodes.getNodes();
+    }
+
     @Override
     public void start() {
         logger.debug("Starting receiver");
         if (!isActive()) {
+            nodes.start();
             rThread = new Thread(this);
             rThread.setDaemon(true);
             rThread.start();
@@ -231,53 +241,4 @@ public void start() {
     public boolean isActive() {
         return active;
     }
-
-    private void parseIncomingData(Socket sock){
-        InputStream is;
-        Decoder d = null;
-        
-        try{
-            d = (Decoder) Class.forName(decoder).getDeclaredConstructor().newInstance();
-        } catch (Exception e) {
-            logger.error("Unable to load correct decoder", e);
-            return;
-        }
-
-        try {
-            is = sock.getInputStream();
-        } catch (Exception e) {
-            is = null;
-            logger.error("Exception opening InputStream to " + sock, e);
-            return;
-        }
-
-        while (is != null) {
-            try{
-                byte[] b = new byte[1024];
-                int length = is.read(b);
-                if (length == -1) {
-                    logger.info(
-                        "no bytes read from stream - closing connection.");
-                    break;
-                }
-                List<ChainsawLoggingEvent> v = d.decodeEvents(new String(b, 0, length));
-
-                for( ChainsawLoggingEvent evt : v ){
-                    append(evt);
-                }
-            }catch(Exception ex){
-                logger.error(ex);
-                break;
-            }
-        }
-
-        // close the socket
-        try {
-            if (is != null) {
-                is.close();
-            }
-        } catch (Exception e) {
-            //logger.info("Could not close connection.", e);
-        }
-    }
 }
@@ -87,6 +87,22 @@ public static Rule getRule(final Rule firstParam, final Rule secondParam) {
     return new AndRule(firstParam, secondParam);
   }
 
+    /**
+     * Get first rule.
+     * @return first rule
+     */
+  public Rule getFirstRule() {
+    return firstRule;
+  }
+
+    /**
+     * Get second rule.
+     * @return second rule
+     */
+  public Rule getSecondRule() {
+    return secondRule;
+  }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.rule;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+
+/**
+ * Case-insensitive substring search for a fixed needle, using
+ * Boyer-Moore-Horspool over case-folded chars.
+ * <p>
+ * The needle is folded and its shift table built once; searching folds the
+ * haystack one char at a time as it is compared, so no String is created
+ * per search.  Chars are folded the way
+ * {@link String#regionMatches(boolean, int, String, int, int)} does.
+ */
+final class CaseInsensitiveMatcher implements Serializable {
+    /**
+     * Serialization ID.
+     */
+  static final long serialVersionUID = -7311926482307734175L;
+    /**
+     * Size of the shift table; chars are bucketed on their low byte.
+     */
+  private static final int TABLE_SIZE = 256;
+
+    /**
+     * Folded needle.
+     */
+  private final char[] needle;
+    /**
+     * Shift for each bucket of folded haystack chars.
+     */
+  private final int[] shift = new int[TABLE_SIZE];
+
+    /**
+     * Create new instance.
+     * @param value text to search for
+     */
+  CaseInsensitiveMatcher(final String value) {
+    needle = new char[value.length()];
+    for (int i = 0; i < needle.length; i++) {
+      needle[i] = fold(value.charAt(i));
+    }
+    Arrays.fill(shift, Math.max(1, needle.length));
+    //chars sharing a bucket get the smallest of their shifts, which is always safe
+    for (int i = 0; i < needle.length - 1; i++) {
+      shift[needle[i] & (TABLE_SIZE - 1)] = needle.length - 1 - i;
+    }
+  }
+
+    /**
+     * Fold a char for case-insensitive comparison.
+     * @param c char
+     * @return folded char
+     */
+  private static char fold(final char c) {
+    if (c < 0x80) {
+      return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+    /**
+     * Determine if the text contains the needle, ignoring case.
+     * @param text text to search
+     * @return true if found
+     */
+  boolean matches(final CharSequence text) {
+    int n = needle.length;
+    if (n == 0) {
+      return true;
+    }
+    int last = n - 1;
+    int end = text.length() - n;
+    int pos = 0;
+    while (pos <= end) {
+      char c = fold(text.charAt(pos + last));
+      if (c == needle[last]) {
+        int i = last - 1;
+        while (i >= 0 && fold(text.charAt(pos + i)) == needle[i]) {
+          i--;
+        }
+        if (i < 0) {
+          return true;
+        }
+      }
+      pos += shift[c & (TABLE_SIZE - 1)];
+    }
+    return false;
+  }
+}
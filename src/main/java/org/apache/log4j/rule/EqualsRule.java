@@ -17,6 +17,7 @@
 
 package org.apache.log4j.rule;
 
+import org.apache.log4j.spi.LoggingEventField;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 import java.util.HashSet;
@@ -49,7 +50,7 @@ public class EqualsRule extends AbstractRule {
     /**
      * Field.
      */
-  private final String field;
+  private final LoggingEventField field;
 
     /**
      * Create new instance.
@@ -63,7 +64,7 @@ private EqualsRule(final String field, final String value) {
         "Invalid EQUALS rule - " + field + " is not a supported field");
     }
 
-    this.field = field;
+    this.field = RESOLVER.getField(field);
     this.value = value;
   }
 
@@ -101,16 +102,32 @@ public static Rule getRule(final String p1, final String p2) {
     }
   }
 
+    /**
+     * Get field.
+     * @return field
+     */
+  public LoggingEventField getField() {
+    return field;
+  }
+
+    /**
+     * Get value.
+     * @return value
+     */
+  public String getValue() {
+    return value;
+  }
+
     /** {@inheritDoc} */
   public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-    Object p2 = RESOLVER.getValue(field, event);
+    Object p2 = field.getValue(event);
 
     boolean result = (p2 != null) && p2.toString().equals(value);
     if (result && matches != null) {
-        Set entries = (Set) matches.get(field.toUpperCase());
+        Set entries = (Set) matches.get(field.getName());
         if (entries == null) {
             entries = new HashSet();
-            matches.put(field.toUpperCase(), entries);
+            matches.put(field.getName(), entries);
         }
         entries.add(value);
     }
@@ -17,6 +17,7 @@
 
 package org.apache.log4j.rule;
 
+import org.apache.log4j.spi.LoggingEventField;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 import java.util.HashSet;
@@ -44,7 +45,7 @@ public class ExistsRule extends AbstractRule {
     /**
      * field name.
      */
-  private final String field;
+  private final LoggingEventField field;
 
     /**
      * Create new instance.
@@ -57,7 +58,7 @@ private ExistsRule(final String fld) {
         "Invalid EXISTS rule - " + fld + " is not a supported field");
     }
 
-    this.field = fld;
+    this.field = RESOLVER.getField(fld);
   }
 
     /**
@@ -89,14 +90,14 @@ public static Rule getRule(final Stack stack) {
      * {@inheritDoc}
      */
   public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-    Object p2 = RESOLVER.getValue(field, event);
+    Object p2 = field.getValue(event);
 
     boolean result = !((p2 == null) || (p2.toString().equals("")));
     if (result && matches != null) {
-        Set entries = (Set) matches.get(field.toUpperCase());
+        Set entries = (Set) matches.get(field.getName());
         if (entries == null) {
             entries = new HashSet();
-            matches.put(field.toUpperCase(), entries);
+            matches.put(field.getName(), entries);
         }
         entries.add(p2);
     }
@@ -43,6 +43,8 @@
  * See org.apache.log4j.rule.InFixToPostFix for a
  * description of supported operators.
  * See org.apache.log4j.spi.LoggingEventFieldResolver for field keywords.
+ * Field keywords are resolved when the rule is built, not each time it is
+ * evaluated.
  *
  * @author Scott Deboy (sdeboy@apache.org)
  */
@@ -99,6 +101,14 @@ public static Rule getRule(final String expression,
     return new ExpressionRule(COMPILER.compileExpression(postFix));
   }
 
+    /**
+     * Get the rule compiled from the expression.
+     * @return rule
+     */
+  public Rule getCompiledRule() {
+    return rule;
+  }
+
     /**
      * {@inheritDoc}
      */
@@ -17,6 +17,7 @@
 
 package org.apache.log4j.rule;
 
+import org.apache.log4j.spi.LoggingEventField;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 import java.util.HashSet;
@@ -47,13 +48,13 @@ public class InequalityRule extends AbstractRule {
   private static final LoggingEventFieldResolver RESOLVER =
           LoggingEventFieldResolver.getInstance();
     /**
-     * Field name.
+     * Field.
      */
-  private final String field;
+  private final LoggingEventField field;
     /**
-     * Comparison value.
+     * Comparison value, or null if it is not a number and so never matches.
      */
-  private final String value;
+  private final Long value;
     /**
      * Inequality symbol.
      */
@@ -76,8 +77,14 @@ private InequalityRule(
                 + " rule - " + field + " is not a supported field");
     }
 
-    this.field = field;
-    this.value = value;
+    this.field = RESOLVER.getField(field);
+    Long longValue;
+    try {
+      longValue = Long.valueOf(value);
+    } catch (NumberFormatException nfe) {
+      longValue = null;
+    }
+    this.value = longValue;
   }
 
     /**
@@ -123,21 +130,27 @@ public static Rule getRule(final String inequalitySymbol,
 
     /** {@inheritDoc} */
   public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-    long first = 0;
-      try {
-          first = new Long(RESOLVER.getValue(field, event).toString()).longValue();
-    } catch (NumberFormatException nfe) {
+    if (value == null) {
       return false;
     }
-
-    long second = 0;
-
-    try {
-      second = new Long(value).longValue();
-    } catch (NumberFormatException nfe) {
+    Object fieldValue = field.getValue(event);
+    if (fieldValue == null) {
       return false;
     }
 
+    long first;
+    if (fieldValue instanceof Integer || fieldValue instanceof Long) {
+      first = ((Number) fieldValue).longValue();
+    } else {
+      try {
+        first = Long.parseLong(fieldValue.toString());
+      } catch (NumberFormatException nfe) {
+        return false;
+      }
+    }
+
+    long second = value;
+
     boolean result = false;
 
     if ("<".equals(inequalitySymbol)) {
@@ -150,10 +163,10 @@ public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
       result = first >= second;
     }
     if (result && matches != null) {
-        Set entries = (Set) matches.get(field.toUpperCase());
+        Set entries = (Set) matches.get(field.getName());
         if (entries == null) {
             entries = new HashSet();
-            matches.put(field.toUpperCase(), entries);
+            matches.put(field.getName(), entries);
         }
         entries.add(String.valueOf(first));
     }
@@ -17,6 +17,7 @@
 
 package org.apache.log4j.rule;
 
+import org.apache.log4j.spi.LoggingEventField;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 import java.io.IOException;
@@ -31,6 +32,10 @@
 
 /**
  * A Rule class supporting java.util.regex regular expression syntax.
+ * <p>
+ * Instances may be evaluated by several threads at once: each thread gets
+ * its own Matcher.  Where the pattern requires some literal text, values
+ * not containing it are rejected without running the regular expression.
  *
  * @author Scott Deboy (sdeboy@apache.org)
  */
@@ -50,13 +55,17 @@ public class LikeRule extends AbstractRule {
      */
   private transient Pattern pattern;
     /**
-     * Regular expression matcher.
+     * Regular expression matcher for each evaluating thread.
      */
-  private transient Matcher matcher = null;
+  private transient ThreadLocal<Matcher> matcher;
+    /**
+     * Literal text every match must contain, or null if none was found.
+     */
+  private transient CaseInsensitiveMatcher requiredLiteral;
     /**
      * Field.
      */
-  private transient String field;
+  private transient LoggingEventField field;
 
     /**
      * Create new instance.
@@ -70,8 +79,137 @@ private LikeRule(final String field, final Pattern pattern) {
                 "Invalid LIKE rule - " + field + " is not a supported field");
     }
 
-    this.field = field;
+    this.field = RESOLVER.getField(field);
+    setPattern(pattern);
+  }
+
+    /**
+     * Set the pattern and the state derived from it.
+     * @param pattern pattern
+     */
+  private void setPattern(final Pattern pattern) {
     this.pattern = pattern;
+    this.matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+    String literal = longestRequiredLiteral(pattern.pattern());
+    this.requiredLiteral = (literal == null) ? null : new CaseInsensitiveMatcher(literal);
+  }
+
+    /**
+     * Find the longest run of literal text which any match of the pattern
+     * must contain.  The analysis is conservative: patterns using
+     * alternation, inline flags or quoting yield no literal, and only text
+     * outside groups and character classes is considered.
+     * @param regex pattern
+     * @return literal, or null if none was found.
+     */
+  static String longestRequiredLiteral(final String regex) {
+    if (regex.indexOf('|') > -1 || regex.contains("(?") || regex.contains("\\Q")) {
+      return null;
+    }
+    String longest = null;
+    StringBuilder run = new StringBuilder();
+    int depth = 0;
+    int i = 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      int next = i + 1;
+      boolean literal = false;
+      if (c == '\\') {
+        if (next >= regex.length()) {
+          return null;
+        }
+        char escaped = regex.charAt(next);
+        next++;
+        //escaped punctuation is literal, escaped letters are classes or codes
+        if (Character.isLetterOrDigit(escaped)) {
+          if ("dDsSwWbBtnrfeaAzZGhHvVR".indexOf(escaped) == -1) {
+            //an escape which spans more chars, such as \x41 or \p{Lu}
+            return null;
+          }
+        } else if (depth == 0 && !Character.isSurrogate(escaped)) {
+          c = escaped;
+          literal = true;
+        }
+      } else if (c == '[') {
+        //skip the character class, allowing for escapes and a leading ]
+        next = skipClass(regex, next);
+        if (next < 0) {
+          return null;
+        }
+      } else if (c == '{') {
+        //skip the body of a quantifier
+        next = regex.indexOf('}', next);
+        if (next < 0) {
+          return null;
+        }
+        next++;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && ".^$?*+}".indexOf(c) == -1 && !Character.isSurrogate(c)) {
+        literal = true;
+      }
+
+      if (literal) {
+        char quantifier = next < regex.length() ? regex.charAt(next) : 0;
+        if (quantifier == '?' || quantifier == '*' || quantifier == '{') {
+          //optional, so it ends the run without being part of it
+          longest = longer(longest, run);
+          run.setLength(0);
+        } else {
+          run.append(c);
+          if (quantifier == '+') {
+            longest = longer(longest, run);
+            run.setLength(0);
+          }
+        }
+      } else {
+        longest = longer(longest, run);
+        run.setLength(0);
+      }
+      i = next;
+    }
+    return longer(longest, run);
+  }
+
+    /**
+     * Find the end of a character class.
+     * @param regex pattern
+     * @param start position following the opening bracket
+     * @return position following the closing bracket, or -1 if unterminated
+     */
+  private static int skipClass(final String regex, final int start) {
+    int nesting = 1;
+    int i = start;
+    if (i < regex.length() && regex.charAt(i) == '^') {
+      i++;
+    }
+    if (i < regex.length() && regex.charAt(i) == ']') {
+      i++;
+    }
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == '[') {
+        nesting++;
+      } else if (c == ']') {
+        nesting--;
+        if (nesting == 0) {
+          return i + 1;
+        }
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  private static String longer(final String longest, final CharSequence run) {
+    if (run.length() == 0 || (longest != null && longest.length() >= run.length())) {
+      return longest;
+    }
+    return run.toString();
   }
 
     /**
@@ -109,19 +247,22 @@ public static Rule getRule(final String field, final String pattern) {
     /** {@inheritDoc} */
   public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
     //no need to figure out what part of the string matched, just set the entire string as a match
-    Object input = RESOLVER.getValue(field, event);
+    Object input = field.getValue(event);
     if((input != null) && (pattern != null)) {
-        if (matcher == null) {
-            matcher = pattern.matcher(input.toString());
-        } else {
-            matcher.reset(input.toString());
+        CharSequence text = (input instanceof CharSequence) ? (CharSequence) input : input.toString();
+        //cheap rejection of text which can't match before running the regex
+        if (requiredLiteral != null && !requiredLiteral.matches(text)) {
+            return false;
         }
-        boolean result = matcher.matches();
+        Matcher m = matcher.get();
+        boolean result = m.reset(text).matches();
+        //don't hold on to the event's text
+        m.reset("");
         if (result && matches != null) {
-            Set entries = (Set) matches.get(field.toUpperCase());
+            Set entries = (Set) matches.get(field.getName());
             if (entries == null) {
                 entries = new HashSet();
-                matches.put(field.toUpperCase(), entries);
+                matches.put(field.getName(), entries);
             }
             entries.add(input);
         }
@@ -141,9 +282,9 @@ public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
    private void readObject(final java.io.ObjectInputStream in)
      throws IOException, ClassNotFoundException {
          try {
-           field = (String) in.readObject();
+           field = RESOLVER.getField((String) in.readObject());
            String patternString = (String) in.readObject();
-           pattern = Pattern.compile(patternString, Pattern.CASE_INSENSITIVE);
+           setPattern(Pattern.compile(patternString, Pattern.CASE_INSENSITIVE));
          } catch (PatternSyntaxException e) {
              throw new IOException("Invalid LIKE rule - " + e.getMessage());
          }
@@ -158,7 +299,7 @@ private void readObject(final java.io.ObjectInputStream in)
     */
    private void writeObject(final java.io.ObjectOutputStream out)
      throws IOException {
-     out.writeObject(field);
+     out.writeObject(field.toString());
      out.writeObject(pattern.pattern());
    }
 }
@@ -23,6 +23,7 @@
 import java.util.Stack;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 
+import org.apache.log4j.spi.LoggingEventField;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 
@@ -44,7 +45,7 @@ public class NotEqualsRule extends AbstractRule {
     /**
      * Field.
      */
-  private final String field;
+  private final LoggingEventField field;
     /**
      * Value.
      */
@@ -62,7 +63,7 @@ private NotEqualsRule(final String field, final String value) {
         "Invalid NOT EQUALS rule - " + field + " is not a supported field");
     }
 
-    this.field = field;
+    this.field = RESOLVER.getField(field);
     this.value = value;
   }
 
@@ -104,15 +105,15 @@ public static Rule getRule(final Stack stack) {
 
     /** {@inheritDoc} */
   public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-    Object p2 = RESOLVER.getValue(field, event);
+    Object p2 = field.getValue(event);
 
     boolean result = (p2 != null) && !(p2.toString().equals(value));
     if (result && matches != null) {
         //not equals - add the text that isn't equal (p2)
-        Set entries = (Set) matches.get(field.toUpperCase());
+        Set entries = (Set) matches.get(field.getName());
         if (entries == null) {
             entries = new HashSet();
-            matches.put(field.toUpperCase(), entries);
+            matches.put(field.getName(), entries);
         }
         entries.add(value);
     }
@@ -92,6 +92,14 @@ public static Rule getRule(final String value) {
         return new NotLevelEqualsRule(thisLevel);
     }
 
+    /**
+     * Get level.
+     * @return level, or null if the rule was created for an unsupported level name
+     */
+    public Level getLevel() {
+        return level;
+    }
+
     /**
      * {@inheritDoc}
      */
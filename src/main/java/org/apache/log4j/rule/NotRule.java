@@ -78,6 +78,14 @@ public static Rule getRule(final Stack stack) {
               "Invalid NOT rule: - expected rule but received " + o1);
   }
 
+    /**
+     * Get enclosed rule.
+     * @return enclosed rule
+     */
+  public Rule getRule() {
+    return rule;
+  }
+
     /** {@inheritDoc} */
   public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
     if (matches == null) {
@@ -65,6 +65,22 @@ public static Rule getRule(final Rule firstParam, final Rule secondParam) {
       return new OrRule(firstParam, secondParam);
   }
 
+    /**
+     * Get first rule.
+     * @return first rule
+     */
+  public Rule getFirstRule() {
+    return rule1;
+  }
+
+    /**
+     * Get second rule.
+     * @return second rule
+     */
+  public Rule getSecondRule() {
+    return rule2;
+  }
+
     /**
      * Create new instance from top two elements of stack.
      * @param stack stack
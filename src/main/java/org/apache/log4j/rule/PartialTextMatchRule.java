@@ -17,6 +17,7 @@
 
 package org.apache.log4j.rule;
 
+import org.apache.log4j.spi.LoggingEventField;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 import java.util.HashSet;
@@ -45,11 +46,15 @@ public class PartialTextMatchRule extends AbstractRule {
     /**
      * Field.
      */
-  private final String field;
+  private final LoggingEventField field;
     /**
      * Value.
      */
   private final String value;
+    /**
+     * Matcher for value, built once.
+     */
+  private final CaseInsensitiveMatcher matcher;
 
     /**
      * Create new instance.
@@ -63,8 +68,9 @@ private PartialTextMatchRule(final String field, final String value) {
         "Invalid partial text rule - " + field + " is not a supported field");
     }
 
-    this.field = field;
+    this.field = RESOLVER.getField(field);
     this.value = value;
+    this.matcher = (value == null) ? null : new CaseInsensitiveMatcher(value);
   }
 
     /**
@@ -95,15 +101,31 @@ public static Rule getRule(final Stack stack) {
     return new PartialTextMatchRule(p1, p2);
   }
 
+    /**
+     * Get field.
+     * @return field
+     */
+  public LoggingEventField getField() {
+    return field;
+  }
+
+    /**
+     * Get value.
+     * @return value
+     */
+  public String getValue() {
+    return value;
+  }
+
     /** {@inheritDoc} */
   public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-    Object p2 = RESOLVER.getValue(field, event);
-    boolean result = ((p2 != null) && (value != null) && (p2.toString().toLowerCase().indexOf(value.toLowerCase()) > -1));
+    Object p2 = field.getValue(event);
+    boolean result = ((p2 != null) && (matcher != null) && matcher.matches(p2.toString()));
     if (result && matches != null) {
-        Set entries = (Set) matches.get(field.toUpperCase());
+        Set entries = (Set) matches.get(field.getName());
         if (entries == null) {
             entries = new HashSet();
-            matches.put(field.toUpperCase(), entries);
+            matches.put(field.getName(), entries);
         }
         entries.add(value);
     }
@@ -38,11 +38,6 @@ public class TimestampEqualsRule extends AbstractRule {
      * Serialization ID.
      */
   static final long serialVersionUID = 1639079557187790321L;
-    /**
-     * Resolver.
-     */
-  private static final LoggingEventFieldResolver RESOLVER =
-          LoggingEventFieldResolver.getInstance();
     /**
      * Date format.
      */
@@ -77,10 +72,21 @@ public static Rule getRule(final String value) {
       return new TimestampEqualsRule(value);
   }
 
+    /**
+     * Get timestamp compared against, in milliseconds.
+     * @return timestamp
+     */
+  public long getTimeStamp() {
+    return timeStamp;
+  }
+
     /** {@inheritDoc} */
   public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-    String eventTimeStampString = RESOLVER.getValue(LoggingEventFieldResolver.TIMESTAMP_FIELD, event).toString();
-    long eventTimeStamp = Long.parseLong(eventTimeStampString) / 1000 * 1000;
+    if (event.m_timestamp == null) {
+        return false;
+    }
+    long eventMillis = event.m_timestamp.toEpochMilli();
+    long eventTimeStamp = eventMillis / 1000 * 1000;
     boolean result = (eventTimeStamp == timeStamp);
     if (result && matches != null) {
         Set entries = (Set) matches.get(LoggingEventFieldResolver.TIMESTAMP_FIELD);
@@ -88,7 +94,7 @@ public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
             entries = new HashSet();
             matches.put(LoggingEventFieldResolver.TIMESTAMP_FIELD, entries);
         }
-        entries.add(eventTimeStampString);
+        entries.add(String.valueOf(eventMillis));
     }
     return result;
   }
@@ -38,11 +38,6 @@ public class TimestampInequalityRule extends AbstractRule {
      * Serialization ID.
      */
   static final long serialVersionUID = -4642641663914789241L;
-    /**
-     * Resolver.
-     */
-  private static final LoggingEventFieldResolver RESOLVER =
-            LoggingEventFieldResolver.getInstance();
     /**
      * Date format.
      */
@@ -84,11 +79,29 @@ public static Rule getRule(final String inequalitySymbol,
       return new TimestampInequalityRule(inequalitySymbol, value);
   }
 
+    /**
+     * Get inequality symbol.
+     * @return one of &lt;, &gt;, &lt;= and &gt;=
+     */
+  public String getInequalitySymbol() {
+    return inequalitySymbol;
+  }
+
+    /**
+     * Get timestamp compared against, in milliseconds.
+     * @return timestamp
+     */
+  public long getTimeStamp() {
+    return timeStamp;
+  }
+
     /** {@inheritDoc} */
   public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-    String eventTimeStampString = RESOLVER.getValue(LoggingEventFieldResolver.TIMESTAMP_FIELD, event).toString();
-    long eventTimeStamp = Long.parseLong(
-                eventTimeStampString) / 1000 * 1000;
+    if (event.m_timestamp == null) {
+        return false;
+    }
+    long eventMillis = event.m_timestamp.toEpochMilli();
+    long eventTimeStamp = eventMillis / 1000 * 1000;
     boolean result = false;
     long first = eventTimeStamp;
     long second = timeStamp;
@@ -108,7 +121,7 @@ public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
             entries = new HashSet();
             matches.put(LoggingEventFieldResolver.TIMESTAMP_FIELD, entries);
         }
-        entries.add(eventTimeStampString);
+        entries.add(String.valueOf(eventMillis));
     }
     return result;
   }
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.spi;
+
+import java.io.Serializable;
+import java.util.Locale;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.LocationInfo;
+
+
+/**
+ * A field of a logging event, resolved once from its name in the rule grammar.
+ * <p>
+ * Rules obtain an instance from
+ * {@link LoggingEventFieldResolver#getField(String)} when they are built, so
+ * evaluating a rule against an event reads the field directly instead of
+ * normalizing and matching the field name again for every event.
+ *
+ * @see LoggingEventFieldResolver
+ */
+public final class LoggingEventField implements Serializable {
+    /**
+     * Serialization ID.
+     */
+    static final long serialVersionUID = 4393829126316467389L;
+
+    private enum Kind {
+        LOGGER, LEVEL, CLASS, FILE, LINE, METHOD, MSG, NDC, EXCEPTION, TIMESTAMP, THREAD, PROP
+    }
+
+    private final Kind kind;
+    /**
+     * Upper-case field name, as used for the keys of rule match maps.
+     */
+    private final String name;
+    /**
+     * Property key, with its case preserved, for PROP. fields.
+     */
+    private final String propertyKey;
+
+    private LoggingEventField(final Kind kind, final String name, final String propertyKey) {
+        this.kind = kind;
+        this.name = name;
+        this.propertyKey = propertyKey;
+    }
+
+    /**
+     * Resolve a field name.
+     * @param fieldName field name, case insensitive except for the key of PROP. fields
+     * @return field
+     * @throws IllegalArgumentException if the name is not a supported field
+     */
+    static LoggingEventField forName(final String fieldName) {
+        if (fieldName == null) {
+            throw new IllegalArgumentException("Unsupported field name: null");
+        }
+        String upperField = fieldName.toUpperCase(Locale.US);
+        if (upperField.startsWith(LoggingEventFieldResolver.PROP_FIELD)) {
+            //note: need to use actual fieldname since case matters
+            return new LoggingEventField(Kind.PROP, upperField,
+                fieldName.substring(LoggingEventFieldResolver.PROP_FIELD.length()));
+        }
+        Kind kind;
+        try {
+            kind = Kind.valueOf(upperField);
+        } catch (IllegalArgumentException e) {
+            kind = Kind.PROP;
+        }
+        if (kind == Kind.PROP) {
+            //there wasn't a match (a bare PROP has no key)
+            throw new IllegalArgumentException("Unsupported field name: " + fieldName);
+        }
+        return new LoggingEventField(kind, upperField, null);
+    }
+
+    /**
+     * @return upper-case field name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if this is the LEVEL field
+     */
+    public boolean isLevel() {
+        return kind == Kind.LEVEL;
+    }
+
+    /**
+     * @return true if this is the TIMESTAMP field
+     */
+    public boolean isTimestamp() {
+        return kind == Kind.TIMESTAMP;
+    }
+
+    /**
+     * Get value of this field.
+     * @param event event
+     * @return value of field, see {@link LoggingEventFieldResolver} for the types returned
+     */
+    public Object getValue(final ChainsawLoggingEvent event) {
+        LocationInfo info;
+        switch (kind) {
+            case LOGGER:
+                return event.m_logger;
+            case LEVEL:
+                return event.m_level;
+            case MSG:
+                return event.m_message;
+            case NDC:
+                return ((event.m_ndc == null) ? LoggingEventFieldResolver.EMPTY_STRING : event.m_ndc);
+            case EXCEPTION:
+                return LoggingEventFieldResolver.EMPTY_STRING;
+            case TIMESTAMP:
+                return event.m_timestamp;
+            case THREAD:
+                return event.m_threadName;
+            case PROP:
+                return getProperty(event);
+            case CLASS:
+                info = event.m_locationInfo;
+                return ((info == null) ? LoggingEventFieldResolver.EMPTY_STRING : info.className);
+            case FILE:
+                info = event.m_locationInfo;
+                return ((info == null) ? LoggingEventFieldResolver.EMPTY_STRING : info.fileName);
+            case LINE:
+                info = event.m_locationInfo;
+                return ((info == null) ? LoggingEventFieldResolver.EMPTY_STRING : info.lineNumber);
+            case METHOD:
+                info = event.m_locationInfo;
+                return ((info == null) ? LoggingEventFieldResolver.EMPTY_STRING : info.methodName);
+            default:
+                throw new IllegalArgumentException("Unsupported field name: " + name);
+        }
+    }
+
+    private String getProperty(final ChainsawLoggingEvent event) {
+        String property = event.getProperty(propertyKey);
+        if (property != null && property.length() >= 1) {
+            return property;
+        }
+
+        // We did not get the property in a case-sensitive manner - check for
+        // case-insensitive
+        for (String key : event.getPropertyKeySet()) {
+            if (key.equalsIgnoreCase(propertyKey)) {
+                return event.getProperty(key);
+            }
+        }
+
+        return LoggingEventFieldResolver.EMPTY_STRING;
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.PROP ? LoggingEventFieldResolver.PROP_FIELD + propertyKey : name;
+    }
+}
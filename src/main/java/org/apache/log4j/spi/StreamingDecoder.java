@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.spi;
+
+
+import java.util.Vector;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+
+
+/**
+ * A Decoder which can be fed raw bytes as they arrive, for example from a
+ * socket, without the caller having to decode them into Strings first.
+ * <p>
+ * Data may be split anywhere, including in the middle of a multi-byte
+ * character: bytes which do not yet form a complete event are kept by the
+ * decoder and combined with the data passed to the next call.
+ * <p>
+ * Implementations keep per-stream state, so an instance must not be shared
+ * between streams.
+ */
+public interface StreamingDecoder extends Decoder {
+    /**
+     * Decode the events completed by the given bytes.
+     *
+     * @param data   buffer holding the bytes read
+     * @param offset offset of the first byte read
+     * @param length number of bytes read
+     * @return events completed by this data, or null if there are none.
+     */
+    Vector<ChainsawLoggingEvent> decodeEvents(byte[] data, int offset, int length);
+
+    /**
+     * Discard any partial event data kept from previous calls.
+     */
+    void reset();
+}
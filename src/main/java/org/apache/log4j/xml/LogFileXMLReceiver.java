@@ -21,6 +21,7 @@
 import org.apache.log4j.rule.ExpressionRule;
 import org.apache.log4j.rule.Rule;
 import org.apache.log4j.spi.Decoder;
+import org.apache.log4j.spi.StreamingDecoder;
 
 import java.io.*;
 import java.net.MalformedURLException;
@@ -65,7 +66,7 @@ public class LogFileXMLReceiver extends ChainsawReceiverSkeleton {
     private boolean tailing = false;
 
     private Decoder decoderInstance;
-    private Reader reader;
+    private InputStream inputStream;
     private static final String FILE_KEY = "file";
     private String host;
     private String path;
@@ -169,24 +170,34 @@ public static void main(String[] args) {
      */
     public void shutdown() {
         try {
-            if (reader != null) {
-                reader.close();
-                reader = null;
+            if (inputStream != null) {
+                inputStream.close();
+                inputStream = null;
             }
         } catch (IOException ioe) {
             ioe.printStackTrace();
         }
     }
 
-    private void process(Reader unbufferedReader) throws IOException {
-        BufferedReader bufferedReader = new BufferedReader(unbufferedReader);
+    private void process(InputStream unbufferedStream) throws IOException {
+        //a streaming decoder is handed the bytes as read, other decoders get Strings
+        StreamingDecoder streamingDecoder = decoderInstance instanceof StreamingDecoder
+            ? (StreamingDecoder) decoderInstance : null;
+        InputStream bufferedStream = new BufferedInputStream(unbufferedStream);
+        Reader bufferedReader = streamingDecoder == null ? new InputStreamReader(bufferedStream) : null;
+        byte[] bytes = new byte[10000];
         char[] content = new char[10000];
         logger.debug("processing starting: " + fileURL);
         int length;
         do {
-            System.out.println("in do loop-about to process");
-            while ((length = bufferedReader.read(content)) > -1) {
-                processEvents(decoderInstance.decodeEvents(String.valueOf(content, 0, length)));
+            if (streamingDecoder != null) {
+                while ((length = bufferedStream.read(bytes)) > -1) {
+                    processEvents(streamingDecoder.decodeEvents(bytes, 0, length));
+                }
+            } else {
+                while ((length = bufferedReader.read(content)) > -1) {
+                    processEvents(decoderInstance.decodeEvents(String.valueOf(content, 0, length)));
+                }
             }
             if (tailing) {
                 try {
@@ -276,8 +287,8 @@ public void start() {
             }
 
             try {
-                reader = new InputStreamReader(new URL(getFileURL()).openStream());
-                process(reader);
+                inputStream = new URL(getFileURL()).openStream();
+                process(inputStream);
             } catch (FileNotFoundException fnfe) {
                 logger.info("file not available");
             } catch (IOException ioe) {
@@ -17,62 +17,77 @@
 
 package org.apache.log4j.xml;
 
-import org.apache.log4j.spi.Decoder;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
+import org.apache.log4j.spi.StreamingDecoder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.*;
 import java.io.*;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
 import java.util.zip.ZipInputStream;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
 import org.apache.log4j.chainsaw.logevents.LocationInfo;
 
 
 /**
  * Decodes JDK 1.4's java.util.logging package events
  * delivered via XML (using the logger.dtd).
+ * <p>
+ * Records are read with a StAX pull parser and an event is created as each
+ * record element closes.  Only the data of the records not yet complete is
+ * held between calls, so memory use is bounded by the size of a record
+ * rather than the size of the log.  The XML prolog and log element which
+ * java.util.logging writes ahead of the first record are skipped wherever
+ * they appear.  A malformed record is skipped, and parsing resumes at the
+ * next record start tag.  As the decoder keeps this state, an instance must
+ * not be shared between streams.
  *
  * @author Scott Deboy (sdeboy@apache.org)
  * @author Paul Smith (psmith@apache.org)
  */
-public class UtilLoggingXMLDecoder implements Decoder {
-    //NOTE: xml section is only handed on first delivery of events
-    //on this first delivery of events, there is no end tag for the log element
+public class UtilLoggingXMLDecoder implements StreamingDecoder {
+    private static final Logger logger = LogManager.getLogger();
+
     /**
-     * Document prolog.
+     * Root element opened around the records.
      */
-    private static final String BEGIN_PART =
-        "<log>";
+    private static final byte[] BEGIN_PART = "<log>".getBytes(StandardCharsets.UTF_8);
     /**
-     * Document close.
+     * Root element close.
      */
-    private static final String END_PART = "</log>";
+    private static final byte[] END_PART = "</log>".getBytes(StandardCharsets.UTF_8);
     /**
-     * Document builder.
+     * Record start, without the closing bracket.
      */
-    private DocumentBuilder docBuilder;
+    private static final String RECORD_START = "<record";
     /**
-     * Additional properties.
+     * Record end.
      */
-    private Map additionalProperties = new HashMap();
+    private static final String RECORD_END = "</record>";
     /**
-     * Partial event.
+     * Size of the blocks a file is fed to the parser in.
      */
-    private String partialEvent;
+    private static final int READ_BUFFER_SIZE = 65536;
+
+    private final XMLInputFactory inputFactory;
     /**
-     * Record end.
+     * Additional properties.
      */
-    private static final String RECORD_END = "</record>";
+    private Map additionalProperties = new HashMap();
+    /**
+     * Bytes of the record data not yet parsed.
+     */
+    private final XMLRecordBuffer partialEvents = new XMLRecordBuffer(RECORD_START, RECORD_END);
     /**
      * Owner.
      */
@@ -80,8 +95,6 @@ public class UtilLoggingXMLDecoder implements Decoder {
 
     private ChainsawLoggingEventBuilder builder = new ChainsawLoggingEventBuilder();
 
-    private static final String ENCODING = "UTF-8";
-
     /**
      * Create new instance.
      *
@@ -96,16 +109,11 @@ public UtilLoggingXMLDecoder(final Component o) {
      * Create new instance.
      */
     public UtilLoggingXMLDecoder() {
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        dbf.setValidating(false);
-
-        try {
-            docBuilder = dbf.newDocumentBuilder();
-//            docBuilder.setErrorHandler(new SAXErrorHandler());
-            docBuilder.setEntityResolver(new UtilLoggingEntityResolver());
-        } catch (ParserConfigurationException pce) {
-            System.err.println("Unable to get document builder");
-        }
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
     }
 
     /**
@@ -120,61 +128,19 @@ public void setAdditionalProperties(final Map properties) {
         this.additionalProperties = properties;
     }
 
-    /**
-     * Converts the LoggingEvent data in XML string format into an actual
-     * XML Document class instance.
-     *
-     * @param data XML fragment
-     * @return dom document
-     */
-    private Document parse(final String data) {
-        if (docBuilder == null || data == null) {
-            return null;
-        }
-
-        Document document = null;
-
-        try {
-            // we change the system ID to a valid URI so that Crimson won't
-            // complain. Indeed, "log4j.dtd" alone is not a valid URI which
-            // causes Crimson to barf. The Log4jEntityResolver only cares
-            // about the "log4j.dtd" ending.
-
-            /**
-             * resetting the length of the StringBuffer is dangerous, particularly
-             * on some JDK 1.4 impls, there's a known Bug that causes a memory leak
-             */
-            StringBuilder buf = new StringBuilder(1024);
-
-            if (!data.startsWith("<?xml")) {
-                buf.append(BEGIN_PART);
-            }
-
-            buf.append(data);
-
-            if (!data.endsWith(END_PART)) {
-                buf.append(END_PART);
-            }
-
-            InputSource inputSource =
-                new InputSource(new StringReader(buf.toString()));
-            document = docBuilder.parse(inputSource);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return document;
-    }
-
     /**
      * Decodes a File into a Vector of LoggingEvents.
+     * <p>
+     * The file is fed to the parser in blocks, so a log which is still being
+     * written (and so has no closing log element) is decoded up to its last
+     * complete record.  The file gets a record buffer of its own, so records
+     * kept from calls to decodeEvents are left alone.
      *
      * @param url the url of a file containing events to decode
      * @return Vector of LoggingEvents
      * @throws IOException if IO error during processing.
      */
     public Vector<ChainsawLoggingEvent> decode(final URL url) throws IOException {
-        LineNumberReader reader;
         boolean isZipFile = url.getPath().toLowerCase().endsWith(".zip");
         InputStream inputStream;
         if (isZipFile) {
@@ -185,37 +151,19 @@ public Vector<ChainsawLoggingEvent> decode(final URL url) throws IOException {
             inputStream = url.openStream();
         }
         if (owner != null) {
-            reader = new LineNumberReader(
-                new InputStreamReader(
-                    new ProgressMonitorInputStream(owner,
-                        "Loading " + url, inputStream), ENCODING));
-        } else {
-            reader = new LineNumberReader(new InputStreamReader(inputStream, ENCODING));
+            inputStream = new ProgressMonitorInputStream(owner, "Loading " + url, inputStream);
         }
         Vector<ChainsawLoggingEvent> v = new Vector<>();
 
-        String line;
-        Vector<ChainsawLoggingEvent> events;
-        try {
-            while ((line = reader.readLine()) != null) {
-                StringBuilder buffer = new StringBuilder(line);
-                for (int i = 0; i < 1000; i++) {
-                    buffer.append(reader.readLine()).append("\n");
-                }
-                events = decodeEvents(buffer.toString());
-                if (events != null) {
-                    v.addAll(events);
+        XMLRecordBuffer records = new XMLRecordBuffer(RECORD_START, RECORD_END);
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (InputStream in = inputStream) {
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                if (records.append(buffer, 0, length)) {
+                    parseRecords(records, records.takeCompleteRecords(), v);
                 }
             }
-        } finally {
-            partialEvent = null;
-            try {
-                if (reader != null) {
-                    reader.close();
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
         }
         return v;
     }
@@ -228,51 +176,43 @@ public Vector<ChainsawLoggingEvent> decode(final URL url) throws IOException {
      * @return Vector of LoggingEvents
      */
     public Vector<ChainsawLoggingEvent> decodeEvents(final String document) {
+        if (document == null) {
+            return null;
+        }
+        if (partialEvents.isEmpty() && document.trim().equals("")) {
+            return null;
+        }
+        byte[] data = document.getBytes(StandardCharsets.UTF_8);
+        return decodeEvents(data, 0, data.length);
+    }
 
-        if (document != null) {
-
-            if (document.trim().equals("")) {
-                return null;
-            }
-
-            String newDoc;
-            String newPartialEvent = null;
-            //separate the string into the last portion ending with </record>
-            // (which will be processed) and the partial event which
-            // will be combined and processed in the next section
-
-            //if the document does not contain a record end,
-            // append it to the partial event string
-            if (document.lastIndexOf(RECORD_END) == -1) {
-                partialEvent = partialEvent + document;
-                return null;
-            }
-
-            if (document.lastIndexOf(RECORD_END) + RECORD_END.length()
-                < document.length()) {
-                newDoc = document.substring(0,
-                    document.lastIndexOf(RECORD_END) + RECORD_END.length());
-                newPartialEvent = document.substring(
-                    document.lastIndexOf(RECORD_END) + RECORD_END.length());
-            } else {
-                newDoc = document;
-            }
-            if (partialEvent != null) {
-                newDoc = partialEvent + newDoc;
-            }
-            partialEvent = newPartialEvent;
-
-            Document doc = parse(newDoc);
-            if (doc == null) {
-                return null;
-            }
-            return decodeEvents(doc);
+    /**
+     * Decodes the records completed by the given bytes, which are expected to
+     * be UTF-8.  Any trailing incomplete record is kept for the next call.
+     *
+     * @param data   buffer holding the bytes read
+     * @param offset offset of the first byte read
+     * @param length number of bytes read
+     * @return Vector of LoggingEvents, or null if no record was completed
+     */
+    public Vector<ChainsawLoggingEvent> decodeEvents(final byte[] data, final int offset, final int length) {
+        if (!partialEvents.append(data, offset, length)) {
+            return null;
         }
-        return null;
+        Vector<ChainsawLoggingEvent> events = new Vector<>();
+        parseRecords(partialEvents, partialEvents.takeCompleteRecords(), events);
+        return events;
+    }
+
+    /**
+     * Discards any incomplete record kept from previous calls to decodeEvents.
+     */
+    public void reset() {
+        partialEvents.clear();
     }
 
     /**
-     * Converts the string data into an XML Document, and then soaks out the
+     * Parses the string data and soaks out the
      * relevant bits to form a new LoggingEvent instance which can be used
      * by any Log4j element locally.
      *
@@ -280,13 +220,16 @@ public Vector<ChainsawLoggingEvent> decodeEvents(final String document) {
      * @return a single LoggingEvent or null
      */
     public ChainsawLoggingEvent decode(final String data) {
-        Document document = parse(data);
-
-        if (document == null) {
+        if (data == null) {
             return null;
         }
-
-        Vector<ChainsawLoggingEvent> events = decodeEvents(document);
+        XMLRecordBuffer record = new XMLRecordBuffer(RECORD_START, RECORD_END);
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        if (!record.append(bytes, 0, bytes.length)) {
+            return null;
+        }
+        Vector<ChainsawLoggingEvent> events = new Vector<>();
+        parseRecords(record, record.takeCompleteRecords(), events);
 
         if (events.size() > 0) {
             return events.firstElement();
@@ -296,173 +239,196 @@ public ChainsawLoggingEvent decode(final String data) {
     }
 
     /**
-     * Given a Document, converts the XML into a Vector of LoggingEvents.
+     * Parses records taken from a record buffer.  A malformed record is
+     * skipped: parsing resumes at the record start following it, so only
+     * that record is lost.
      *
-     * @param document XML document
-     * @return Vector of LoggingEvents
+     * @param buffer  the buffer the records were taken from
+     * @param records record elements, starting with a record start tag
+     * @param events  list the decoded events are added to
      */
-    private Vector<ChainsawLoggingEvent> decodeEvents(final Document document) {
-        Vector<ChainsawLoggingEvent> events = new Vector<>();
-
-        NodeList eventList = document.getElementsByTagName("record");
-
-        for (int eventIndex = 0; eventIndex < eventList.getLength();
-             eventIndex++) {
-            Node eventNode = eventList.item(eventIndex);
-
-            String logger = null;
-            long timeStamp = 0L;
-            String level = null;
-            String threadName = null;
-            String message = null;
-            String ndc = null;
-            String[] exception = null;
-            String className = null;
-            String methodName = null;
-            String fileName = null;
-            String lineNumber = null;
-            Hashtable properties = new Hashtable();
-
-            //format of date: 2003-05-04T11:04:52
-            //ignore date or set as a property? using millis in constructor instead
-            NodeList list = eventNode.getChildNodes();
-            int listLength = list.getLength();
-
-            if (listLength == 0) {
-                continue;
+    private void parseRecords(final XMLRecordBuffer buffer, final byte[] records, final Vector<ChainsawLoggingEvent> events) {
+        int start = 0;
+        while (start < records.length) {
+            int parsedCount = parse(new ByteArrayInputStream(records, start, records.length - start), events);
+            if (parsedCount < 0) {
+                return;
             }
+            //skip the records parsed and the malformed one following them
+            for (int skipped = parsedCount; skipped >= 0 && start >= 0; skipped--) {
+                start = buffer.indexOfRecordStart(records, start + 1, records.length);
+            }
+            if (start < 0) {
+                return;
+            }
+        }
+    }
 
-            for (int y = 0; y < listLength; y++) {
-                String tagName = list.item(y).getNodeName();
-
-                if (tagName.equalsIgnoreCase("logger")) {
-                    logger = getCData(list.item(y));
-                }
-
-                if (tagName.equalsIgnoreCase("millis")) {
-                    timeStamp = Long.parseLong(getCData(list.item(y)));
-                }
-
-                if (tagName.equalsIgnoreCase("level")) {
-                    level = getCData(list.item(y));
-                }
-
-                if (tagName.equalsIgnoreCase("thread")) {
-                    threadName = getCData(list.item(y));
-                }
-
-                if (tagName.equalsIgnoreCase("sequence")) {
-                    properties.put("log4jid", getCData(list.item(y)));
-                }
-
-                if (tagName.equalsIgnoreCase("message")) {
-                    message = getCData(list.item(y));
-                }
-
-                if (tagName.equalsIgnoreCase("class")) {
-                    className = getCData(list.item(y));
-                }
-
-                if (tagName.equalsIgnoreCase("method")) {
-                    methodName = getCData(list.item(y));
-                }
-
-                if (tagName.equalsIgnoreCase("exception")) {
-                    ArrayList<String> exceptionList = new ArrayList<>();
-                    NodeList exList = list.item(y).getChildNodes();
-                    int exlistLength = exList.getLength();
-
-                    for (int i2 = 0; i2 < exlistLength; i2++) {
-                        Node exNode = exList.item(i2);
-                        String exName = exList.item(i2).getNodeName();
-
-                        if (exName.equalsIgnoreCase("message")) {
-                            exceptionList.add(getCData(exList.item(i2)));
-                        }
-
-                        if (exName.equalsIgnoreCase("frame")) {
-                            NodeList exList2 = exNode.getChildNodes();
-                            int exlist2Length = exList2.getLength();
-
-                            for (int i3 = 0; i3 < exlist2Length; i3++) {
-                                exceptionList.add(getCData(exList2.item(i3)) + "\n");
-                            }
-                        }
-                    }
-                    if (exceptionList.size() > 0) {
-                        exception =
-                            (String[]) exceptionList.toArray(new String[exceptionList.size()]);
+    /**
+     * Parses a sequence of record elements, adding an event to the list
+     * as each element closes.  Events completed before a parse error are kept.
+     *
+     * @param fragment record elements, without a root element
+     * @param events   list the decoded events are added to
+     * @return -1 if the fragment was parsed to its end, otherwise the number of
+     * records read before the parse error, including empty ones
+     */
+    private int parse(final InputStream fragment, final Vector<ChainsawLoggingEvent> events) {
+        InputStream document = new SequenceInputStream(
+            new SequenceInputStream(new ByteArrayInputStream(BEGIN_PART), fragment),
+            new ByteArrayInputStream(END_PART));
+        XMLStreamReader reader = null;
+        int parsedCount = 0;
+        try {
+            reader = inputFactory.createXMLStreamReader(document, StandardCharsets.UTF_8.name());
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT
+                    && reader.getLocalName().equalsIgnoreCase("record")) {
+                    ChainsawLoggingEvent event = readRecord(reader);
+                    parsedCount++;
+                    if (event != null) {
+                        events.add(event);
                     }
                 }
             }
-
-            /**
-             * We add all the additional properties to the properties
-             * hashtable. Override properties that already exist
-             */
-            if (additionalProperties.size() > 0) {
-                if (properties == null) {
-                    properties = new Hashtable(additionalProperties);
-                }
-                for (Object o : additionalProperties.entrySet()) {
-                    Map.Entry e = (Map.Entry) o;
-                    properties.put(e.getKey(), e.getValue());
+        } catch (XMLStreamException | RuntimeException e) {
+            logger.warn("Unable to parse java.util.logging XML record, skipping it", e);
+            return parsedCount;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    //nothing to release
                 }
             }
+        }
+        return -1;
+    }
 
-            LocationInfo info;
-            if ((fileName != null)
-                || (className != null)
-                || (methodName != null)
-                || (lineNumber != null)) {
-                info = new LocationInfo(fileName, className, methodName, 
-                        Integer.parseInt(lineNumber));
+    /**
+     * Reads the content of the record element the reader is positioned
+     * on, leaving the reader on its end tag.
+     *
+     * @param reader reader positioned on a record start tag
+     * @return the decoded event, or null if the record is empty
+     */
+    private ChainsawLoggingEvent readRecord(final XMLStreamReader reader) throws XMLStreamException {
+        String logger = null;
+        long timeStamp = 0L;
+        String level = null;
+        String threadName = null;
+        String message = null;
+        String className = null;
+        String methodName = null;
+        Hashtable properties = new Hashtable();
+        boolean empty = true;
+
+        //format of date: 2003-05-04T11:04:52
+        //ignore date or set as a property? using millis in constructor instead
+        int type;
+        while ((type = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (type != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            empty = false;
+            String tagName = reader.getLocalName();
+
+            if (tagName.equalsIgnoreCase("logger")) {
+                logger = reader.getElementText();
+            } else if (tagName.equalsIgnoreCase("millis")) {
+                timeStamp = Long.parseLong(reader.getElementText().trim());
+            } else if (tagName.equalsIgnoreCase("level")) {
+                level = reader.getElementText();
+            } else if (tagName.equalsIgnoreCase("thread")) {
+                threadName = reader.getElementText();
+            } else if (tagName.equalsIgnoreCase("sequence")) {
+                properties.put("log4jid", reader.getElementText());
+            } else if (tagName.equalsIgnoreCase("message")) {
+                message = reader.getElementText();
+            } else if (tagName.equalsIgnoreCase("class")) {
+                className = reader.getElementText();
+            } else if (tagName.equalsIgnoreCase("method")) {
+                methodName = reader.getElementText();
             } else {
-                info = null;
+                //the exception is not carried by ChainsawLoggingEvent
+                skipElement(reader);
             }
+        }
 
-//            ThrowableInformation throwableInfo = null;
-//            if (exception != null) {
-//                throwableInfo = new ThrowableInformation(exception);
-//            }
+        if (empty) {
+            return null;
+        }
 
-            builder.clear();
-            builder.setLogger(logger)
-                    .setTimestamp(Instant.ofEpochMilli(timeStamp))
-                    .setLevelFromString(level)
-                    .setMessage(message)
-                    .setThreadName(threadName)
-                    .setMDC(properties)
-                    .setNDC(ndc)
-                    .setLocationInfo(info);
+        /**
+         * We add all the additional properties to the properties
+         * hashtable. Override properties that already exist
+         */
+        for (Object o : additionalProperties.entrySet()) {
+            Map.Entry e = (Map.Entry) o;
+            properties.put(e.getKey(), e.getValue());
+        }
 
+        LocationInfo info;
+        if ((className != null)
+            || (methodName != null)) {
+            info = new LocationInfo(null, className, methodName, -1);
+        } else {
+            info = null;
+        }
 
-            events.add(builder.create());
+        builder.clear();
+        builder.setLogger(logger)
+                .setTimestamp(Instant.ofEpochMilli(timeStamp))
+                .setLevel(toLevel(level))
+                .setMessage(message)
+                .setThreadName(threadName)
+                .setMDC(properties)
+                .setLocationInfo(info);
 
-        }
-        return events;
+        return builder.create();
     }
 
     /**
-     * Get contents of CDATASection.
-     *
-     * @param n CDATASection
-     * @return text content of all text or CDATA children of node.
+     * Maps a java.util.logging level name onto the nearest Chainsaw level.
+     * Numeric and unknown custom levels are treated as INFO.
      */
-    private String getCData(final Node n) {
-        StringBuilder buf = new StringBuilder();
-        NodeList nl = n.getChildNodes();
-
-        for (int x = 0; x < nl.getLength(); x++) {
-            Node innerNode = nl.item(x);
+    private static Level toLevel(final String level) {
+        if (level == null) {
+            return Level.INFO;
+        }
+        switch (level.trim().toUpperCase()) {
+            case "OFF":
+                return Level.OFF;
+            case "SEVERE":
+                return Level.ERROR;
+            case "WARNING":
+                return Level.WARN;
+            case "FINE":
+                return Level.DEBUG;
+            case "FINER":
+            case "FINEST":
+                return Level.TRACE;
+            case "ALL":
+                return Level.ALL;
+            default:
+                return Level.INFO;
+        }
+    }
 
-            if (
-                (innerNode.getNodeType() == Node.TEXT_NODE)
-                    || (innerNode.getNodeType() == Node.CDATA_SECTION_NODE)) {
-                buf.append(innerNode.getNodeValue());
+    /**
+     * Skips the element the reader is positioned on, including its children,
+     * leaving the reader on its end tag.
+     */
+    private void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int type = reader.next();
+            if (type == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (type == XMLStreamConstants.END_ELEMENT) {
+                depth--;
             }
         }
-
-        return buf.toString();
     }
 }
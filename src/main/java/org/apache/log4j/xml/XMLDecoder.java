@@ -17,19 +17,19 @@
 
 package org.apache.log4j.xml;
 
-import org.apache.log4j.spi.Decoder;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
+import org.apache.log4j.spi.StreamingDecoder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.*;
 import java.io.*;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Hashtable;
@@ -38,7 +38,6 @@
 import java.util.zip.ZipInputStream;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
-import org.apache.log4j.chainsaw.logevents.Level;
 import org.apache.log4j.chainsaw.logevents.LocationInfo;
 
 
@@ -49,6 +48,12 @@
  * This decoder can process a collection of log4j:event nodes ONLY
  * (no XML declaration nor eventSet node)
  * <p>
+ * Events are read with a StAX pull parser and created as each log4j:event
+ * element closes, so no document tree is ever built.  Data passed to
+ * decodeEvents may end part way through an event: the incomplete tail is kept
+ * (as bytes) and parsed together with the data of the next call.  As the
+ * decoder keeps this state, an instance must not be shared between streams.
+ * <p>
  * NOTE:  Only a single LoggingEvent is returned from the decode method
  * even though the DTD supports multiple events nested in an eventSet.
  * <p>
@@ -59,39 +64,41 @@
  * @author Scott Deboy (sdeboy@apache.org)
  * @author Paul Smith (psmith@apache.org)
  */
-public class XMLDecoder implements Decoder {
-
-    private static final String ENCODING = "UTF-8";
+public class XMLDecoder implements StreamingDecoder {
+    private static final Logger logger = LogManager.getLogger();
 
     /**
-     * Document prolog.
+     * Root element opened around the event fragments, declaring the log4j prefix.
      */
-    private static final String BEGINPART =
-        "<?xml version=\"1.0\" encoding=\"" + ENCODING + "\" ?>"
-            + "<!DOCTYPE log4j:eventSet SYSTEM \"http://localhost/log4j.dtd\">"
-            + "<log4j:eventSet version=\"1.2\" "
-            + "xmlns:log4j=\"http://jakarta.apache.org/log4j/\">";
+    private static final byte[] BEGINPART =
+        ("<log4j:eventSet version=\"1.2\" "
+            + "xmlns:log4j=\"http://jakarta.apache.org/log4j/\">").getBytes(StandardCharsets.UTF_8);
     /**
-     * Document close.
+     * Root element close.
      */
-    private static final String ENDPART = "</log4j:eventSet>";
+    private static final byte[] ENDPART = "</log4j:eventSet>".getBytes(StandardCharsets.UTF_8);
+    /**
+     * Record start, without the closing bracket.
+     */
+    private static final String RECORD_START = "<log4j:event";
     /**
      * Record end.
      */
     private static final String RECORD_END = "</log4j:event>";
-
     /**
-     * Document builder.
+     * Size of the blocks a file is read in.
      */
-    private DocumentBuilder docBuilder;
+    private static final int READ_BLOCK_SIZE = 65536;
+
+    private final XMLInputFactory inputFactory;
     /**
      * Additional properties.
      */
     private Map additionalProperties = new HashMap();
     /**
-     * Partial event.
+     * Bytes of the event data not yet parsed.
      */
-    private String partialEvent;
+    private final XMLRecordBuffer partialEvents = new XMLRecordBuffer(RECORD_START, RECORD_END);
     /**
      * Owner.
      */
@@ -113,16 +120,11 @@ public XMLDecoder(final Component o) {
      * Create new instance.
      */
     public XMLDecoder() {
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        dbf.setValidating(false);
-
-        try {
-            docBuilder = dbf.newDocumentBuilder();
-//            docBuilder.setErrorHandler(new SAXErrorHandler());
-            docBuilder.setEntityResolver(new Log4jEntityResolver());
-        } catch (ParserConfigurationException pce) {
-            System.err.println("Unable to get document builder");
-        }
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
     }
 
     /**
@@ -137,48 +139,18 @@ public void setAdditionalProperties(final Map properties) {
         this.additionalProperties = properties;
     }
 
-    /**
-     * Converts the LoggingEvent data in XML string format into an actual
-     * XML Document class instance.
-     *
-     * @param data XML fragment
-     * @return dom document
-     */
-    private Document parse(final String data) {
-        if (docBuilder == null || data == null) {
-            return null;
-        }
-        Document document = null;
-
-        try {
-            // we change the system ID to a valid URI so that Crimson won't
-            // complain. Indeed, "log4j.dtd" alone is not a valid URI which
-            // causes Crimson to barf. The Log4jEntityResolver only cares
-            // about the "log4j.dtd" ending.
-
-            /**
-             * resetting the length of the StringBuffer is dangerous, particularly
-             * on some JDK 1.4 impls, there's a known Bug that causes a memory leak
-             */
-            String buf = BEGINPART + data + ENDPART;
-            InputSource inputSource = new InputSource(new StringReader(buf));
-            document = docBuilder.parse(inputSource);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return document;
-    }
-
     /**
      * Decodes a File into a Vector of LoggingEvents.
+     * <p>
+     * The file is read in blocks and the events completed by each block are
+     * parsed, so it is not read into memory first.  A malformed event is
+     * skipped, and parsing resumes at the next log4j:event start tag.
      *
      * @param url the url of a file containing events to decode
      * @return Vector of LoggingEvents
      * @throws IOException if IO error during processing.
      */
     public Vector<ChainsawLoggingEvent> decode(final URL url) throws IOException {
-        LineNumberReader reader;
         boolean isZipFile = url.getPath().toLowerCase().endsWith(".zip");
         InputStream inputStream;
         if (isZipFile) {
@@ -189,39 +161,24 @@ public Vector<ChainsawLoggingEvent> decode(final URL url) throws IOException {
             inputStream = url.openStream();
         }
         if (owner != null) {
-            reader = new LineNumberReader(
-                new InputStreamReader(
-                    new ProgressMonitorInputStream(owner,
-                        "Loading " + url, inputStream), ENCODING));
-        } else {
-            reader = new LineNumberReader(new InputStreamReader(inputStream, ENCODING));
+            inputStream = new ProgressMonitorInputStream(owner, "Loading " + url, inputStream);
         }
 
         Vector<ChainsawLoggingEvent> v = new Vector<>();
-
-        String line;
-        Vector<ChainsawLoggingEvent> events;
-        try {
-            while ((line = reader.readLine()) != null) {
-                StringBuilder buffer = new StringBuilder(line);
-                for (int i = 0; i < 1000; i++) {
-                    buffer.append(reader.readLine()).append("\n");
-                }
-                events = decodeEvents(buffer.toString());
-                if (events != null) {
-                    v.addAll(events);
-                }
-            }
-        } finally {
-            partialEvent = null;
-            try {
-                if (reader != null) {
-                    reader.close();
+        XMLRecordBuffer records = new XMLRecordBuffer(RECORD_START, RECORD_END);
+        byte[] block = new byte[READ_BLOCK_SIZE];
+        try (InputStream in = inputStream) {
+            int length;
+            while ((length = in.read(block)) != -1) {
+                if (records.append(block, 0, length)) {
+                    parseRecords(records, records.takeCompleteRecords(), v);
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
             }
         }
+        //an incomplete last event is reported like any other malformed one
+        if (!records.isEmpty()) {
+            parseRecords(records, records.takeAll(), v);
+        }
         return v;
     }
 
@@ -233,48 +190,43 @@ public Vector<ChainsawLoggingEvent> decode(final URL url) throws IOException {
      * @return Vector of LoggingEvents
      */
     public Vector<ChainsawLoggingEvent> decodeEvents(final String document) {
-        if (document != null) {
-            if (document.trim().equals("")) {
-                return null;
-            }
-            String newDoc;
-            String newPartialEvent = null;
-            //separate the string into the last portion ending with
-            // </log4j:event> (which will be processed) and the
-            // partial event which will be combined and
-            // processed in the next section
-
-            //if the document does not contain a record end,
-            // append it to the partial event string
-            if (document.lastIndexOf(RECORD_END) == -1) {
-                partialEvent = partialEvent + document;
-                return null;
-            }
+        if (document == null) {
+            return null;
+        }
+        if (partialEvents.isEmpty() && document.trim().equals("")) {
+            return null;
+        }
+        byte[] data = document.getBytes(StandardCharsets.UTF_8);
+        return decodeEvents(data, 0, data.length);
+    }
 
-            if (document.lastIndexOf(RECORD_END)
-                + RECORD_END.length() < document.length()) {
-                newDoc = document.substring(0,
-                    document.lastIndexOf(RECORD_END) + RECORD_END.length());
-                newPartialEvent = document.substring(
-                    document.lastIndexOf(RECORD_END) + RECORD_END.length());
-            } else {
-                newDoc = document;
-            }
-            if (partialEvent != null) {
-                newDoc = partialEvent + newDoc;
-            }
-            partialEvent = newPartialEvent;
-            Document doc = parse(newDoc);
-            if (doc == null) {
-                return null;
-            }
-            return decodeEvents(doc);
+    /**
+     * Decodes the events completed by the given bytes, which are expected to
+     * be UTF-8.  Any trailing incomplete event is kept for the next call.
+     *
+     * @param data   buffer holding the bytes read
+     * @param offset offset of the first byte read
+     * @param length number of bytes read
+     * @return Vector of LoggingEvents, or null if no event was completed
+     */
+    public Vector<ChainsawLoggingEvent> decodeEvents(final byte[] data, final int offset, final int length) {
+        if (!partialEvents.append(data, offset, length)) {
+            return null;
         }
-        return null;
+        Vector<ChainsawLoggingEvent> events = new Vector<>();
+        parseRecords(partialEvents, partialEvents.takeCompleteRecords(), events);
+        return events;
+    }
+
+    /**
+     * Discards any incomplete event kept from previous calls to decodeEvents.
+     */
+    public void reset() {
+        partialEvents.clear();
     }
 
     /**
-     * Converts the string data into an XML Document, and then soaks out the
+     * Parses the string data and soaks out the
      * relevant bits to form a new LoggingEvent instance which can be used
      * by any Log4j element locally.
      *
@@ -282,13 +234,11 @@ public Vector<ChainsawLoggingEvent> decodeEvents(final String document) {
      * @return a single LoggingEvent or null
      */
     public ChainsawLoggingEvent decode(final String data) {
-        Document document = parse(data);
-
-        if (document == null) {
+        if (data == null) {
             return null;
         }
-
-        Vector<ChainsawLoggingEvent> events = decodeEvents(document);
+        Vector<ChainsawLoggingEvent> events = new Vector<>();
+        parse(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), events);
 
         if (events.size() > 0) {
             return events.firstElement();
@@ -298,197 +248,198 @@ public ChainsawLoggingEvent decode(final String data) {
     }
 
     /**
-     * Given a Document, converts the XML into a Vector of LoggingEvents.
+     * Parses records taken from a record buffer.  A malformed record is
+     * skipped: parsing resumes at the record start following it, so only
+     * that record is lost.
      *
-     * @param document XML document
-     * @return Vector of LoggingEvents
+     * @param buffer  the buffer the records were taken from
+     * @param records event elements, starting with a log4j:event start tag
+     * @param events  list the decoded events are added to
      */
-    private Vector<ChainsawLoggingEvent> decodeEvents(final Document document) {
-        Vector<ChainsawLoggingEvent> events = new Vector<>();
+    private void parseRecords(final XMLRecordBuffer buffer, final byte[] records, final Vector<ChainsawLoggingEvent> events) {
+        int start = 0;
+        while (start < records.length) {
+            int decodedCount = events.size();
+            if (parse(new ByteArrayInputStream(records, start, records.length - start), events)) {
+                return;
+            }
+            //skip the records decoded and the malformed one following them
+            for (int skipped = events.size() - decodedCount; skipped >= 0 && start >= 0; skipped--) {
+                start = buffer.indexOfRecordStart(records, start + 1, records.length);
+            }
+            if (start < 0) {
+                return;
+            }
+        }
+    }
 
-        String logger;
-        long timeStamp;
-        String level;
-        String threadName;
+    /**
+     * Parses a sequence of log4j:event elements, adding an event to the list
+     * as each element closes.  Events completed before a parse error are kept.
+     *
+     * @param fragment event elements, without a root element
+     * @param events   list the decoded events are added to
+     * @return false if the parse ended with an error
+     */
+    private boolean parse(final InputStream fragment, final Vector<ChainsawLoggingEvent> events) {
+        InputStream document = new SequenceInputStream(
+            new SequenceInputStream(new ByteArrayInputStream(BEGINPART), fragment),
+            new ByteArrayInputStream(ENDPART));
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(document, StandardCharsets.UTF_8.name());
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT
+                    && reader.getLocalName().equalsIgnoreCase("event")) {
+                    events.add(readEvent(reader));
+                }
+            }
+        } catch (XMLStreamException | RuntimeException e) {
+            logger.warn("Unable to parse log4j XML event, skipping it", e);
+            return false;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    //nothing to release
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the content of the log4j:event element the reader is positioned
+     * on, leaving the reader on its end tag.
+     *
+     * @param reader reader positioned on a log4j:event start tag
+     * @return the decoded event
+     */
+    private ChainsawLoggingEvent readEvent(final XMLStreamReader reader) throws XMLStreamException {
+        String logger = reader.getAttributeValue(null, "logger");
+        long timeStamp = Long.parseLong(reader.getAttributeValue(null, "timestamp"));
+        String level = reader.getAttributeValue(null, "level");
+        String threadName = reader.getAttributeValue(null, "thread");
         String message = null;
         String ndc = null;
-        String[] exception = null;
         String className = null;
         String methodName = null;
         String fileName = null;
         String lineNumber = null;
         Hashtable properties = null;
 
-        NodeList nl = document.getElementsByTagName("log4j:eventSet");
-        Node eventSet = nl.item(0);
-
-        NodeList eventList = eventSet.getChildNodes();
-
-        for (int eventIndex = 0; eventIndex < eventList.getLength();
-             eventIndex++) {
-            Node eventNode = eventList.item(eventIndex);
-            //ignore carriage returns in xml
-            if (eventNode.getNodeType() != Node.ELEMENT_NODE) {
+        int depth = 1;
+        while (depth > 0) {
+            int type = reader.next();
+            if (type == XMLStreamConstants.END_ELEMENT) {
+                depth--;
                 continue;
             }
-            logger = eventNode.getAttributes().getNamedItem("logger").getNodeValue();
-            timeStamp = Long.parseLong(eventNode.getAttributes().getNamedItem("timestamp").getNodeValue());
-            level = eventNode.getAttributes().getNamedItem("level").getNodeValue();
-            threadName = eventNode.getAttributes().getNamedItem("thread").getNodeValue();
-
-            NodeList list = eventNode.getChildNodes();
-            int listLength = list.getLength();
-
-            if (listLength == 0) {
+            if (type != XMLStreamConstants.START_ELEMENT) {
                 continue;
             }
-
-            for (int y = 0; y < listLength; y++) {
-                String tagName = list.item(y).getNodeName();
-
-                if (tagName.equalsIgnoreCase("log4j:message")) {
-                    message = getCData(list.item(y));
-                }
-
-                if (tagName.equalsIgnoreCase("log4j:NDC")) {
-                    ndc = getCData(list.item(y));
-                }
+            String tagName = reader.getLocalName();
+
+            if (tagName.equalsIgnoreCase("message")) {
+                message = reader.getElementText();
+            } else if (tagName.equalsIgnoreCase("NDC")) {
+                ndc = reader.getElementText();
+            } else if (tagName.equalsIgnoreCase("throwable")) {
+                //the throwable is not carried by ChainsawLoggingEvent
+                reader.getElementText();
+            } else if (tagName.equalsIgnoreCase("locationinfo")) {
+                className = reader.getAttributeValue(null, "class");
+                methodName = reader.getAttributeValue(null, "method");
+                fileName = reader.getAttributeValue(null, "file");
+                lineNumber = reader.getAttributeValue(null, "line");
+                depth++;
+            } else if (tagName.equalsIgnoreCase("MDC")) {
                 //still support receiving of MDC and convert to properties
-                if (tagName.equalsIgnoreCase("log4j:MDC")) {
+                properties = new Hashtable();
+                readData(reader, properties);
+            } else if (tagName.equalsIgnoreCase("properties")) {
+                if (properties == null) {
                     properties = new Hashtable();
-                    NodeList propertyList = list.item(y).getChildNodes();
-                    int propertyLength = propertyList.getLength();
-
-                    for (int i = 0; i < propertyLength; i++) {
-                        String propertyTag = propertyList.item(i).getNodeName();
-
-                        if (propertyTag.equalsIgnoreCase("log4j:data")) {
-                            Node property = propertyList.item(i);
-                            String name =
-                                property.getAttributes().getNamedItem("name").getNodeValue();
-                            String value =
-                                property.getAttributes().getNamedItem("value").getNodeValue();
-                            properties.put(name, value);
-                        }
-                    }
                 }
-
-                if (tagName.equalsIgnoreCase("log4j:throwable")) {
-                    String exceptionString = getCData(list.item(y));
-                    if (exceptionString != null && !exceptionString.trim().equals("")) {
-                        exception = new String[]{exceptionString.trim()
-                        };
-                    }
-                }
-
-                if (tagName.equalsIgnoreCase("log4j:locationinfo")) {
-                    className =
-                        list.item(y).getAttributes().getNamedItem("class").getNodeValue();
-                    methodName =
-                        list.item(y).getAttributes().getNamedItem("method").getNodeValue();
-                    fileName =
-                        list.item(y).getAttributes().getNamedItem("file").getNodeValue();
-                    lineNumber =
-                        list.item(y).getAttributes().getNamedItem("line").getNodeValue();
-                }
-
-                if (tagName.equalsIgnoreCase("log4j:properties")) {
-                    if (properties == null) {
-                        properties = new Hashtable();
-                    }
-                    NodeList propertyList = list.item(y).getChildNodes();
-                    int propertyLength = propertyList.getLength();
-
-                    for (int i = 0; i < propertyLength; i++) {
-                        String propertyTag = propertyList.item(i).getNodeName();
-
-                        if (propertyTag.equalsIgnoreCase("log4j:data")) {
-                            Node property = propertyList.item(i);
-                            String name =
-                                property.getAttributes().getNamedItem("name").getNodeValue();
-                            String value =
-                                property.getAttributes().getNamedItem("value").getNodeValue();
-                            properties.put(name, value);
-                        }
-                    }
-                }
-
-                /**
-                 * We add all the additional properties to the properties
-                 * hashtable. Override properties that already exist
-                 */
-                if (additionalProperties.size() > 0) {
-                    if (properties == null) {
-                        properties = new Hashtable(additionalProperties);
-                    }
-                    for (Object o : additionalProperties.entrySet()) {
-                        Map.Entry e = (Map.Entry) o;
-                        properties.put(e.getKey(), e.getValue());
-                    }
-                }
-            }
-
-            LocationInfo info;
-            if ((fileName != null)
-                || (className != null)
-                || (methodName != null)
-                || (lineNumber != null)) {
-                info = new LocationInfo(fileName, className, methodName, 
-                        Integer.parseInt(lineNumber));
+                readData(reader, properties);
             } else {
-                info = null;
+                depth++;
             }
-//            ThrowableInformation throwableInfo = null;
-//            if (exception != null) {
-//                throwableInfo = new ThrowableInformation(exception);
-//            }
-
-            builder.clear();
-            builder.setLogger(logger)
-                    .setTimestamp(Instant.ofEpochMilli(timeStamp))
-                    .setLevelFromString(level)
-                    .setMessage(message)
-                    .setThreadName(threadName)
-                    .setMDC(properties)
-                    .setNDC(ndc)
-                    .setLocationInfo(info);
-
+        }
 
-            events.add(builder.create());
+        /**
+         * We add all the additional properties to the properties
+         * hashtable. Override properties that already exist
+         */
+        if (additionalProperties.size() > 0) {
+            if (properties == null) {
+                properties = new Hashtable(additionalProperties);
+            }
+            for (Object o : additionalProperties.entrySet()) {
+                Map.Entry e = (Map.Entry) o;
+                properties.put(e.getKey(), e.getValue());
+            }
+        }
 
-            message = null;
-            ndc = null;
-            exception = null;
-            className = null;
-            methodName = null;
-            fileName = null;
-            lineNumber = null;
-            properties = null;
+        LocationInfo info;
+        if ((fileName != null)
+            || (className != null)
+            || (methodName != null)
+            || (lineNumber != null)) {
+            info = new LocationInfo(fileName, className, methodName,
+                    parseLineNumber(lineNumber));
+        } else {
+            info = null;
         }
 
-        return events;
+        builder.clear();
+        builder.setLogger(logger)
+                .setTimestamp(Instant.ofEpochMilli(timeStamp))
+                .setLevelFromString(level)
+                .setMessage(message)
+                .setThreadName(threadName)
+                .setMDC(properties)
+                .setNDC(ndc)
+                .setLocationInfo(info);
+
+        return builder.create();
     }
 
     /**
-     * Get contents of CDATASection.
-     *
-     * @param n CDATASection
-     * @return text content of all text or CDATA children of node.
+     * Reads the log4j:data children of the MDC or properties element the
+     * reader is positioned on, leaving the reader on its end tag.
      */
-    private String getCData(final Node n) {
-        StringBuilder buf = new StringBuilder();
-        NodeList nl = n.getChildNodes();
-
-        for (int x = 0; x < nl.getLength(); x++) {
-            Node innerNode = nl.item(x);
-
-            if (
-                (innerNode.getNodeType() == Node.TEXT_NODE)
-                    || (innerNode.getNodeType() == Node.CDATA_SECTION_NODE)) {
-                buf.append(innerNode.getNodeValue());
+    private void readData(final XMLStreamReader reader, final Hashtable properties) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int type = reader.next();
+            if (type == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (reader.getLocalName().equalsIgnoreCase("data")) {
+                    String name = reader.getAttributeValue(null, "name");
+                    String value = reader.getAttributeValue(null, "value");
+                    if (name != null && value != null) {
+                        properties.put(name, value);
+                    }
+                }
+            } else if (type == XMLStreamConstants.END_ELEMENT) {
+                depth--;
             }
         }
+    }
 
-        return buf.toString();
+    /**
+     * Layouts write "?" when the line number is not known.
+     */
+    private static int parseLineNumber(final String lineNumber) {
+        if (lineNumber == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(lineNumber);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 }
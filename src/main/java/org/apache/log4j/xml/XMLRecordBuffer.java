@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.xml;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Accumulates the raw bytes of a stream of XML records and hands out the
+ * region ending with the last complete record.
+ * <p>
+ * The buffer only scans bytes it has not looked at before for the record end
+ * marker, so a record arriving in many small reads is not rescanned on each
+ * read.  Bytes following the last record end are kept for the next append.
+ * Anything preceding the first record start in a region, such as the prolog
+ * and root element start tag of a document, is dropped so the region can be
+ * wrapped in a root element of the caller's choosing.
+ */
+class XMLRecordBuffer {
+    private static final int INITIAL_CAPACITY = 8192;
+
+    private final byte[] recordStart;
+    private final byte[] recordEnd;
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+    /**
+     * Position the next scan for the record end marker starts at.
+     */
+    private int scanFrom;
+    /**
+     * Number of bytes up to and including the last record end found.
+     */
+    private int completeLength;
+
+    /**
+     * @param recordStart start tag of a record, without the closing '&gt;'
+     * @param recordEnd   end tag of a record
+     */
+    XMLRecordBuffer(String recordStart, String recordEnd) {
+        this.recordStart = recordStart.getBytes(StandardCharsets.UTF_8);
+        this.recordEnd = recordEnd.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Append bytes read from the stream.
+     *
+     * @return true if the buffer now holds at least one complete record
+     */
+    boolean append(byte[] data, int offset, int count) {
+        if (length + count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+        }
+        System.arraycopy(data, offset, buffer, length, count);
+        length += count;
+
+        int last = length - recordEnd.length;
+        for (int i = scanFrom; i <= last; i++) {
+            if (matches(recordEnd, i)) {
+                completeLength = i + recordEnd.length;
+                i = completeLength - 1;
+            }
+        }
+        //a marker may start in the last few bytes and complete with the next read
+        scanFrom = Math.max(completeLength, last + 1);
+        return completeLength > 0;
+    }
+
+    private boolean matches(byte[] marker, int position) {
+        return matches(buffer, marker, position);
+    }
+
+    private static boolean matches(byte[] data, byte[] marker, int position) {
+        for (int j = 0; j < marker.length; j++) {
+            if (data[position + j] != marker[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param data records, as handed out by {@link #takeCompleteRecords()}
+     * @param from position the search starts at
+     * @param end  end of the records in data
+     * @return position of the first record start tag from from to end, or -1 if there is none
+     */
+    int indexOfRecordStart(byte[] data, int from, int end) {
+        int last = end - recordStart.length - 1;
+        for (int i = from; i <= last; i++) {
+            if (matches(data, recordStart, i)) {
+                byte next = data[i + recordStart.length];
+                if (next == '>' || next == '/' || next == ' ' || next == '\t' || next == '\r' || next == '\n') {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remove the complete records from the buffer.
+     *
+     * @return the removed bytes, starting with the first record start tag
+     */
+    byte[] takeCompleteRecords() {
+        int start = Math.max(0, indexOfRecordStart(buffer, 0, completeLength));
+        byte[] complete = Arrays.copyOfRange(buffer, start, completeLength);
+        int remaining = length - completeLength;
+        System.arraycopy(buffer, completeLength, buffer, 0, remaining);
+        length = remaining;
+        scanFrom = Math.max(0, scanFrom - completeLength);
+        completeLength = 0;
+        if (length == 0 && buffer.length > INITIAL_CAPACITY) {
+            //don't hang on to the space used by one oversized record
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        return complete;
+    }
+
+    /**
+     * Remove all the bytes from the buffer, including an incomplete last record.
+     *
+     * @return the removed bytes, starting with the first record start tag
+     */
+    byte[] takeAll() {
+        completeLength = length;
+        return takeCompleteRecords();
+    }
+
+    /**
+     * @return true if no bytes are waiting for a record end
+     */
+    boolean isEmpty() {
+        return length == 0;
+    }
+
+    void clear() {
+        length = 0;
+        scanFrom = 0;
+        completeLength = 0;
+    }
+}
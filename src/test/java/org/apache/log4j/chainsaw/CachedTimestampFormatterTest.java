@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import junit.framework.TestCase;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Tests for CachedTimestampFormatter.
+ *
+ */
+public class CachedTimestampFormatterTest extends TestCase {
+
+    private static final ZoneId UTC = ZoneOffset.UTC;
+    private static final Instant SECOND = Instant.parse("2021-03-04T05:06:07Z");
+
+    /**
+     * Format each timestamp in turn, checking the text against the uncached formatter.
+     */
+    private static void assertFormats(String pattern, Instant... timestamps) {
+        CachedTimestampFormatter cached = new CachedTimestampFormatter(pattern, UTC);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern).withZone(UTC);
+        for (Instant timestamp : timestamps) {
+            assertEquals(pattern + " " + timestamp, formatter.format(timestamp), cached.format(timestamp));
+        }
+    }
+
+    private static Instant millis(int millis) {
+        return SECOND.plusMillis(millis);
+    }
+
+    public void testMillisDigitsPatched() {
+        //the position of the digits is found from the first two, the others are patched
+        assertFormats("yyyy-MM-dd HH:mm:ss.SSS",
+            millis(0), millis(5), millis(5), millis(999), millis(10), millis(100), millis(0), millis(1));
+    }
+
+    public void testMillisNextToDigits() {
+        //digits on either side of the milliseconds, which must not be taken for them
+        assertFormats("ssSSSss", millis(77), millis(70), millis(7), millis(707), millis(777));
+        assertFormats("SSS ddMMyy HHmmss", millis(210), millis(321), millis(121), millis(211));
+    }
+
+    public void testSameMillisTwice() {
+        assertFormats("HH:mm:ss,SSS", millis(123), millis(123), millis(124), millis(123));
+    }
+
+    public void testWholeSeconds() {
+        assertFormats("HH:mm:ss", millis(0), millis(400), millis(999), millis(1000), millis(1500));
+    }
+
+    public void testShorterFractions() {
+        assertFormats("HH:mm:ss.S", millis(0), millis(123), millis(987), millis(99), millis(100));
+        assertFormats("HH:mm:ss.SS", millis(0), millis(123), millis(987), millis(9), millis(10));
+    }
+
+    public void testFinerFractions() {
+        assertFormats("HH:mm:ss.SSSSSS",
+            millis(123), millis(123).plusNanos(456_000), millis(123).plusNanos(457_000),
+            millis(124), millis(123).plusNanos(456_000));
+        assertFormats("HH:mm:ss.nnnnnnnnn", millis(1).plusNanos(1), millis(1).plusNanos(2), millis(2));
+    }
+
+    public void testSecondRollover() {
+        assertFormats("HH:mm:ss.SSS",
+            millis(998), millis(999), millis(1000), millis(1001), millis(999), millis(60_000), millis(60_001));
+        assertFormats("yyyy-MM-dd HH:mm:ss.SSS",
+            Instant.parse("2021-12-31T23:59:59.998Z"), Instant.parse("2021-12-31T23:59:59.999Z"),
+            Instant.parse("2022-01-01T00:00:00.000Z"), Instant.parse("2022-01-01T00:00:00.001Z"));
+    }
+
+    public void testDefaultsToSystemZone() {
+        CachedTimestampFormatter cached = new CachedTimestampFormatter(DateTimeFormatter.ofPattern("HH:mm:ss.SSS"));
+        assertEquals(ZoneId.systemDefault(), cached.getFormatter().getZone());
+        assertEquals(DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault()).format(millis(42)),
+            cached.format(millis(42)));
+    }
+}
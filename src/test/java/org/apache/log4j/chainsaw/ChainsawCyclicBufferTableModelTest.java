@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import junit.framework.TestCase;
+
+import java.beans.PropertyChangeListener;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import org.apache.log4j.chainsaw.color.RuleColorizer;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.LoggingEventFixture;
+import org.apache.log4j.rule.AbstractRule;
+
+/**
+ * Tests that hiding and showing a logger, which only refilters the events of the
+ * loggers affected, gives the rows a full refilter does.
+ *
+ */
+public class ChainsawCyclicBufferTableModelTest extends TestCase {
+
+    private static final String[] LOGGERS = {
+        "org.example.db", "org.example.db.Pool", "org.example.net", "com.other.db", "db", "db.Pool", "org.example"
+    };
+
+    private ChainsawCyclicBufferTableModel model;
+    private final VisibilityRule visibilityRule = new VisibilityRule();
+
+    protected void setUp() throws Exception {
+        model = new ChainsawCyclicBufferTableModel(100, new RuleColorizer(), "test");
+        Instant timestamp = Instant.parse("2021-03-04T05:06:07Z");
+        for (int i = 0; i < 40; i++) {
+            //uneven gaps, so a row's millis delta depends on the row before it
+            timestamp = timestamp.plusMillis((i * 37) % 11 * 100);
+            model.isAddRow(new LoggingEventWrapper(LoggingEventFixture.eventBuilder()
+                .setTimestamp(timestamp)
+                .setLogger(LOGGERS[(i * 5) % LOGGERS.length])
+                .setMessage("e" + i)
+                .create()));
+        }
+        RuleMediator ruleMediator = new RuleMediator(false);
+        ruleMediator.setLoggerRule(visibilityRule);
+        awaitRefilter(() -> model.setRuleMediator(ruleMediator));
+    }
+
+    public void testHideAndShowLogger() throws Exception {
+        assertToggleMatchesFullRefilter("org.example.db");
+        assertToggleMatchesFullRefilter("org.example.net");
+        assertToggleMatchesFullRefilter("org.example.db");
+        assertToggleMatchesFullRefilter("org.example.net");
+        assertEquals(40, rows().size());
+    }
+
+    public void testHideAndShowLoggerEndingWithEntry() throws Exception {
+        //hides the loggers ending with db and the children of db, but not org.example.db.Pool
+        assertToggleMatchesFullRefilter("db");
+        List<String> rows = rows();
+        for (String row : rows) {
+            assertTrue(row, row.contains("/org.example.db.Pool/") || !row.contains("db"));
+        }
+        assertToggleMatchesFullRefilter("org.example");
+        assertToggleMatchesFullRefilter("db");
+        assertToggleMatchesFullRefilter("org.example");
+        assertEquals(40, rows().size());
+    }
+
+    /**
+     * Toggles the entry, and checks the rows and their millis deltas against the ones a full
+     * refilter gives for the same hidden set.
+     */
+    private void assertToggleMatchesFullRefilter(String entry) throws Exception {
+        awaitRefilter(() -> visibilityRule.toggle(entry));
+        List<String> incremental = rows();
+        awaitRefilter(model::reFilter);
+        assertEquals("toggling " + entry, rows(), incremental);
+    }
+
+    private void awaitRefilter(Runnable refilter) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        PropertyChangeListener listener = evt -> {
+            if (Boolean.FALSE.equals(evt.getNewValue())) {
+                done.countDown();
+            }
+        };
+        //the model can't remove a listener, an earlier one counts down its own latch again
+        model.addPropertyChangeListener("refilter", listener);
+        refilter.run();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * @return the message, logger and millis delta of each row, read on the EDT
+     */
+    private List<String> rows() throws Exception {
+        List<String> rows = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            for (int row = 0; row < model.getRowCount(); row++) {
+                ChainsawLoggingEvent event = model.getRow(row).getLoggingEvent();
+                rows.add(event.m_message + "/" + event.m_logger + "/" + model.getMillisDelta(row));
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * Hides the loggers of its hidden set entries the way the logger tree does.
+     */
+    private static class VisibilityRule extends AbstractRule {
+        private final Set<String> hiddenSet = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public boolean evaluate(ChainsawLoggingEvent e, Map matches) {
+            for (String hiddenLoggerEntry : hiddenSet) {
+                if (LoggerVisibilityChangeEvent.matches(hiddenLoggerEntry, e.m_logger)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void toggle(String logger) {
+            boolean hidden = hiddenSet.add(logger);
+            if (!hidden) {
+                hiddenSet.remove(logger);
+            }
+            firePropertyChange(new LoggerVisibilityChangeEvent(this, logger, hidden));
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.chainsaw.logevents.LoggingEventFixture;
+
+/**
+ * Tests for the queue between ChainsawReceiverSkeleton and its listeners.
+ *
+ */
+public class ChainsawReceiverSkeletonTest extends TestCase {
+
+    private QueueReceiver receiver;
+    private HeldListener listener;
+
+    /**
+     * A receiver whose listener holds the worker thread on the first event,
+     * so the queue fills up behind it.
+     */
+    protected void setUp() {
+        receiver = new QueueReceiver();
+        receiver.setQueueCapacity(3);
+        listener = new HeldListener();
+        receiver.addChainsawEventBatchListener(listener);
+        receiver.add(Level.INFO, "held");
+        listener.awaitHeld();
+    }
+
+    protected void tearDown() {
+        listener.release();
+    }
+
+    public void testDropNewest() throws Exception {
+        receiver.setQueueOverflowPolicy("drop_newest");
+        fill();
+        receiver.add(Level.ERROR, "e4");
+        assertEquals(1, receiver.getDroppedEventCount());
+        assertEquals(3, receiver.getQueueDepth());
+        assertReceived("held", "e1", "e2", "e3");
+    }
+
+    public void testDropOldest() throws Exception {
+        receiver.setQueueOverflowPolicy("DROP_OLDEST");
+        fill();
+        receiver.add(Level.INFO, "e4");
+        receiver.add(Level.INFO, "e5");
+        assertEquals(2, receiver.getDroppedEventCount());
+        assertReceived("held", "e3", "e4", "e5");
+    }
+
+    public void testSampleByLevel() throws Exception {
+        receiver.setQueueOverflowPolicy("SAMPLE_BY_LEVEL");
+        receiver.add(Level.INFO, "e1");
+        receiver.add(Level.WARN, "e2");
+        receiver.add(Level.DEBUG, "e3");
+        //below WARN, dropped
+        receiver.add(Level.INFO, "e4");
+        //make room by dropping e1, then e3
+        receiver.add(Level.ERROR, "e5");
+        receiver.add(Level.ERROR, "e6");
+        //only WARN and above left, the oldest is dropped
+        receiver.add(Level.WARN, "e7");
+        assertEquals(4, receiver.getDroppedEventCount());
+        assertReceived("held", "e5", "e6", "e7");
+    }
+
+    public void testBlock() throws Exception {
+        assertEquals("BLOCK", receiver.getQueueOverflowPolicy());
+        fill();
+        Thread producer = new Thread(() -> receiver.add(Level.INFO, "e4"));
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive());
+        assertReceived("held", "e1", "e2", "e3", "e4");
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertEquals(0, receiver.getDroppedEventCount());
+    }
+
+    public void testShrinkingQueueDropsNewestQueued() throws Exception {
+        receiver.setQueueCapacity(5);
+        receiver.setQueueOverflowPolicy("DROP_NEWEST");
+        for (int i = 1; i <= 5; i++) {
+            receiver.add(Level.INFO, "e" + i);
+        }
+        receiver.setQueueCapacity(2);
+        assertEquals(2, receiver.getQueueCapacity());
+        assertEquals(3, receiver.getDroppedEventCount());
+        receiver.add(Level.INFO, "e6");
+        assertEquals(4, receiver.getDroppedEventCount());
+        assertReceived("held", "e1", "e2");
+    }
+
+    public void testGrowingQueueKeepsQueued() throws Exception {
+        receiver.setQueueOverflowPolicy("DROP_NEWEST");
+        fill();
+        receiver.setQueueCapacity(10);
+        receiver.add(Level.INFO, "e4");
+        assertEquals(0, receiver.getDroppedEventCount());
+        assertEquals(4, receiver.getQueueDepth());
+        assertReceived("held", "e1", "e2", "e3", "e4");
+    }
+
+    public void testIdleWorkerTakesFromResizedQueue() throws Exception {
+        assertReceived("held");
+        //the worker is waiting on the queue which is replaced
+        receiver.setQueueCapacity(10);
+        receiver.add(Level.INFO, "e1");
+        listener.awaitCount(2);
+        assertEquals(Arrays.asList("held", "e1"), listener.getMessages());
+    }
+
+    public void testInvalidCapacity() {
+        try {
+            receiver.setQueueCapacity(0);
+            fail("a capacity of 0 should be rejected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+        assertEquals(3, receiver.getQueueCapacity());
+    }
+
+    private void fill() {
+        for (int i = 1; i <= 3; i++) {
+            receiver.add(Level.INFO, "e" + i);
+        }
+        assertEquals(3, receiver.getQueueDepth());
+    }
+
+    /**
+     * Lets the worker go on and checks the messages of all events it delivers.
+     */
+    private void assertReceived(String... messages) throws InterruptedException {
+        listener.release();
+        listener.awaitCount(messages.length);
+        assertEquals(Arrays.asList(messages), listener.getMessages());
+    }
+
+    private static class QueueReceiver extends ChainsawReceiverSkeleton {
+        private QueueReceiver() {
+            setQueueInterval(0);
+        }
+
+        private void add(Level level, String message) {
+            append(LoggingEventFixture.eventBuilder().setLevel(level).setMessage(message).create());
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static class HeldListener implements ChainsawEventBatchListener {
+        private final CountDownLatch held = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void receiveChainsawEventBatch(List<ChainsawLoggingEvent> events) {
+            synchronized (messages) {
+                for (ChainsawLoggingEvent event : events) {
+                    messages.add(event.m_message);
+                }
+                messages.notifyAll();
+            }
+            held.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void awaitHeld() {
+            try {
+                assertTrue(held.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                fail("interrupted");
+            }
+        }
+
+        private void release() {
+            released.countDown();
+        }
+
+        private void awaitCount(int count) throws InterruptedException {
+            long end = System.currentTimeMillis() + 5000;
+            synchronized (messages) {
+                while (messages.size() < count && System.currentTimeMillis() < end) {
+                    messages.wait(100);
+                }
+            }
+        }
+
+        private List<String> getMessages() {
+            synchronized (messages) {
+                return new ArrayList<>(messages);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for CyclicBufferList.
+ *
+ */
+public class CyclicBufferListTest extends TestCase {
+
+    private static CyclicBufferList<String> createList(int maxSize, int count) {
+        CyclicBufferList<String> list = new CyclicBufferList<>(maxSize);
+        for (int i = 0; i < count; i++) {
+            list.add("e" + i);
+        }
+        return list;
+    }
+
+    private static void assertElements(CyclicBufferList<String> list, int first, int last) {
+        assertEquals(last - first + 1, list.size());
+        for (int i = first; i <= last; i++) {
+            assertEquals("e" + i, list.get(i - first));
+            assertEquals("e" + i, list.getBySequence(i));
+        }
+        assertEquals(first, list.getFirstSequence());
+        assertEquals(last + 1, list.getNextSequence());
+    }
+
+    public void testWrapAround() {
+        CyclicBufferList<String> list = createList(3, 8);
+        assertElements(list, 5, 7);
+        assertNull(list.getBySequence(4));
+        assertNull(list.getBySequence(8));
+        assertNull(list.get(3));
+        assertEquals("e5", list.get());
+        assertElements(list, 6, 7);
+    }
+
+    public void testGetBySequenceOutsideRange() {
+        CyclicBufferList<String> list = new CyclicBufferList<>(3);
+        assertNull(list.getBySequence(-1));
+        assertNull(list.getBySequence(0));
+        list.add("e0");
+        assertNull(list.getBySequence(-1));
+        assertEquals("e0", list.getBySequence(0));
+    }
+
+    public void testNonCyclicGrowsThenTrimsWhenCyclic() {
+        CyclicBufferList<String> list = createList(3, 2);
+        list.setCyclic(false);
+        for (int i = 2; i < 10; i++) {
+            list.add("e" + i);
+        }
+        assertElements(list, 0, 9);
+
+        list.setCyclic(true);
+        assertElements(list, 7, 9);
+        list.add("e10");
+        assertElements(list, 8, 10);
+    }
+
+    public void testResize() {
+        CyclicBufferList<String> list = createList(5, 7);
+        list.resize(3);
+        assertEquals(3, list.getMaxSize());
+        assertElements(list, 4, 6);
+
+        list.resize(6);
+        assertElements(list, 4, 6);
+        for (int i = 7; i < 12; i++) {
+            list.add("e" + i);
+        }
+        assertElements(list, 6, 11);
+
+        try {
+            list.resize(0);
+            fail("resize to 0 should fail");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    public void testResizeNonCyclicKeepsElements() {
+        CyclicBufferList<String> list = createList(5, 5);
+        list.setCyclic(false);
+        list.resize(2);
+        assertElements(list, 0, 4);
+        list.setCyclic(true);
+        assertElements(list, 3, 4);
+    }
+
+    public void testClearKeepsSequencesIncreasing() {
+        CyclicBufferList<String> list = createList(3, 5);
+        list.clear();
+        assertEquals(0, list.size());
+        assertEquals(5, list.getFirstSequence());
+        assertEquals(5, list.getNextSequence());
+        assertNull(list.getBySequence(4));
+
+        list.add("e5");
+        list.add("e6");
+        assertElements(list, 5, 6);
+    }
+
+    public void testCursorReturnsSequences() {
+        CyclicBufferList<String> list = createList(4, 6);
+        CyclicBufferList<String>.Cursor cursor = list.cursor();
+        List<Long> sequences = new ArrayList<>();
+        while (cursor.hasNext()) {
+            String element = cursor.next();
+            assertEquals("e" + cursor.getSequence(), element);
+            sequences.add(cursor.getSequence());
+        }
+        assertEquals(4, sequences.size());
+        assertEquals(Long.valueOf(2), sequences.get(0));
+        assertEquals(Long.valueOf(5), sequences.get(3));
+    }
+
+    public void testCursorSkipsPushedOutElements() {
+        CyclicBufferList<String> list = createList(4, 4);
+        CyclicBufferList<String>.Cursor cursor = list.cursor();
+        assertEquals("e0", cursor.next());
+
+        //pushes out e0 to e2, and the cursor does not return e4 to e6, added after it was created
+        for (int i = 4; i < 7; i++) {
+            list.add("e" + i);
+        }
+        assertTrue(cursor.hasNext());
+        assertEquals("e3", cursor.next());
+        assertEquals(3, cursor.getSequence());
+        assertFalse(cursor.hasNext());
+    }
+
+    public void testCursorOverClearedElements() {
+        CyclicBufferList<String> list = createList(4, 3);
+        CyclicBufferList<String>.Cursor cursor = list.cursor();
+        list.clear();
+        list.add("e3");
+        assertFalse(cursor.hasNext());
+    }
+}
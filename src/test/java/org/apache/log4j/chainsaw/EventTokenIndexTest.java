@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.chainsaw.logevents.LoggingEventFixture;
+import org.apache.log4j.rule.ExpressionRule;
+import org.apache.log4j.rule.Rule;
+
+/**
+ * Tests that the candidates of EventTokenIndex hold every event the rule matches.
+ *
+ */
+public class EventTokenIndexTest extends TestCase {
+
+    private final List<ChainsawLoggingEvent> events = new ArrayList<>();
+    private final EventTokenIndex index = new EventTokenIndex();
+
+    protected void setUp() {
+        add("Connection refused", "org.example.db.Pool", "main", Level.ERROR);
+        add("connection REFUSED by host", "org.example.db.Pool", "worker-1", Level.WARN);
+        add("Reconnecting in 5s", "org.example.net", "worker-2", Level.INFO);
+        add("disconnected", "org.example.net", "main", Level.INFO);
+        add("Timeout after 30000ms", "org.example.db", "worker-1", Level.ERROR);
+        add("refused: connection.timeout=30", "org.example.Config", "main", Level.DEBUG);
+        add("", "org.example", "main", Level.INFO);
+        add("L'\u00c9T\u00c9 est fini", "org.example.fr", "worker-2", Level.INFO);
+    }
+
+    private void add(String message, String logger, String thread, Level level) {
+        ChainsawLoggingEvent event = LoggingEventFixture.eventBuilder()
+            .setMessage(message)
+            .setLogger(logger)
+            .setThreadName(thread)
+            .setLevel(level)
+            .create();
+        index.add(event, events.size(), 0);
+        events.add(event);
+    }
+
+    /**
+     * Check the rule is resolved through the index, to the events it matches and maybe more.
+     */
+    private void assertSuperset(String expression) {
+        long[] candidates = index.getCandidates(ExpressionRule.getRule(expression), 0);
+        assertNotNull(expression + " should be resolved", candidates);
+        assertSuperset(expression, candidates, 0);
+    }
+
+    private void assertSuperset(String expression, long[] candidates, int firstSequence) {
+        Rule rule = ExpressionRule.getRule(expression);
+        for (int i = 1; i < candidates.length; i++) {
+            assertTrue(expression + " candidates should be ascending", candidates[i - 1] < candidates[i]);
+        }
+        for (int sequence = firstSequence; sequence < events.size(); sequence++) {
+            if (rule.evaluate(events.get(sequence), null)) {
+                assertTrue(expression + " misses event " + sequence + " " + Arrays.toString(candidates),
+                    Arrays.binarySearch(candidates, sequence) >= 0);
+            }
+        }
+    }
+
+    public void testPartialTextMatch() {
+        assertSuperset("MSG ~= connection");
+        assertSuperset("MSG ~= CONNECTION");
+        assertSuperset("MSG ~= 'connection refused'");
+        assertSuperset("MSG ~= \u00e9t\u00e9");
+        assertSuperset("LOGGER ~= db");
+        assertSuperset("THREAD ~= worker");
+        assertSuperset("MSG ~= nomatch");
+    }
+
+    public void testPartialFirstAndLastWords() {
+        //the first word can end a longer word, the last can start one
+        assertSuperset("MSG ~= onnect");
+        assertSuperset("MSG ~= 'ection ref'");
+        assertSuperset("MSG ~= 'used by ho'");
+        assertSuperset("MSG ~= 'connection.time'");
+        assertSuperset("LOGGER ~= 'ample.d'");
+        assertSuperset("THREAD ~= 'ker-'");
+    }
+
+    public void testEquals() {
+        assertSuperset("MSG == 'Connection refused'");
+        assertSuperset("MSG == disconnected");
+        assertSuperset("LOGGER == org.example.db");
+        assertSuperset("THREAD == main");
+        assertSuperset("MSG == connection");
+    }
+
+    public void testAndOr() {
+        assertSuperset("MSG ~= refused && LOGGER ~= db");
+        assertSuperset("MSG ~= onnect && THREAD == main");
+        assertSuperset("MSG ~= timeout || THREAD ~= 'ker-2'");
+        assertSuperset("(MSG ~= refused || MSG ~= timeout) && LOGGER ~= 'example.d'");
+        //the level is not indexed, the events holding the words are still a superset
+        assertSuperset("MSG ~= refused && LEVEL == ERROR");
+    }
+
+    public void testNotResolved() {
+        assertNull(index.getCandidates(ExpressionRule.getRule("MSG ~= refused || LEVEL == ERROR"), 0));
+        assertNull(index.getCandidates(ExpressionRule.getRule("LEVEL == ERROR"), 0));
+        assertNull(index.getCandidates(ExpressionRule.getRule("MSG ~= '.'"), 0));
+    }
+
+    public void testDroppedEventsLeftOut() {
+        long[] candidates = index.getCandidates(ExpressionRule.getRule("MSG ~= connection"), 2);
+        assertNotNull(candidates);
+        assertTrue(candidates.length > 0);
+        assertTrue(candidates[0] >= 2);
+        assertSuperset("MSG ~= connection", candidates, 2);
+    }
+}
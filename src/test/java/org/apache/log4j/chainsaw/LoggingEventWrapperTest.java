@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import junit.framework.TestCase;
+
+import java.awt.Color;
+import org.apache.log4j.chainsaw.color.RuleColorizer;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.chainsaw.logevents.LoggingEventFixture;
+
+/**
+ * Tests for LoggingEventWrapper.
+ *
+ */
+public class LoggingEventWrapperTest extends TestCase {
+
+    public void testUpdateColorRuleColorsFromMatchingRule() {
+        RuleColorizer colorizer = new RuleColorizer();
+        LoggingEventWrapper wrapper = new LoggingEventWrapper(LoggingEventFixture.eventBuilder().setLevel(Level.WARN).create());
+        RuleColorizer.Colors colors = colorizer.getColors(wrapper.getLoggingEvent());
+        wrapper.updateColorRuleColors(colors);
+        assertTrue(wrapper.isColorized());
+        assertSame(colors, wrapper.getRuleColors());
+        assertEquals(colors.getBackground(), wrapper.getBackground());
+        assertEquals(colors.getForeground(), wrapper.getForeground());
+    }
+
+    public void testUpdateColorRuleColorsWithoutMatchingRule() {
+        RuleColorizer colorizer = new RuleColorizer();
+        LoggingEventWrapper wrapper = new LoggingEventWrapper(LoggingEventFixture.eventBuilder().setLevel(Level.INFO).create());
+        RuleColorizer.Colors colors = colorizer.getColors(wrapper.getLoggingEvent());
+        wrapper.updateColorRuleColors(colors);
+        assertSame(colors, wrapper.getRuleColors());
+        assertEquals(ChainsawConstants.COLOR_DEFAULT_BACKGROUND, wrapper.getBackground());
+        assertEquals(ChainsawConstants.COLOR_DEFAULT_FOREGROUND, wrapper.getForeground());
+    }
+
+    public void testDirectColorsForgetRuleColors() {
+        RuleColorizer colorizer = new RuleColorizer();
+        LoggingEventWrapper wrapper = new LoggingEventWrapper(LoggingEventFixture.eventBuilder().setLevel(Level.ERROR).create());
+        wrapper.updateColorRuleColors(colorizer.getColors(wrapper.getLoggingEvent()));
+        wrapper.updateColorRuleColors(Color.red, Color.white);
+        assertNull(wrapper.getRuleColors());
+        assertEquals(Color.red, wrapper.getBackground());
+        assertEquals(Color.white, wrapper.getForeground());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import junit.framework.TestCase;
+
+import java.time.Instant;
+import java.util.Arrays;
+import org.apache.log4j.chainsaw.logevents.LoggingEventFixture;
+import org.apache.log4j.rule.AndRule;
+import org.apache.log4j.rule.ExpressionRule;
+import org.apache.log4j.rule.OrRule;
+import org.apache.log4j.rule.Rule;
+import org.apache.log4j.rule.TimestampEqualsRule;
+import org.apache.log4j.rule.TimestampInequalityRule;
+
+/**
+ * Tests for TimestampIndex.
+ *
+ */
+public class TimestampIndexTest extends TestCase {
+
+    /**
+     * Check that every event within three seconds of the rule's timestamp which the rule
+     * matches has a timestamp in the range found for the rule.
+     */
+    private static void assertRangeHoldsMatches(Rule rule, long timeStamp) {
+        long[] range = TimestampIndex.getTimeRange(rule);
+        assertNotNull(range);
+        for (long millis = timeStamp - 3000; millis <= timeStamp + 3000; millis++) {
+            if (rule.evaluate(LoggingEventFixture.eventBuilder().setTimestamp(Instant.ofEpochMilli(millis)).create(), null)) {
+                assertTrue(millis + " matches but is outside " + Arrays.toString(range),
+                    range[0] <= millis && millis < range[1]);
+            }
+        }
+    }
+
+    public void testInOrder() {
+        TimestampIndex index = new TimestampIndex();
+        for (int i = 0; i < 10; i++) {
+            index.add(1000L * i, i, 0);
+        }
+        assertTrue(Arrays.equals(new long[]{2, 3, 4}, index.getSequences(2000, 5000, 0)));
+        assertEquals(7, index.find(6500, 0, sequence -> true));
+        assertEquals(-1, index.find(9500, 0, sequence -> true));
+    }
+
+    public void testLateEventInsertedInTimeOrder() {
+        TimestampIndex index = new TimestampIndex();
+        index.add(1000, 0, 0);
+        index.add(3000, 1, 0);
+        index.add(5000, 2, 0);
+        //late, and after the entry with the same timestamp
+        index.add(3000, 3, 0);
+        index.add(2000, 4, 0);
+        for (int i = 5; i < 12; i++) {
+            index.add(10000 + i, i, 0);
+        }
+
+        assertTrue(Arrays.equals(new long[]{1, 3, 4}, index.getSequences(2000, 4000, 0)));
+        assertEquals(4, index.find(1500, 0, sequence -> true));
+        assertEquals(1, index.find(2500, 0, sequence -> true));
+        assertEquals(3, index.find(2500, 0, sequence -> sequence != 1));
+    }
+
+    public void testDropsEventsWhichLeftTheContainer() {
+        TimestampIndex index = new TimestampIndex();
+        for (int i = 0; i < 10; i++) {
+            index.add(1000L * i, i, 0);
+        }
+        //events 0 to 5 have left a container of five events
+        index.add(10000, 10, 6);
+        assertEquals(6, index.find(0, 6, sequence -> true));
+        assertTrue(Arrays.equals(new long[0], index.getSequences(0, 6000, 6)));
+    }
+
+    public void testCompactionKeepsLiveEntries() {
+        TimestampIndex index = new TimestampIndex();
+        int capacity = 100;
+        //each event is late, so the entries of events which have left stay behind until compacted
+        long sequence = 0;
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < capacity; i++) {
+                long firstSequence = Math.max(0, sequence - capacity + 1);
+                index.add(1_000_000L - sequence, sequence, firstSequence);
+                sequence++;
+            }
+        }
+        long firstSequence = sequence - capacity;
+        //the newer half of the events has the lower timestamps
+        long[] live = index.getSequences(Long.MIN_VALUE, 1_000_000L - firstSequence - capacity / 2 + 1, firstSequence);
+        assertNotNull(live);
+        assertEquals(capacity / 2, live.length);
+        for (int i = 0; i < live.length; i++) {
+            assertEquals(firstSequence + capacity / 2 + i, live[i]);
+        }
+        assertEquals(sequence - 1, index.find(Long.MIN_VALUE, firstSequence, s -> true));
+        assertEquals(firstSequence, index.find(1_000_000L - firstSequence, firstSequence, s -> true));
+        //only entries of events which have left have higher timestamps
+        assertEquals(-1, index.find(1_000_000L - firstSequence + 1, firstSequence, s -> true));
+    }
+
+    public void testGrowsPastInitialCapacity() {
+        TimestampIndex index = new TimestampIndex();
+        for (int i = 0; i < 5000; i++) {
+            index.add(i, i, 0);
+        }
+        long[] sequences = index.getSequences(4000, 4100, 0);
+        assertEquals(100, sequences.length);
+        assertEquals(4000, sequences[0]);
+        assertEquals(4099, sequences[99]);
+        //most of the events, better scanned
+        assertNull(index.getSequences(0, 4000, 0));
+    }
+
+    public void testClear() {
+        TimestampIndex index = new TimestampIndex();
+        index.add(1000, 0, 0);
+        index.clear();
+        assertEquals(-1, index.find(0, 0, sequence -> true));
+        index.add(2000, 1, 1);
+        assertEquals(1, index.find(0, 1, sequence -> true));
+    }
+
+    public void testTimeRangeOfEqualsIsWidened() {
+        Rule rule = TimestampEqualsRule.getRule("2020/01/02 03:04:05");
+        long timeStamp = ((TimestampEqualsRule) rule).getTimeStamp();
+        long[] range = TimestampIndex.getTimeRange(rule);
+        assertEquals(timeStamp - 1000, range[0]);
+        assertEquals(timeStamp + 2000, range[1]);
+        assertRangeHoldsMatches(rule, timeStamp);
+    }
+
+    public void testTimeRangeOfInequalitiesIsWidened() {
+        String value = "2020/01/02 03:04:05";
+        long timeStamp = ((TimestampEqualsRule) TimestampEqualsRule.getRule(value)).getTimeStamp();
+        String[] symbols = {"<", "<=", ">", ">="};
+        long[][] expected = {
+            {Long.MIN_VALUE, timeStamp + 1000},
+            {Long.MIN_VALUE, timeStamp + 2000},
+            {timeStamp, Long.MAX_VALUE},
+            {timeStamp - 1000, Long.MAX_VALUE}};
+        for (int i = 0; i < symbols.length; i++) {
+            Rule rule = TimestampInequalityRule.getRule(symbols[i], value);
+            assertTrue(symbols[i], Arrays.equals(expected[i], TimestampIndex.getTimeRange(rule)));
+            assertRangeHoldsMatches(rule, timeStamp);
+        }
+    }
+
+    public void testTimeRangeOfCombinedRules() {
+        Rule after = TimestampInequalityRule.getRule(">=", "2020/01/02 03:04:05");
+        Rule before = TimestampInequalityRule.getRule("<", "2020/01/02 03:05:00");
+        long from = ((TimestampInequalityRule) after).getTimeStamp();
+        long to = ((TimestampInequalityRule) before).getTimeStamp();
+
+        assertTrue(Arrays.equals(new long[]{from - 1000, to + 1000},
+            TimestampIndex.getTimeRange(AndRule.getRule(after, before))));
+        //an OR with a rule not limiting the timestamps doesn't limit them either
+        assertNull(TimestampIndex.getTimeRange(OrRule.getRule(after, ExpressionRule.getRule("LEVEL == INFO"))));
+        assertTrue(Arrays.equals(new long[]{from - 1000, to + 1000},
+            TimestampIndex.getTimeRange(AndRule.getRule(after, AndRule.getRule(before, ExpressionRule.getRule("LEVEL == INFO"))))));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.color;
+
+import junit.framework.TestCase;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.chainsaw.logevents.LoggingEventFixture;
+import org.apache.log4j.rule.ColorRule;
+import org.apache.log4j.rule.ExpressionRule;
+import org.apache.log4j.rule.Rule;
+
+/**
+ * Tests CompiledColorRules against evaluating each color rule in turn, the first
+ * matching one providing the color.
+ *
+ */
+public class CompiledColorRulesTest extends TestCase {
+
+    private static final String[] LEVEL_EXPRESSIONS = {
+        "level == INFO && msg ~= slow",
+        "level != DEBUG && level != TRACE",
+        "!(level == ERROR) || msg ~= boom",
+        "level == WARN || level == ERROR",
+        "level == INFO && level == WARN",
+        "!(level == INFO)",
+        "!(level == WARN && msg ~= slow)",
+        "level >= WARN",
+        "prop.marker exists || level == DEBUG",
+    };
+
+    /**
+     * @return events of every level and no level, each with and without the words and the
+     * marker the rules look for
+     */
+    private static List<ChainsawLoggingEvent> events() {
+        List<Level> levels = new ArrayList<>();
+        for (Level level : Level.values()) {
+            levels.add(level);
+        }
+        levels.add(null);
+        List<ChainsawLoggingEvent> events = new ArrayList<>();
+        for (Level level : levels) {
+            for (String message : new String[] {"message", "slow query", "boom"}) {
+                events.add(LoggingEventFixture.eventBuilder().setLevel(level).setMessage(message).create());
+                ChainsawLoggingEvent marked = LoggingEventFixture.eventBuilder().setLevel(level).setMessage(message).create();
+                marked.setProperty("marker", "audit");
+                events.add(marked);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Check the colors of each event, and the rules providing them, against the first match walk.
+     */
+    private static void assertSameColors(List<ColorRule> rules) {
+        CompiledColorRules compiled = new CompiledColorRules(rules);
+        for (ChainsawLoggingEvent event : events()) {
+            String description = event.m_level + " " + event.m_message + " " + event.getProperty("marker");
+            int background = -1;
+            int foreground = -1;
+            try {
+                for (int i = 0; i < rules.size(); i++) {
+                    ColorRule rule = rules.get(i);
+                    if (background < 0 && rule.getBackgroundColor() != null && rule.evaluate(event, null)) {
+                        background = i;
+                    }
+                    if (foreground < 0 && rule.getForegroundColor() != null && rule.evaluate(event, null)) {
+                        foreground = i;
+                    }
+                }
+            } catch (NullPointerException e) {
+                //the level rules can't evaluate an event without a level, the compiled rules don't hide that
+                try {
+                    compiled.getColors(event);
+                    fail(description + " should fail as the rules do");
+                } catch (NullPointerException expected) {
+                    continue;
+                }
+            }
+            RuleColorizer.Colors colors = compiled.getColors(event);
+            assertEquals(description, background, colors.getBackgroundRule());
+            assertEquals(description, foreground, colors.getForegroundRule());
+            assertEquals(description, background < 0 ? null : rules.get(background).getBackgroundColor(), colors.getBackground());
+            assertEquals(description, foreground < 0 ? null : rules.get(foreground).getForegroundColor(), colors.getForeground());
+        }
+    }
+
+    private static ColorRule rule(String expression, Color background, Color foreground) {
+        return new ColorRule(expression, ExpressionRule.getRule(expression), background, foreground);
+    }
+
+    public void testDefaultRules() {
+        List<ColorRule> rules = RuleColorizer.defaultRules();
+        assertSameColors(rules);
+        //the defaults color some of the events
+        CompiledColorRules compiled = new CompiledColorRules(rules);
+        assertEquals(0, compiled.getColors(LoggingEventFixture.eventBuilder().setLevel(Level.ERROR).create()).getBackgroundRule());
+        assertEquals(1, compiled.getColors(LoggingEventFixture.eventBuilder().setLevel(Level.WARN).create()).getBackgroundRule());
+    }
+
+    public void testLevelExpressions() {
+        List<ColorRule> rules = new ArrayList<>();
+        for (String expression : LEVEL_EXPRESSIONS) {
+            rules.add(rule(expression, Color.red, Color.black));
+            //one rule more each time, so every rule is checked while it is the last one
+            assertSameColors(rules);
+        }
+        List<ColorRule> reversed = new ArrayList<>();
+        for (int i = LEVEL_EXPRESSIONS.length - 1; i >= 0; i--) {
+            reversed.add(rule(LEVEL_EXPRESSIONS[i], Color.red, Color.black));
+        }
+        assertSameColors(reversed);
+    }
+
+    public void testNoLevel() {
+        List<ColorRule> rules = new ArrayList<>();
+        rules.add(rule("msg ~= slow || msg ~= boom || msg ~= message", Color.yellow, Color.black));
+        rules.addAll(RuleColorizer.defaultRules());
+        assertSameColors(rules);
+        CompiledColorRules compiled = new CompiledColorRules(rules);
+        assertEquals(0, compiled.getColors(LoggingEventFixture.eventBuilder().setLevel(null).create()).getBackgroundRule());
+    }
+
+    public void testBackgroundAndForegroundFromDifferentRules() {
+        List<ColorRule> rules = new ArrayList<>();
+        rules.add(rule("level == WARN || level == ERROR", null, Color.blue));
+        rules.add(rule("msg ~= slow", Color.yellow, null));
+        rules.add(rule("!(level == INFO)", Color.orange, Color.white));
+        rules.add(rule("level != FATAL", null, null));
+        rules.add(rule("prop.marker exists", Color.green, Color.black));
+        rules.addAll(RuleColorizer.defaultRules());
+        assertSameColors(rules);
+    }
+
+    public void testVerdictAgreesWithEvaluation() {
+        for (String expression : LEVEL_EXPRESSIONS) {
+            Rule rule = ExpressionRule.getRule(expression);
+            for (Level level : Level.values()) {
+                Boolean verdict = CompiledColorRules.getVerdict(rule, level);
+                if (verdict == null) {
+                    continue;
+                }
+                for (ChainsawLoggingEvent event : events()) {
+                    if (event.m_level == level) {
+                        assertEquals(expression + " " + level + " " + event.m_message, verdict.booleanValue(), rule.evaluate(event, null));
+                    }
+                }
+            }
+            //the level of an event without one is not known in advance
+            assertNull(expression, CompiledColorRules.getVerdict(rule, null));
+        }
+        assertEquals(Boolean.TRUE, CompiledColorRules.getVerdict(ExpressionRule.getRule("level == WARN || level == ERROR"), Level.ERROR));
+        assertEquals(Boolean.FALSE, CompiledColorRules.getVerdict(ExpressionRule.getRule("level == INFO && level == WARN"), Level.INFO));
+        assertEquals(Boolean.FALSE, CompiledColorRules.getVerdict(ExpressionRule.getRule("!(level == INFO)"), Level.INFO));
+        assertNull(CompiledColorRules.getVerdict(ExpressionRule.getRule("level == INFO && msg ~= slow"), Level.INFO));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.logevents;
+
+import junit.framework.TestCase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests for StringDictionary.
+ *
+ */
+public class StringDictionaryTest extends TestCase {
+
+    private final StringDictionary dictionary = StringDictionary.getInstance();
+
+    public void testReturnsCanonicalInstance() {
+        String first = new String("org.example.Pooled");
+        String second = new String("org.example.Pooled");
+        assertSame(first, dictionary.intern(first));
+        assertSame(first, dictionary.intern(second));
+    }
+
+    public void testNullAndLongStringsAreNotPooled() {
+        assertNull(dictionary.intern(null));
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i <= StringDictionary.MAX_LENGTH; i++) {
+            builder.append('x');
+        }
+        String first = builder.toString();
+        String second = builder.toString();
+        assertSame(first, dictionary.intern(first));
+        assertSame(second, dictionary.intern(second));
+    }
+
+    public void testEmptiedWhenFull() {
+        //the dictionary is shared, so it may hold strings of other tests already
+        int previousSize = dictionary.size();
+        for (int i = 0; i <= StringDictionary.MAX_SIZE; i++) {
+            dictionary.intern("full-" + i);
+            int size = dictionary.size();
+            if (size < previousSize) {
+                assertEquals(1, size);
+                return;
+            }
+            assertTrue(size <= StringDictionary.MAX_SIZE);
+            previousSize = size;
+        }
+        fail("the dictionary was not emptied once full");
+    }
+
+    public void testBuilderPoolsFieldsAndKeys() {
+        String logger = new String("org.example.Builder");
+        String thread = new String("builder-thread");
+        String key = new String("builder-key");
+        ChainsawLoggingEvent first = LoggingEventFixture.eventBuilder()
+            .setLogger(logger)
+            .setThreadName(thread)
+            .setMDC(Collections.singletonMap(key, "1"))
+            .create();
+        Map<String, String> mdc = new HashMap<>();
+        mdc.put(new String("builder-key"), "2");
+        ChainsawLoggingEvent second = LoggingEventFixture.eventBuilder()
+            .setLogger(new String("org.example.Builder"))
+            .setThreadName(new String("builder-thread"))
+            .setMDC(mdc)
+            .addMDCEntry(new String("builder-other"), "3")
+            .create();
+
+        assertSame(first.m_logger, second.m_logger);
+        assertSame(first.m_threadName, second.m_threadName);
+        assertSame(keyOf(first.m_mdc, "builder-key"), keyOf(second.m_mdc, "builder-key"));
+        assertEquals("2", second.m_mdc.get("builder-key"));
+        assertEquals("3", second.m_mdc.get("builder-other"));
+        //the map handed to setMDC is copied
+        assertEquals(1, mdc.size());
+    }
+
+    private static String keyOf(Map<String, String> map, String key) {
+        for (String candidate : map.keySet()) {
+            if (candidate.equals(key)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
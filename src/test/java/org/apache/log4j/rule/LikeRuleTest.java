@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import junit.framework.TestCase;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.apache.log4j.chainsaw.logevents.LoggingEventFixture;
+
+/**
+ * Tests for the literal prefilter of LikeRule.
+ *
+ */
+public class LikeRuleTest extends TestCase {
+
+    /**
+     * Check the literal found for a pattern, and that every one of the given
+     * matches of the pattern contains it and is accepted by the rule.
+     */
+    private static void assertPrefilter(String regex, String expectedLiteral, String... matches) {
+        String literal = LikeRule.longestRequiredLiteral(regex);
+        assertEquals(regex, expectedLiteral, literal);
+        Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        Rule rule = LikeRule.getRule("MSG", regex);
+        for (String match : matches) {
+            assertTrue(regex + " should match " + match, pattern.matcher(match).matches());
+            if (literal != null) {
+                assertTrue(regex + " rejects " + match + " for " + literal,
+                    match.toLowerCase(Locale.ROOT).contains(literal.toLowerCase(Locale.ROOT)));
+            }
+            assertTrue(regex + " should accept " + match, rule.evaluate(LoggingEventFixture.eventBuilder().setMessage(match).create(), null));
+        }
+    }
+
+    public void testPlainLiteral() {
+        assertPrefilter(".*connection refused.*", "connection refused",
+            "connection refused", "Error: Connection REFUSED by host");
+        assertPrefilter("^timeout$", "timeout", "timeout", "TIMEOUT");
+    }
+
+    public void testQuantifiedLiterals() {
+        assertPrefilter("abc?d", "ab", "abd", "abcd");
+        assertPrefilter("ab*cde", "cde", "acde", "abbbcde");
+        assertPrefilter("ab+cd", "ab", "abcd", "abbbbcd");
+        assertPrefilter("x+?yz", "yz", "xyz", "xxxyz");
+        assertPrefilter("a?b?c?", null, "", "b", "abc");
+    }
+
+    public void testBoundedQuantifiers() {
+        assertPrefilter("ab{0,2}cd", "cd", "acd", "abbcd");
+        assertPrefilter("xa{2,3}yz", "yz", "xaayz", "xaaayz");
+        assertPrefilter("err{2}or", "er", "errror");
+        assertPrefilter("a{1,}", null, "a", "aaaa");
+    }
+
+    public void testEscapes() {
+        assertPrefilter("a\\.b\\(c\\)", "a.b(c)", "a.b(c)", "A.B(C)");
+        assertPrefilter("\\d+ms elapsed", "ms elapsed", "12ms elapsed");
+        assertPrefilter("x\\.?yz", "yz", "xyz", "x.yz");
+        assertPrefilter("path\\\\to", "path\\to", "path\\to");
+        assertPrefilter("\\x41bc", null, "Abc");
+        assertPrefilter("\\p{Lu}xyz", null, "Axyz");
+        assertPrefilter("\\Qa.b\\E", null, "a.b");
+    }
+
+    public void testCharacterClasses() {
+        assertPrefilter("[]a]bc", "bc", "]bc", "abc");
+        assertPrefilter("x[^]]yz", "yz", "xayz", "x.yz");
+        assertPrefilter("ab[c-e]*fg", "ab", "abfg", "abcdefg");
+        assertPrefilter("[a[bc]]de", "de", "ade", "cde");
+        assertPrefilter("q[\\]x]rs", "rs", "q]rs", "qxrs");
+        assertNull(LikeRule.longestRequiredLiteral("[abc"));
+    }
+
+    public void testGroups() {
+        assertPrefilter("(abc)?def", "def", "def", "abcdef");
+        assertPrefilter("wx(abc)*", "wx", "wx", "wxabcabc");
+        assertPrefilter("(a(b)c)+de", "de", "abcde", "abcabcde");
+        assertPrefilter("start (\\)) end", "start ", "start ) end");
+        assertPrefilter("abc|xyz", null, "xyz");
+        assertPrefilter("(?i)abc", null, "ABC");
+        assertPrefilter("(?:ab)?cd", null, "cd");
+    }
+}
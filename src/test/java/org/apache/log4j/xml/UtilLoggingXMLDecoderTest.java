@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.xml;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Vector;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+
+/**
+ * Tests for UtilLoggingXMLDecoder.
+ *
+ */
+public class UtilLoggingXMLDecoderTest extends TestCase {
+
+    private static final String PROLOG = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+        + "<!DOCTYPE log SYSTEM \"logger.dtd\">\n<log>\n";
+
+    private static String record(String message) {
+        return "<record>\n  <date>2021-03-04T05:06:07</date>\n  <millis>1614834367000</millis>\n"
+            + "  <sequence>0</sequence>\n  <logger>a</logger>\n  <level>INFO</level>\n"
+            + "  <class>org.example.A</class>\n  <method>run</method>\n  <thread>1</thread>\n"
+            + "  <message>" + message + "</message>\n</record>\n";
+    }
+
+    private static URL writeLog(String... records) throws Exception {
+        File file = File.createTempFile("jul", ".xml");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(PROLOG);
+            for (String record : records) {
+                writer.write(record);
+            }
+            writer.write("</log>\n");
+        }
+        return file.toURI().toURL();
+    }
+
+    private static void assertMessages(Vector<ChainsawLoggingEvent> events, String... messages) {
+        assertEquals(messages.length, events.size());
+        for (int i = 0; i < messages.length; i++) {
+            assertEquals(messages[i], events.get(i).m_message);
+        }
+    }
+
+    public void testDecodeURL() throws Exception {
+        URL url = writeLog(record("first"), record("second"));
+        Vector<ChainsawLoggingEvent> events = new UtilLoggingXMLDecoder().decode(url);
+        assertMessages(events, "first", "second");
+        assertEquals("a", events.get(0).m_logger);
+        assertEquals(1614834367000L, events.get(0).m_timestamp.toEpochMilli());
+    }
+
+    public void testDecodeEventsBytesInSmallReads() throws Exception {
+        StringBuilder log = new StringBuilder(PROLOG);
+        for (int i = 0; i < 5; i++) {
+            log.append(record("message " + i));
+        }
+        log.append("</log>\n");
+        byte[] data = log.toString().getBytes(StandardCharsets.UTF_8);
+        UtilLoggingXMLDecoder decoder = new UtilLoggingXMLDecoder();
+        Vector<ChainsawLoggingEvent> decoded = new Vector<>();
+        for (int offset = 0; offset < data.length; offset += 7) {
+            Vector<ChainsawLoggingEvent> events =
+                decoder.decodeEvents(data, offset, Math.min(7, data.length - offset));
+            if (events != null) {
+                decoded.addAll(events);
+            }
+        }
+        assertMessages(decoded, "message 0", "message 1", "message 2", "message 3", "message 4");
+    }
+
+    public void testDecodeEventsBytesSplitCharacter() throws Exception {
+        byte[] data = record("caf\u00e9").getBytes(StandardCharsets.UTF_8);
+        int split = new String(data, StandardCharsets.UTF_8).indexOf('\u00e9') + 1;
+        UtilLoggingXMLDecoder decoder = new UtilLoggingXMLDecoder();
+        assertNull(decoder.decodeEvents(data, 0, split));
+        assertMessages(decoder.decodeEvents(data, split, data.length - split), "caf\u00e9");
+    }
+
+    public void testDecodeURLSkipsMalformedRecord() throws Exception {
+        URL url = writeLog(
+            record("first"),
+            //unclosed message element
+            record("broken").replace("</message>", ""),
+            record("second"),
+            //millis which are not a number
+            record("third").replace("1614834367000", "x"),
+            record("fourth"));
+        assertMessages(new UtilLoggingXMLDecoder().decode(url), "first", "second", "fourth");
+    }
+
+    public void testDecodeEventsSkipsMalformedRecord() throws Exception {
+        UtilLoggingXMLDecoder decoder = new UtilLoggingXMLDecoder();
+        assertMessages(decoder.decodeEvents(record("first") + record("broken").replace("</message>", "")),
+            "first");
+        assertMessages(decoder.decodeEvents(record("second")), "second");
+    }
+
+    public void testDecodeURLKeepsStreamedRecord() throws Exception {
+        UtilLoggingXMLDecoder decoder = new UtilLoggingXMLDecoder();
+        String streamed = record("streamed");
+        int half = streamed.length() / 2;
+        assertNull(decoder.decodeEvents(streamed.substring(0, half)));
+
+        assertMessages(decoder.decode(writeLog(record("from file"))), "from file");
+
+        assertMessages(decoder.decodeEvents(streamed.substring(half)), "streamed");
+    }
+}
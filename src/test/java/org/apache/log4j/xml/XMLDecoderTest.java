@@ -18,9 +18,13 @@
 
 import junit.framework.TestCase;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.CharBuffer;
 import java.util.Vector;
 import java.net.URL;
@@ -84,4 +88,54 @@ public void testDecodeEventsURL2() throws Exception {
         assertEquals(15, events.size());
     }
 
+    public void testDecodeEventsBytesInSmallReads() throws Exception {
+        byte[] data = getStringFromResource("xmlLayout.1.xml", 10000).getBytes("UTF-8");
+        XMLDecoder decoder = new XMLDecoder();
+        int count = 0;
+        for (int offset = 0; offset < data.length; offset += 7) {
+            Vector<ChainsawLoggingEvent> events =
+                decoder.decodeEvents(data, offset, Math.min(7, data.length - offset));
+            if (events != null) {
+                count += events.size();
+            }
+        }
+        assertEquals(17, count);
+    }
+
+    public void testDecodeEventsBytesSplitCharacter() throws Exception {
+        byte[] data = ("<log4j:event logger=\"a\" timestamp=\"1\" level=\"INFO\" thread=\"main\">"
+            + "<log4j:message>caf\u00e9</log4j:message></log4j:event>").getBytes("UTF-8");
+        int split = new String(data, "UTF-8").indexOf('\u00e9') + 1;
+        XMLDecoder decoder = new XMLDecoder();
+        assertNull(decoder.decodeEvents(data, 0, split));
+        Vector<ChainsawLoggingEvent> events = decoder.decodeEvents(data, split, data.length - split);
+        assertEquals(1, events.size());
+        assertEquals("caf\u00e9", events.firstElement().m_message);
+    }
+
+    private static String event(String message) {
+        return "<log4j:event logger=\"a\" timestamp=\"1\" level=\"INFO\" thread=\"main\">"
+            + "<log4j:message>" + message + "</log4j:message></log4j:event>\n";
+    }
+
+    public void testDecodeURLSkipsMalformedEvent() throws Exception {
+        File file = File.createTempFile("malformed", ".xml");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            writer.write(event("first"));
+            //unclosed message element
+            writer.write("<log4j:event logger=\"a\" timestamp=\"1\" level=\"INFO\" thread=\"main\">"
+                + "<log4j:message>broken</log4j:event>\n");
+            writer.write(event("second"));
+            //timestamp which is not a number
+            writer.write(event("third").replace("timestamp=\"1\"", "timestamp=\"x\""));
+            writer.write(event("fourth"));
+        }
+        Vector<ChainsawLoggingEvent> events = new XMLDecoder().decode(file.toURI().toURL());
+        assertEquals(3, events.size());
+        assertEquals("first", events.get(0).m_message);
+        assertEquals("second", events.get(1).m_message);
+        assertEquals("fourth", events.get(2).m_message);
+    }
+
 }